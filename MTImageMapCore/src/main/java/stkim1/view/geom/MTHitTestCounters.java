@@ -0,0 +1,60 @@
+package stkim1.view.geom;
+
+/**
+ * MTHitTestCounters counts the work of hit tests, for an instrumented query of
+ * <code>MTPolygonIndex</code> or <code>MTPolygonHierarchy</code>. Counts accumulate over queries until they are reset.
+ * Uninstrumented queries never touch counters, so they cost nothing when they are not used.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTHitTestCounters {
+
+    long candidates = 0;
+    long boxPasses = 0;
+    long windingTests = 0;
+    long edgesVisited = 0;
+
+    public MTHitTestCounters() {
+        super();
+    }
+
+    /**
+     * Set every count to zero.
+     */
+    public void reset() {
+        this.candidates = 0;
+        this.boxPasses = 0;
+        this.windingTests = 0;
+        this.edgesVisited = 0;
+    }
+
+    /**
+     * @return the number of polygons whose bounding box is checked against a point.
+     */
+    public long getCandidates() {
+        return this.candidates;
+    }
+
+    /**
+     * @return the number of polygons whose bounding box contains a point.
+     */
+    public long getBoxPasses() {
+        return this.boxPasses;
+    }
+
+    /**
+     * @return the number of winding number tests.
+     */
+    public long getWindingTests() {
+        return this.windingTests;
+    }
+
+    /**
+     * @return the number of polygon edges examined by winding number tests.
+     */
+    public long getEdgesVisited() {
+        return this.edgesVisited;
+    }
+}
@@ -104,6 +104,17 @@ public class MTPoint {
     //           =0 for the point is on the line
     //           <0 for the point is at the right of the line
     int isLeft(@NonNull MTPoint P0 ,@NonNull MTPoint P1) {
-        return (int)( (P1.x - P0.x) * (this.y - P0.y) - (this.x -  P0.x) * (P1.y - P0.y) );
+        return isLeft(this.x, this.y, P0.x, P0.y, P1.x, P1.y);
+    }
+
+    // isLeft() over primitive coordinates of the point (x, y), P0 (x0, y0), and P1 (x1, y1)
+    static int isLeft(double x, double y, double x0, double y0, double x1, double y1) {
+        return (int)( (x1 - x0) * (y - y0) - (x -  x0) * (y1 - y0) );
+    }
+
+    // isLeft() over fixed-point coordinates. It is exact as long as the coordinate differences
+    // fit in 31 bits, so that neither product overflows.
+    static long isLeft(long x, long y, long x0, long y0, long x1, long y1) {
+        return (x1 - x0) * (y - y0) - (x - x0) * (y1 - y0);
     }
 }
\ No newline at end of file
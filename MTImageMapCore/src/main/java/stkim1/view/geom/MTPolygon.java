@@ -0,0 +1,976 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+import java.io.InvalidObjectException;
+import java.math.BigDecimal;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MTPolygon contains a polygon map made with a group of <code>MTPoint</code>, and can check
+ * if a point is contained.
+ * <p>
+ * Once a polygon is closed, its vertices are kept in packed primitive <code>x</code> and
+ * <code>y</code> arrays rather than <code>MTPoint</code> objects. The arrays can be shared by all
+ * the polygons of a map, in which case each polygon takes a range of them.
+ * <p>
+ * How a polygon prepares for point tests when it is closed is decided by the
+ * {@link MTPolygonOptions} it is closed with, or {@link MTPolygonOptions#DEFAULT}.
+ * <p>
+ * A closed polygon with as many vertices as the edge bucket threshold or more buckets its edges by
+ * y-interval, so that a point-in-polygon test examines only the edges around the point's scanline
+ * instead of all of them.
+ * <p>
+ * In the fixed-point geometry mode, a polygon whose vertices are multiples of 1/256 also keeps
+ * them as fixed-point integers, and tests a point with exact <code>long</code> arithmetic. The
+ * point is not snapped to the grid; its fraction below the grid is taken into account exactly.
+ * Unlike the default <code>double</code> path, which truncates the cross product of
+ * <code>isLeft</code> to an integer, a point close to an edge is classified correctly.
+ * Multipolygons always take the <code>double</code> path.
+ * <p>
+ * For drawing at a small scale, a closed polygon offers simplified outlines at several levels of
+ * detail. They are built on demand and cached. Point tests always use the exact vertices.
+ * <p>
+ * A closed polygon can also be a multipolygon of several rings; outer rings for its parts, and
+ * holes. The rings are kept one after another in the vertex range. Whichever direction a ring
+ * runs, an outer ring counts <code>+1</code> and a hole counts <code>-1</code> to the winding
+ * number of a point inside it, so that a point is contained if the sum is positive, e.g. a point
+ * in a courtyard of a building is not.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.1
+ */
+public class MTPolygon {
+
+    // fixed-point vertices carry 8 fraction bits, and their magnitude stays under 2^30 so that
+    // the cross product of isLeft fits in a long.
+    static final int FIXED_POINT_BITS = 8;
+    static final double FIXED_POINT_SCALE = 1 << FIXED_POINT_BITS;
+    private static final double FIXED_POINT_LIMIT = 1 << 30;
+
+    /**
+     * The number of levels of detail. Level <code>0</code> is the exact outline.
+     */
+    public static final int DETAIL_LEVELS = 8;
+    // the tolerance of level 1. each level doubles the tolerance of the previous one.
+    private static final double DETAIL_BASE_TOLERANCE = 0.25;
+
+    private Object polygonId = null;
+    // vertices of an open polygon. They are packed into the arrays when the polygon is closed.
+    private ArrayList<MTPoint> openVertices = new ArrayList<MTPoint>();
+    // packed vertices of a closed polygon in [offset, offset + count) range of the arrays.
+    private double[] xs = null, ys = null;
+    private int offset = 0, count = 0;
+    private final MTPolygonBoundingBox boundingBox = new MTPolygonBoundingBox();
+    // edges bucketed by y-interval for a large polygon. null for a small one.
+    private MTPolygonEdgeBuckets edgeBuckets = null;
+    // fixed-point vertices of a closed polygon in the fixed-point geometry mode. null otherwise.
+    private int[] fxs = null, fys = null;
+    // the end of each ring relative to the offset for a multipolygon. null for a single ring.
+    private int[] ringEnds = null;
+    // +1 or -1 for each ring of a multipolygon, which turns the winding number around the inside
+    // of an outer ring into +1, and of a hole into -1
+    private int[] ringSigns = null;
+    private boolean[] holes = null;
+    // edges bucketed by y-interval for each large ring of a multipolygon
+    private MTPolygonEdgeBuckets[] ringBuckets = null;
+    // if a point test checks the octagonal bounds before the winding number
+    private boolean octagonal = false;
+    // kept vertex indices of each simplified level, built on demand
+    private int[][] detailLevels = null;
+    private boolean closed = false;
+
+    /**
+     * The points in MTPolygon is henceforth called <code>vertices</code>. When a polygon is
+     * instantiated with vertices, it becomes a closed polygon, which cannot be further modified.
+     * Thus, we check if at least three vertices are provided, and close the spawned polygon
+     * if the condition is met.
+     * <p>
+     * polygon id is not enforced as it is an utility, i.e. you can implement an id only if you need
+     * to identify or index polygons.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     * @param vts a list of at least three or more points (vertices).
+     * @throws NullPointerException if the vertices list in the arguments is null.
+     * @throws InvalidParameterException if the number of vertices are less than three.
+     */
+    public MTPolygon(Object pid, @NonNull List<MTPoint> vts) throws Exception {
+        this(pid, vts, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Instantiate a closed polygon with vertices, which prepares for point tests with given
+     * options.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     * @param vts a list of at least three or more points (vertices).
+     * @param options the options to close the polygon with.
+     * @throws NullPointerException if the vertices list or the options is null.
+     * @throws InvalidParameterException if the number of vertices are less than three.
+     * @see #MTPolygon(Object, List)
+     */
+    public MTPolygon(Object pid, @NonNull List<MTPoint> vts, @NonNull MTPolygonOptions options) throws Exception {
+        super();
+
+        if (vts.size() < 3) {
+            throw new InvalidParameterException("MTPolygon must be instantiated with at least three vertices.");
+        }
+
+        if (pid != null) {
+            this.polygonId = pid;
+        }
+
+        this.openVertices.addAll(vts);
+
+        // now this polygon cannot be modified further
+        packVertices(options);
+    }
+
+    /**
+     * Instantiate a closed polygon over packed vertex arrays. The vertices of this polygon are
+     * <code>(xs[offset + i], ys[offset + i])</code> for <code>0 {@literal <}= i {@literal <} length</code>.
+     * The arrays are not copied so that all polygons of a map can share a pair of arrays.
+     * Do not modify the range of the arrays after a polygon is instantiated.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     * @param xs x parts of the vertices.
+     * @param ys y parts of the vertices.
+     * @param offset the position of the first vertex in the arrays.
+     * @param length the number of vertices. It should be at least three.
+     * @throws NullPointerException if any of the arrays is null.
+     * @throws InvalidParameterException if the number of vertices are less than three.
+     * @throws IndexOutOfBoundsException if the range is out of the arrays.
+     */
+    public MTPolygon(Object pid, @NonNull double[] xs, @NonNull double[] ys, int offset, int length) {
+        this(pid, xs, ys, offset, length, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Instantiate a closed polygon over packed vertex arrays, which prepares for point tests with
+     * given options.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     * @param xs x parts of the vertices.
+     * @param ys y parts of the vertices.
+     * @param offset the position of the first vertex in the arrays.
+     * @param length the number of vertices. It should be at least three.
+     * @param options the options to close the polygon with.
+     * @throws NullPointerException if any of the arrays or the options is null.
+     * @throws InvalidParameterException if the number of vertices are less than three.
+     * @throws IndexOutOfBoundsException if the range is out of the arrays.
+     * @see #MTPolygon(Object, double[], double[], int, int)
+     */
+    public MTPolygon(Object pid, @NonNull double[] xs, @NonNull double[] ys, int offset, int length,
+                     @NonNull MTPolygonOptions options) {
+        super();
+
+        if (length < 3) {
+            throw new InvalidParameterException("MTPolygon must be instantiated with at least three vertices.");
+        }
+        if (offset < 0 || xs.length < offset + length || ys.length < offset + length) {
+            throw new IndexOutOfBoundsException("MTPolygon vertices range is out of the arrays.");
+        }
+
+        this.polygonId = pid;
+        this.xs = xs;
+        this.ys = ys;
+        this.offset = offset;
+        this.count = length;
+        this.openVertices = null;
+
+        // now this polygon cannot be modified further
+        this.closed = true;
+
+        // find bounding box of this polygon, and bucket the edges of a large one
+        this.boundingBox.findBox(this.xs, this.ys, this.offset, this.count);
+        prepareQueries(options);
+    }
+
+    /**
+     * Instantiate a closed multipolygon of several rings over packed vertex arrays. The rings are
+     * laid one after another from the offset; the first ring takes <code>ringLengths[0]</code>
+     * vertices, the next one the following <code>ringLengths[1]</code> vertices, and so on.
+     * Each ring is either an outer ring of a part, or a hole. The rings may run in any direction,
+     * and be given in any order. The arrays are not copied.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     * @param xs x parts of the vertices.
+     * @param ys y parts of the vertices.
+     * @param offset the position of the first vertex in the arrays.
+     * @param ringLengths the number of vertices of each ring. Each should be at least three.
+     * @param holes <code>true</code> for a hole, <code>false</code> for an outer ring.
+     * @throws NullPointerException if any of the arrays is null.
+     * @throws InvalidParameterException if a ring has less than three vertices, a ring has no hole
+     *      flag, or there is no outer ring.
+     * @throws IndexOutOfBoundsException if the range is out of the arrays.
+     */
+    public MTPolygon(Object pid, @NonNull double[] xs, @NonNull double[] ys, int offset,
+                     @NonNull int[] ringLengths, @NonNull boolean[] holes) {
+        this(pid, xs, ys, offset, ringLengths, holes, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Instantiate a closed multipolygon of several rings over packed vertex arrays, which prepares
+     * for point tests with given options.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     * @param xs x parts of the vertices.
+     * @param ys y parts of the vertices.
+     * @param offset the position of the first vertex in the arrays.
+     * @param ringLengths the number of vertices of each ring. Each should be at least three.
+     * @param holes <code>true</code> for a hole, <code>false</code> for an outer ring.
+     * @param options the options to close the polygon with.
+     * @throws NullPointerException if any of the arrays or the options is null.
+     * @throws InvalidParameterException if a ring has less than three vertices, a ring has no hole
+     *      flag, or there is no outer ring.
+     * @throws IndexOutOfBoundsException if the range is out of the arrays.
+     * @see #MTPolygon(Object, double[], double[], int, int[], boolean[])
+     */
+    public MTPolygon(Object pid, @NonNull double[] xs, @NonNull double[] ys, int offset,
+                     @NonNull int[] ringLengths, @NonNull boolean[] holes, @NonNull MTPolygonOptions options) {
+        super();
+
+        if (ringLengths.length != holes.length) {
+            throw new InvalidParameterException("MTPolygon needs a hole flag for every ring.");
+        }
+        final int rsz = ringLengths.length;
+        final int[] ends = new int[rsz];
+        boolean outer = false;
+        int length = 0;
+        for (int r = 0; r < rsz; r++) {
+            if (ringLengths[r] < 3) {
+                throw new InvalidParameterException("MTPolygon ring must have at least three vertices.");
+            }
+            length += ringLengths[r];
+            ends[r] = length;
+            outer |= !holes[r];
+        }
+        if (!outer) {
+            throw new InvalidParameterException("MTPolygon must have an outer ring.");
+        }
+        if (offset < 0 || xs.length < offset + length || ys.length < offset + length) {
+            throw new IndexOutOfBoundsException("MTPolygon vertices range is out of the arrays.");
+        }
+
+        this.polygonId = pid;
+        this.xs = xs;
+        this.ys = ys;
+        this.offset = offset;
+        this.count = length;
+        this.openVertices = null;
+        if (rsz > 1) {
+            this.ringEnds = ends;
+            this.holes = holes.clone();
+            this.ringSigns = new int[rsz];
+            int start = 0;
+            for (int r = 0; r < rsz; r++) {
+                final boolean ccw = signedArea(xs, ys, offset + start, ends[r] - start) >= 0.0;
+                this.ringSigns[r] = (ccw != holes[r]) ? 1 : -1;
+                start = ends[r];
+            }
+        }
+
+        // now this polygon cannot be modified further
+        this.closed = true;
+
+        // find bounding box of this polygon, and bucket the edges of a large one
+        this.boundingBox.findBox(this.xs, this.ys, this.offset, this.count);
+        prepareQueries(options);
+    }
+
+    // twice the signed area of a ring; positive when the ring winds +1 around its inside
+    private static double signedArea(@NonNull double[] xs, @NonNull double[] ys, int offset, int length) {
+        final int last = offset + length - 1;
+        double area = 0.0;
+        for (int i = offset; i <= last; i++) {
+            final int j = (i == last) ? offset : i + 1;
+            area += xs[i] * ys[j] - xs[j] * ys[i];
+        }
+        return area;
+    }
+
+    /**
+     * When a polygon is instantiated without vertices, it is an open polygon, which can be further
+     * modified.
+     */
+    public MTPolygon() {
+        super();
+    }
+
+    /**
+     * A polygon id is to identify which polygon is selected. Id can be set to anything;
+     * <code>String</code>, <code>Object</code>, and/or <code>null</code> if you want.
+     * Polygon id is not enforced as it is an utility, i.e. you can implement an id only if you need
+     * to identify or index polygons.
+     * <p>
+     * <code>MTImageMapView</code> keys in-place updates of its polygon maps by the id. Do not
+     * change the id of a polygon while it is in the maps of a view.
+     *
+     * @param pid a nullable <code>Object</code> as the id of a polygon.
+     */
+    public void setPolygonId(Object pid) {
+            this.polygonId = pid;
+    }
+
+    /**
+     * A polygon id is to identify which polygon is selected.
+     *
+     * @return the polygon id
+     */
+    public Object getPolygonId() {
+        return this.polygonId;
+    }
+
+    /**
+     * A point in MTPolygon is henceforth called <code>vertex</code>. When a polygon is
+     * instantiated without vertices, it is an open polygon, which can take more vertex.
+     *
+     * @param vertex a vertex of <code>MTPoint</code>.
+     * @throws NullPointerException if the vertex is null.
+     * @throws InvalidObjectException if this polygon is already closed
+     *      and you are trying to add another vertex.
+     */
+    public void addVertex(@NonNull MTPoint vertex) throws Exception {
+        if (this.closed) {
+            throw new InvalidObjectException("A closed MTPolygon cannot take a further vertex.");
+        }
+        this.openVertices.add(vertex);
+    }
+
+    /**
+     * Points in MTPolygon is called <code>vertices</code>. When a polygon is instantiated without
+     * vertices, it is an open polygon, which can take more vertices.
+     *
+     * @param vts a list of vertices in <code>MTPoint</code>.
+     * @throws NullPointerException if the vertices is null.
+     * @throws InvalidObjectException if this polygon is already closed
+     *          and you are trying to add more vertices.
+     * @throws InvalidParameterException if the vertices list is empty.
+     */
+    public void addVertices(@NonNull MTPoint[] vts) throws Exception {
+        if (this.closed) {
+            throw new InvalidObjectException("A closed MTPolygon cannot take a further vertex.");
+        }
+        if (vts.length == 0) {
+            throw new InvalidParameterException("You need to provide at least one point to add.");
+        }
+        Collections.addAll(this.openVertices, vts);
+    }
+
+    /**
+     * An open polygon can be closed only if at least three <code>MTPoint</code> vertices are
+     * present in its <code>vertices</code> list. Otherwise, the polygon throws an exception.
+     *
+     * @throws InvalidObjectException if there is less than three vertices in the
+     *      <code>vertices</code> list and you are trying to close this polygon.
+     */
+    public void close() throws Exception {
+        close(MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Close an open polygon, which prepares for point tests with given options. A closed polygon
+     * stays as it was closed.
+     *
+     * @param options the options to close the polygon with.
+     * @throws NullPointerException if the options is null.
+     * @throws InvalidObjectException if there is less than three vertices in the
+     *      <code>vertices</code> list and you are trying to close this polygon.
+     * @see #close()
+     */
+    public void close(@NonNull MTPolygonOptions options) throws Exception {
+        if (this.closed) {
+            return;
+        }
+        if (this.openVertices.size() < 3) {
+            throw new InvalidObjectException("MTPolygon must have at least three vertices.");
+        }
+
+        // now this polygon cannot be modified further.
+        packVertices(options);
+    }
+
+    // prepare a closed polygon for queries; bucket the edges of a large one, and keep fixed-point
+    // vertices in the fixed-point geometry mode
+    private void prepareQueries(@NonNull MTPolygonOptions options) {
+        final int threshold = options.getEdgeBucketThreshold();
+        this.octagonal = options.isOctagonalBounds();
+        if (this.ringEnds != null) {
+            // each large ring of a multipolygon buckets its own edges. fixed-point vertices are
+            // for a single ring only.
+            int start = 0;
+            for (int r = 0; r < this.ringEnds.length; r++) {
+                final int length = this.ringEnds[r] - start;
+                if (length >= threshold) {
+                    if (this.ringBuckets == null) {
+                        this.ringBuckets = new MTPolygonEdgeBuckets[this.ringEnds.length];
+                    }
+                    this.ringBuckets[r] = new MTPolygonEdgeBuckets(this.xs, this.ys, this.offset + start,
+                            length, this.boundingBox.minVertex.y, this.boundingBox.maxVertex.y);
+                }
+                start = this.ringEnds[r];
+            }
+            return;
+        }
+        if (this.count >= threshold) {
+            this.edgeBuckets = new MTPolygonEdgeBuckets(this.xs, this.ys, this.offset, this.count,
+                    this.boundingBox.minVertex.y, this.boundingBox.maxVertex.y);
+        }
+        if (options.isFixedPointGeometry()) {
+            fixVertices();
+        }
+    }
+
+    /**
+     * The tolerance of a level of detail; the largest distance a dropped vertex can be off the
+     * simplified outline.
+     *
+     * @param level a level of detail from <code>0</code> to <code>DETAIL_LEVELS - 1</code>.
+     * @return the tolerance in the unit of vertices. <code>0</code> for the exact outline.
+     * @throws IndexOutOfBoundsException if the level is out of range.
+     */
+    public static double getDetailTolerance(int level) {
+        if (level < 0 || level >= DETAIL_LEVELS) {
+            throw new IndexOutOfBoundsException("Detail level " + level + " is out of " + DETAIL_LEVELS + " levels.");
+        }
+        return (level == 0) ? 0.0 : DETAIL_BASE_TOLERANCE * (1 << (level - 1));
+    }
+
+    /**
+     * Find the coarsest level of detail whose tolerance does not exceed a given one, e.g. half a
+     * screen pixel in the unit of vertices.
+     *
+     * @param tolerance the largest acceptable tolerance.
+     * @return a level of detail. <code>0</code> if no simplified level is fine enough.
+     */
+    public static int findDetailLevel(double tolerance) {
+        int level = 0;
+        while (level + 1 < DETAIL_LEVELS && getDetailTolerance(level + 1) <= tolerance) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Get the vertices to draw at a level of detail. They are simplified with the Douglas-Peucker
+     * algorithm the first time a level is asked for, and cached.
+     *
+     * @param level a level of detail from <code>0</code> to <code>DETAIL_LEVELS - 1</code>.
+     * @return the indices of the kept vertices in ascending order. Do not modify it.
+     *      <code>null</code> if every vertex is to be drawn, i.e. at level <code>0</code>, for an
+     *      open polygon or a multipolygon, or when no vertex can be dropped.
+     * @throws IndexOutOfBoundsException if the level is out of range.
+     */
+    public synchronized int[] getDetailIndices(int level) {
+        final double tolerance = getDetailTolerance(level);
+        if (level == 0 || !this.closed || this.ringEnds != null) {
+            return null;
+        }
+
+        if (this.detailLevels == null) {
+            this.detailLevels = new int[DETAIL_LEVELS][];
+        }
+        int[] indices = this.detailLevels[level];
+        if (indices == null) {
+            indices = MTPolygonSimplifier.simplify(this.xs, this.ys, this.offset, this.count, tolerance);
+            this.detailLevels[level] = indices;
+        }
+        return (indices.length < this.count) ? indices : null;
+    }
+
+    // convert vertices into fixed-point integers, only if all of them are exact on the grid.
+    private void fixVertices() {
+        final int[] fx = new int[this.count];
+        final int[] fy = new int[this.count];
+        for (int i = 0; i < this.count; i++) {
+            final double x = this.xs[this.offset + i] * FIXED_POINT_SCALE;
+            final double y = this.ys[this.offset + i] * FIXED_POINT_SCALE;
+            if (x != Math.rint(x) || y != Math.rint(y) ||
+                    !(Math.abs(x) < FIXED_POINT_LIMIT) || !(Math.abs(y) < FIXED_POINT_LIMIT)) {
+                return;
+            }
+            fx[i] = (int)x;
+            fy[i] = (int)y;
+        }
+        this.fxs = fx;
+        this.fys = fy;
+    }
+
+    // true if this polygon tests points with fixed-point vertices
+    boolean isFixedPoint() {
+        return this.fxs != null;
+    }
+
+    // bucketed edges of this polygon, or null if it is not bucketed
+    MTPolygonEdgeBuckets getEdgeBuckets() {
+        return this.edgeBuckets;
+    }
+
+    // pack the vertices of an open polygon into arrays and close it.
+    private void packVertices(@NonNull MTPolygonOptions options) {
+        final int vsz = this.openVertices.size();
+        this.xs = new double[vsz];
+        this.ys = new double[vsz];
+        for (int i = 0; i < vsz; i++) {
+            MTPoint v = this.openVertices.get(i);
+            this.xs[i] = v.x;
+            this.ys[i] = v.y;
+        }
+        this.offset = 0;
+        this.count = vsz;
+        this.openVertices = null;
+
+        this.closed = true;
+
+        // find bounding box of this polygon, and bucket the edges of a large one
+        this.boundingBox.findBox(this.xs, this.ys, this.offset, this.count);
+        prepareQueries(options);
+    }
+
+    // validate the vertices for a bulk preparation. false if a vertex is not a finite number.
+    boolean isFinite() {
+        if (this.closed) {
+            for (int i = this.offset; i < this.offset + this.count; i++) {
+                if (!Double.isFinite(this.xs[i]) || !Double.isFinite(this.ys[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (MTPoint v : this.openVertices) {
+            if (!Double.isFinite(v.x) || !Double.isFinite(v.y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // normalize validated vertices for a bulk preparation. An open polygon drops repeated
+    // vertices, i.e. one same as the previous one and the last one same as the first, then closes
+    // if at least three vertices are left.
+    void normalize(@NonNull MTPolygonOptions options) {
+        if (this.closed) {
+            return;
+        }
+
+        final ArrayList<MTPoint> vts = new ArrayList<MTPoint>(this.openVertices.size());
+        MTPoint last = null;
+        for (MTPoint v : this.openVertices) {
+            if (last == null || v.x != last.x || v.y != last.y) {
+                vts.add(v);
+                last = v;
+            }
+        }
+        final int vsz = vts.size();
+        if (vsz > 1 && vts.get(0).x == last.x && vts.get(0).y == last.y) {
+            vts.remove(vsz - 1);
+        }
+        this.openVertices = vts;
+
+        if (vts.size() >= 3) {
+            packVertices(options);
+        }
+    }
+
+    /**
+     * When a polygon is closed, you cannot add a vertex to it.
+     *
+     * @return <code>true</code> if this polygon is closed, <code>false</code> otherwise.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * The number of points in the <code>vertices</code> of this polygon.
+     *
+     * @return the number of vertices.
+     */
+    public int getVertexCount() {
+        return this.closed ? this.count : this.openVertices.size();
+    }
+
+    /**
+     * x part of a vertex coordinate.
+     *
+     * @param index the position of a vertex in <code>vertices</code>.
+     * @return x part of the vertex.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public double getVertexX(int index) {
+        if (!this.closed) {
+            return this.openVertices.get(index).x;
+        }
+        if (index < 0 || this.count <= index) {
+            throw new IndexOutOfBoundsException("Vertex index " + index + " is out of " + this.count + " vertices.");
+        }
+        return this.xs[this.offset + index];
+    }
+
+    /**
+     * y part of a vertex coordinate.
+     *
+     * @param index the position of a vertex in <code>vertices</code>.
+     * @return y part of the vertex.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public double getVertexY(int index) {
+        if (!this.closed) {
+            return this.openVertices.get(index).y;
+        }
+        if (index < 0 || this.count <= index) {
+            throw new IndexOutOfBoundsException("Vertex index " + index + " is out of " + this.count + " vertices.");
+        }
+        return this.ys[this.offset + index];
+    }
+
+    /**
+     * The number of rings of this polygon; outer rings and holes. A polygon which is not a
+     * multipolygon, including an open one, has a single ring of all its vertices.
+     *
+     * @return the number of rings.
+     */
+    public int getRingCount() {
+        return (this.ringEnds != null) ? this.ringEnds.length : 1;
+    }
+
+    /**
+     * The position of the first vertex of a ring in <code>vertices</code>.
+     *
+     * @param ring the position of a ring.
+     * @return the position of the first vertex.
+     * @throws IndexOutOfBoundsException if the ring is out of range.
+     */
+    public int getRingStart(int ring) {
+        checkRing(ring);
+        return (ring == 0) ? 0 : this.ringEnds[ring - 1];
+    }
+
+    /**
+     * The position next to the last vertex of a ring in <code>vertices</code>.
+     *
+     * @param ring the position of a ring.
+     * @return the position next to the last vertex.
+     * @throws IndexOutOfBoundsException if the ring is out of range.
+     */
+    public int getRingEnd(int ring) {
+        checkRing(ring);
+        return (this.ringEnds != null) ? this.ringEnds[ring] : getVertexCount();
+    }
+
+    /**
+     * Tells you if a ring is a hole.
+     *
+     * @param ring the position of a ring.
+     * @return <code>true</code> if the ring is a hole, <code>false</code> for an outer ring.
+     * @throws IndexOutOfBoundsException if the ring is out of range.
+     */
+    public boolean isHole(int ring) {
+        checkRing(ring);
+        return this.holes != null && this.holes[ring];
+    }
+
+    private void checkRing(int ring) {
+        final int rsz = getRingCount();
+        if (ring < 0 || rsz <= ring) {
+            throw new IndexOutOfBoundsException("Ring index " + ring + " is out of " + rsz + " rings.");
+        }
+    }
+
+    // +1 or -1 to turn the winding number of a ring into the count toward containment
+    int getRingSign(int ring) {
+        return (this.ringSigns != null) ? this.ringSigns[ring] : 1;
+    }
+
+    // if a sum of signed winding numbers means a point is contained. A single ring contains a
+    // point wound either way, while rings of a multipolygon are oriented by their signs.
+    boolean isWindingInside(int wn) {
+        return (this.ringEnds != null) ? wn > 0 : wn != 0;
+    }
+
+    // the area of a closed polygon; its outer rings less its holes. 0 for an open polygon.
+    double getArea() {
+        if (!this.closed) {
+            return 0.0;
+        }
+        if (this.ringEnds == null) {
+            return Math.abs(signedArea(this.xs, this.ys, this.offset, this.count)) * 0.5;
+        }
+        double area = 0.0;
+        int start = 0;
+        for (int r = 0; r < this.ringEnds.length; r++) {
+            area += this.ringSigns[r] * signedArea(this.xs, this.ys, this.offset + start, this.ringEnds[r] - start);
+            start = this.ringEnds[r];
+        }
+        return area * 0.5;
+    }
+
+    // the bounding box is valid only after this polygon is closed.
+    MTPolygonBoundingBox getBoundingBox() {
+        return this.boundingBox;
+    }
+
+    /**
+     * Tells you if a point is in the bonding box of this polygon. This is to quickly cull unlikely
+     * polygons and to speed up pin-pointing exact polygons the point is contained in.
+     *
+     * @param point a point in <code>MTPoint</code>.
+     * @return <code>true</code> if the point is in the bounding box of this polygon,
+     *      otherwise <code>false</code>.
+     */
+    public boolean isPointInBBox(@NonNull MTPoint point) {
+        return checkIfPointInBBox(this, point.x, point.y);
+    }
+
+    /**
+     * Tells you if a point (x, y) is in the bonding box of this polygon.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @return <code>true</code> if the point is in the bounding box of this polygon,
+     *      otherwise <code>false</code>.
+     * @see #isPointInBBox(MTPoint)
+     */
+    public boolean isPointInBBox(double x, double y) {
+        return checkIfPointInBBox(this, x, y);
+    }
+
+    /**
+     * Tells you if a point is in this polygon. Dan Sunday's "Fast Winding Number Algorithm" is
+     * implemented to check precisely if the point really is contained in this polygon.
+     *
+     * @param point a point in <code>MTPoint</code>.
+     * @return <code>true</code> if the point is contained in this polygon,
+     *      otherwise <code>false</code>.
+     */
+    public boolean isPointInPolygon(@NonNull MTPoint point) {
+        return isWindingInside(fastWindingNumber(this, point.x, point.y));
+    }
+
+    /**
+     * Tells you if a point (x, y) is in this polygon.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @return <code>true</code> if the point is contained in this polygon,
+     *      otherwise <code>false</code>.
+     * @see #isPointInPolygon(MTPoint)
+     */
+    public boolean isPointInPolygon(double x, double y) {
+        return isWindingInside(fastWindingNumber(this, x, y));
+    }
+
+    private static boolean checkIfPointInBBox(@NonNull MTPolygon polygon, double px, double py) {
+        // if a polygon is not closed, the point is not contained. simple.
+        if (!polygon.closed) {
+            return false;
+        }
+
+        return polygon.boundingBox.minVertex.x <= px &&
+                px <= polygon.boundingBox.maxVertex.x &&
+                polygon.boundingBox.minVertex.y <= py &&
+                py <= polygon.boundingBox.maxVertex.y;
+    }
+
+
+    // the bounding box cut by the diagonals; x + y and x - y of a point within those of vertices
+    private static boolean checkIfPointInOctagon(@NonNull MTPolygon polygon, double px, double py) {
+        final MTPolygonBoundingBox box = polygon.boundingBox;
+        final double sum = px + py, diff = px - py;
+        return box.minVertex.x <= px && px <= box.maxVertex.x &&
+                box.minVertex.y <= py && py <= box.maxVertex.y &&
+                box.minSum <= sum && sum <= box.maxSum &&
+                box.minDiff <= diff && diff <= box.maxDiff;
+    }
+
+    // if a point passes the bounds a point test checks before the winding number
+    boolean isPointInBounds(double x, double y) {
+        return this.octagonal ? checkIfPointInOctagon(this, x, y) : checkIfPointInBBox(this, x, y);
+    }
+
+    // This portion is from Dan Sunday's Fast Winding Number Algorithm
+    //
+    // Copyright 2000 softSurfer, 2012 Dan Sunday
+    // This code may be freely used and modified for any purpose
+    // providing that this copyright notice is included with it.
+    // SoftSurfer makes no warranty for this code, and cannot be held
+    // liable for any real or imagined damage resulting from its use.
+    // Users of this code must verify correctness for their application.
+    //
+    // fastWindingNumber(): winding number test for a point in a polygon
+    //      Input : polygon = vertex points of a polygon V[n+1] with V[n]=V[0]
+    //              point = a point (px, py)
+    //      Return:  wn = the winding number (=0 only when the point is outside)
+    private static int fastWindingNumber(@NonNull MTPolygon polygon, double px, double py) {
+        // if a polygon is not closed, the point is not contained.
+        if (!polygon.isClosed()) {
+            return 0;
+        }
+
+        // the point out of the octagonal bounds cannot be in the polygon
+        if (polygon.octagonal && !checkIfPointInOctagon(polygon, px, py)) {
+            return 0;
+        }
+
+        // a fixed-point polygon tests the point in exact integer arithmetic
+        if (polygon.fxs != null) {
+            return fixedWindingNumber(polygon, px, py);
+        }
+
+        // a multipolygon sums the winding numbers of its rings, signed by their role
+        if (polygon.ringEnds != null) {
+            return ringWindingNumber(polygon, px, py);
+        }
+
+        // a large polygon only examines the edges around the scanline of the point
+        final double[] vx = polygon.xs, vy = polygon.ys;
+        if (polygon.edgeBuckets != null) {
+            return polygon.edgeBuckets.windingNumber(vx, vy, polygon.offset, polygon.count, px, py);
+        }
+
+        // loop through all edges of the polygon over the packed arrays
+        final int start = polygon.offset, last = polygon.offset + polygon.count - 1;
+        int wn = 0;
+        for (int i = start; i <= last; i++) {
+            final int j = (i == last) ? start : i + 1;
+            wn += crossing(px, py, vx[i], vy[i], vx[j], vy[j]);
+        }
+        return wn;
+    }
+
+    // the same winding number test over every ring of a multipolygon
+    private static int ringWindingNumber(@NonNull MTPolygon polygon, double px, double py) {
+        final double[] vx = polygon.xs, vy = polygon.ys;
+        int wn = 0;
+        int start = polygon.offset;
+        for (int r = 0; r < polygon.ringEnds.length; r++) {
+            final int end = polygon.offset + polygon.ringEnds[r];
+            int rwn = 0;
+            if (polygon.ringBuckets != null && polygon.ringBuckets[r] != null) {
+                rwn = polygon.ringBuckets[r].windingNumber(vx, vy, start, end - start, px, py);
+            } else {
+                final int last = end - 1;
+                for (int i = start; i <= last; i++) {
+                    final int j = (i == last) ? start : i + 1;
+                    rwn += crossing(px, py, vx[i], vy[i], vx[j], vy[j]);
+                }
+            }
+            wn += polygon.ringSigns[r] * rwn;
+            start = end;
+        }
+        return wn;
+    }
+
+    // the number of edges a winding number test at a scanline y examines
+    int getEdgesExamined(double y) {
+        if (!this.closed) {
+            return 0;
+        }
+        if (this.ringEnds != null) {
+            int edges = 0;
+            int start = 0;
+            for (int r = 0; r < this.ringEnds.length; r++) {
+                edges += (this.ringBuckets != null && this.ringBuckets[r] != null) ?
+                        this.ringBuckets[r].getSlabSize(y) : this.ringEnds[r] - start;
+                start = this.ringEnds[r];
+            }
+            return edges;
+        }
+        return (this.edgeBuckets != null) ? this.edgeBuckets.getSlabSize(y) : this.count;
+    }
+
+    // the same winding number test over fixed-point vertices, and the point scaled to their unit
+    private static int fixedWindingNumber(@NonNull MTPolygon polygon, double px, double py) {
+        // the exact winding number is zero out of the bounding box. it also keeps the point
+        // within the range in which the cross product cannot overflow.
+        if (!checkIfPointInBBox(polygon, px, py)) {
+            return 0;
+        }
+        // scaling by a power of two is exact
+        final double fx = px * FIXED_POINT_SCALE;
+        final double fy = py * FIXED_POINT_SCALE;
+
+        final int[] vx = polygon.fxs, vy = polygon.fys;
+        if (polygon.edgeBuckets != null) {
+            return polygon.edgeBuckets.windingNumber(vx, vy, polygon.count, fx, fy);
+        }
+
+        final int last = polygon.count - 1;
+        int wn = 0;
+        for (int i = 0; i <= last; i++) {
+            final int j = (i == last) ? 0 : i + 1;
+            wn += fixedCrossing(fx, fy, vx[i], vy[i], vx[j], vy[j]);
+        }
+        return wn;
+    }
+
+    // How an edge (v0-v1) changes the winding number of a point (px, py).
+    // Return  : +1 for an upward crossing with the point at the left of the edge
+    //           -1 for a downward crossing with the point at the right of the edge
+    //            0 otherwise
+    static int crossing(double px, double py, double x0, double y0, double x1, double y1) {
+        // start v0.y <= point.y
+        if (y0 <= py) {
+            // an upward crossing
+            if (y1 > py) {
+                // if the point is at the left of edge (v0-v1), we have a valid up intersect.
+                if (MTPoint.isLeft(px, py, x0, y0, x1, y1) > 0) {
+                    return 1;
+                }
+            }
+
+        // start v0.y > point.y (no test needed)
+        } else {
+            // a downward crossing
+            if (y1 <= py) {
+                // if the point is at the right of edge (v0-v1), we have a valid down intersect.
+                if (MTPoint.isLeft(px, py, x0, y0, x1, y1) < 0) {
+                    return -1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // crossing() over fixed-point vertices, with the exact sign of isLeft. the point is in the
+    // fixed-point unit, but not on the grid. comparing an integer with a double is exact.
+    static int fixedCrossing(double px, double py, long x0, long y0, long x1, long y1) {
+        if (y0 <= py) {
+            if (y1 > py && signOfLeft(px, py, x0, y0, x1, y1) > 0) {
+                return 1;
+            }
+        } else {
+            if (y1 <= py && signOfLeft(px, py, x0, y0, x1, y1) < 0) {
+                return -1;
+            }
+        }
+        return 0;
+    }
+
+    // the exact sign of isLeft of a point off the grid, within 2^30 of fixed-point vertices
+    static int signOfLeft(double px, double py, long x0, long y0, long x1, long y1) {
+        // split the point into its integer part, and the fraction, which the subtraction keeps
+        // exact. The fraction is below 1 with the same sign as the point.
+        final long ix = (long)px, iy = (long)py;
+        final double rx = px - ix, ry = py - iy;
+        final long whole = MTPoint.isLeft(ix, iy, x0, y0, x1, y1);
+        if (rx == 0.0 && ry == 0.0) {
+            return Long.signum(whole);
+        }
+
+        // the fraction moves isLeft by (x1 - x0) * ry - (y1 - y0) * rx, which is less than
+        // |x1 - x0| + |y1 - y0|. Only a point as close to the line needs it in exact arithmetic.
+        final long dx = x1 - x0, dy = y1 - y0;
+        if (Math.abs(whole) >= Math.abs(dx) + Math.abs(dy)) {
+            return Long.signum(whole);
+        }
+        return BigDecimal.valueOf(whole)
+                .add(new BigDecimal(ry).multiply(BigDecimal.valueOf(dx)))
+                .subtract(new BigDecimal(rx).multiply(BigDecimal.valueOf(dy)))
+                .signum();
+    }
+}
\ No newline at end of file
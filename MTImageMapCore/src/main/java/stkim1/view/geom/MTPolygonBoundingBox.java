@@ -0,0 +1,69 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTPolygonBoundingBox is a utility class of MTPolygon.
+It does not thoroughly check the sanity of input values.
+ * Thus, when you are to utilize outside of MTPolygon,
+ * be aware of its uninitialized min and max values.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.1
+ */
+class MTPolygonBoundingBox {
+
+    MTPoint minVertex, maxVertex;
+    // the range of x + y and x - y over the vertices, which cut the corners of the box into an
+    // octagon
+    double minSum, maxSum, minDiff, maxDiff;
+
+    MTPolygonBoundingBox() {
+        super();
+    }
+
+    void findBox(@NonNull double[] xs, @NonNull double[] ys, int offset, int length) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double minS = Double.POSITIVE_INFINITY, minD = Double.POSITIVE_INFINITY;
+        double maxS = Double.NEGATIVE_INFINITY, maxD = Double.NEGATIVE_INFINITY;
+        final int end = offset + length;
+
+        for (int i = offset; i < end; i++) {
+            final double x = xs[i], y = ys[i];
+            if (x < minX) {
+                minX = x;
+            }
+            if (y < minY) {
+                minY = y;
+            }
+            if (maxX < x) {
+                maxX = x;
+            }
+            if (maxY < y) {
+                maxY = y;
+            }
+            final double sum = x + y, diff = x - y;
+            if (sum < minS) {
+                minS = sum;
+            }
+            if (maxS < sum) {
+                maxS = sum;
+            }
+            if (diff < minD) {
+                minD = diff;
+            }
+            if (maxD < diff) {
+                maxD = diff;
+            }
+        }
+
+        this.minVertex = new MTPoint(minX, minY);
+        this.maxVertex = new MTPoint(maxX, maxY);
+        this.minSum = minS;
+        this.maxSum = maxS;
+        this.minDiff = minD;
+        this.maxDiff = maxD;
+    }
+}
@@ -0,0 +1,308 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * MTPolygonClassifier classifies a batch of points against a set of polygons without a view,
+ * e.g. to replay logged touches offline. Points are packed in an array of <code>x, y</code>
+ * pairs, either in <code>float</code> or <code>double</code>, and the result is given in the
+ * index numbers of polygons, that is, their positions in the list the classifier is built with.
+ * <p>
+ * Unlike <code>MTPolygonIndex</code>, a classifier keeps no scratch buffers of its own. Hence it
+ * is safe to classify from several threads at once, and a large batch can be split across a
+ * <code>ForkJoinPool</code>.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTPolygonClassifier {
+
+    /**
+     * The class of a point which is in no polygon.
+     */
+    public static final int NONE = -1;
+
+    // the number of points a task classifies without splitting further
+    static final int BATCH_SIZE = 4096;
+
+    // the initial size of the hit buffer of a task. It grows when more bounding boxes overlap.
+    private static final int HIT_BUFFER_SIZE = 16;
+
+    private final MTPolygonIndex index;
+
+    /**
+     * Build a classifier over a list of polygons. The position of a polygon in the list is its
+     * index number.
+     *
+     * @param pList a list of polygons.
+     * @throws NullPointerException if the list is null.
+     */
+    public MTPolygonClassifier(@NonNull List<MTPolygon> pList) {
+        this(new MTPolygonIndex(pList));
+    }
+
+    /**
+     * Build a classifier over the polygons of an index. The index is only read, and can be
+     * shared with other classifiers or queried on its own from a single thread. Do not update
+     * the index while a batch is classified.
+     *
+     * @param index an index of polygons.
+     * @throws NullPointerException if the index is null.
+     */
+    public MTPolygonClassifier(@NonNull MTPolygonIndex index) {
+        super();
+        this.index = index;
+    }
+
+    /**
+     * The number of polygons to classify points into.
+     *
+     * @return the number of polygons.
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Classify points into the first polygon, in the list order, which contains each point.
+     * The class of the <code>i</code>th point, <code>(points[2i], points[2i + 1])</code>, is
+     * written to <code>result[i]</code>, or {@link #NONE} if no polygon contains it.
+     *
+     * @param points points in <code>x, y</code> pairs.
+     * @param result an array to hold the class of each point. Its length should be at least
+     *      the number of points.
+     * @throws NullPointerException if an array is null.
+     * @throws InvalidParameterException if the points are not in pairs, or the result array
+     *      is too short.
+     */
+    public void classify(@NonNull double[] points, @NonNull int[] result) {
+        classify(points, result, null);
+    }
+
+    /**
+     * Classify points the same way as {@link #classify(double[], int[])}, and split the batch
+     * across a pool of threads when it is large.
+     *
+     * @param points points in <code>x, y</code> pairs.
+     * @param result an array to hold the class of each point.
+     * @param pool a pool to run on, or <code>null</code> to classify on the calling thread.
+     * @throws NullPointerException if an array is null.
+     * @throws InvalidParameterException if the points are not in pairs, or the result array
+     *      is too short.
+     */
+    public void classify(@NonNull double[] points, @NonNull int[] result, @Nullable ForkJoinPool pool) {
+        run(new Task(this.index, points, null, 0, pointCount(points.length, result.length), result, null), pool);
+    }
+
+    /**
+     * Classify points in <code>float</code> the same way as {@link #classify(double[], int[])}.
+     *
+     * @param points points in <code>x, y</code> pairs.
+     * @param result an array to hold the class of each point.
+     * @throws NullPointerException if an array is null.
+     * @throws InvalidParameterException if the points are not in pairs, or the result array
+     *      is too short.
+     */
+    public void classify(@NonNull float[] points, @NonNull int[] result) {
+        classify(points, result, null);
+    }
+
+    /**
+     * Classify points in <code>float</code> the same way as
+     * {@link #classify(double[], int[], ForkJoinPool)}.
+     *
+     * @param points points in <code>x, y</code> pairs.
+     * @param result an array to hold the class of each point.
+     * @param pool a pool to run on, or <code>null</code> to classify on the calling thread.
+     * @throws NullPointerException if an array is null.
+     * @throws InvalidParameterException if the points are not in pairs, or the result array
+     *      is too short.
+     */
+    public void classify(@NonNull float[] points, @NonNull int[] result, @Nullable ForkJoinPool pool) {
+        run(new Task(this.index, null, points, 0, pointCount(points.length, result.length), result, null), pool);
+    }
+
+    /**
+     * Find every polygon which contains each point, for polygons overlapping each other.
+     * The index numbers of the polygons containing the <code>i</code>th point are
+     * <code>indices[offsets[i]]</code> up to <code>indices[offsets[i + 1]]</code> (exclusive)
+     * in ascending order, where <code>indices</code> is the returned array.
+     *
+     * @param points points in <code>x, y</code> pairs.
+     * @param offsets an array to hold the start of each point in the returned array. Its length
+     *      should be at least the number of points plus one.
+     * @param pool a pool to run on, or <code>null</code> to classify on the calling thread.
+     * @return the index numbers of polygons for all the points.
+     * @throws NullPointerException if an array is null.
+     * @throws InvalidParameterException if the points are not in pairs, or the offsets array
+     *      is too short.
+     */
+    @NonNull
+    public int[] classifyAll(@NonNull double[] points, @NonNull int[] offsets, @Nullable ForkJoinPool pool) {
+        final Task task = new Task(this.index, points, null, 0,
+                pointCount(points.length, offsets.length - 1), null, offsets);
+        run(task, pool);
+        return task.gather();
+    }
+
+    /**
+     * Find every polygon which contains each point in <code>float</code>, the same way as
+     * {@link #classifyAll(double[], int[], ForkJoinPool)}.
+     *
+     * @param points points in <code>x, y</code> pairs.
+     * @param offsets an array to hold the start of each point in the returned array.
+     * @param pool a pool to run on, or <code>null</code> to classify on the calling thread.
+     * @return the index numbers of polygons for all the points.
+     * @throws NullPointerException if an array is null.
+     * @throws InvalidParameterException if the points are not in pairs, or the offsets array
+     *      is too short.
+     */
+    @NonNull
+    public int[] classifyAll(@NonNull float[] points, @NonNull int[] offsets, @Nullable ForkJoinPool pool) {
+        final Task task = new Task(this.index, null, points, 0,
+                pointCount(points.length, offsets.length - 1), null, offsets);
+        run(task, pool);
+        return task.gather();
+    }
+
+    // the number of points in a packed array, checked against the room of the result
+    private static int pointCount(int length, int room) {
+        if (length % 2 != 0) {
+            throw new InvalidParameterException("MTPolygonClassifier takes points in x, y pairs.");
+        }
+        final int count = length / 2;
+        if (room < count) {
+            throw new InvalidParameterException("MTPolygonClassifier needs room for " + count + " points.");
+        }
+        return count;
+    }
+
+    // small batches are not worth the hand-off to a pool
+    private static void run(@NonNull Task task, @Nullable ForkJoinPool pool) {
+        if (pool == null || task.end - task.start <= BATCH_SIZE) {
+            task.compute();
+        } else {
+            task.split = true;
+            pool.invoke(task);
+        }
+    }
+
+    // A task classifies a range of points. It splits into halves until the range is small
+    // enough, and every leaf task keeps its own scratch buffers for the index.
+    private static final class Task extends RecursiveAction {
+
+        private final MTPolygonIndex index;
+        private final double[] dPoints;
+        private final float[] fPoints;
+        private final int start;
+        private final int end;
+        // the first polygon of each point, for classify()
+        private final int[] result;
+        // the starts of each point, for classifyAll()
+        private final int[] offsets;
+
+        // if the task should split, i.e. it runs in a pool
+        private boolean split;
+        private Task left;
+        private Task right;
+        // polygons found by a leaf task for classifyAll()
+        private int[] found;
+        private int foundCount;
+
+        Task(MTPolygonIndex index, double[] dPoints, float[] fPoints, int start, int end,
+             int[] result, int[] offsets) {
+            super();
+            this.index = index;
+            this.dPoints = dPoints;
+            this.fPoints = fPoints;
+            this.start = start;
+            this.end = end;
+            this.result = result;
+            this.offsets = offsets;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.split && BATCH_SIZE < this.end - this.start) {
+                final int mid = (this.start + this.end) >>> 1;
+                this.left = new Task(this.index, this.dPoints, this.fPoints, this.start, mid, this.result, this.offsets);
+                this.right = new Task(this.index, this.dPoints, this.fPoints, mid, this.end, this.result, this.offsets);
+                this.left.split = true;
+                this.right.split = true;
+                invokeAll(this.left, this.right);
+                return;
+            }
+
+            final int[] stack = this.index.newStack();
+            int[] hits = new int[HIT_BUFFER_SIZE];
+            if (this.offsets != null) {
+                this.found = new int[HIT_BUFFER_SIZE];
+            }
+
+            for (int i = this.start; i < this.end; i++) {
+                final double x = this.dPoints != null ? this.dPoints[i * 2] : this.fPoints[i * 2];
+                final double y = this.dPoints != null ? this.dPoints[i * 2 + 1] : this.fPoints[i * 2 + 1];
+
+                int hsz = this.index.collectHits(x, y, null, stack, hits);
+                if (hits.length < hsz) {
+                    hits = new int[Math.max(hsz, hits.length * 2)];
+                    hsz = this.index.collectHits(x, y, null, stack, hits);
+                }
+
+                if (this.offsets == null) {
+                    int first = NONE;
+                    for (int h = 0; h < hsz; h++) {
+                        if (this.index.polygonAt(hits[h]).isPointInPolygon(x, y)) {
+                            first = hits[h];
+                            break;
+                        }
+                    }
+                    this.result[i] = first;
+                    continue;
+                }
+
+                // count of each point for now, turned into starts by gather()
+                int count = 0;
+                for (int h = 0; h < hsz; h++) {
+                    if (this.index.polygonAt(hits[h]).isPointInPolygon(x, y)) {
+                        if (this.foundCount == this.found.length) {
+                            this.found = Arrays.copyOf(this.found, this.found.length * 2);
+                        }
+                        this.found[this.foundCount++] = hits[h];
+                        count++;
+                    }
+                }
+                this.offsets[i + 1] = count;
+            }
+        }
+
+        // turn the counts into starts and pack the polygons found by leaf tasks in order
+        @NonNull
+        int[] gather() {
+            this.offsets[0] = 0;
+            for (int i = 0; i < this.end; i++) {
+                this.offsets[i + 1] += this.offsets[i];
+            }
+            final int[] indices = new int[this.offsets[this.end]];
+            collect(indices);
+            return indices;
+        }
+
+        private void collect(@NonNull int[] indices) {
+            if (this.left != null) {
+                this.left.collect(indices);
+                this.right.collect(indices);
+            } else if (this.foundCount != 0) {
+                System.arraycopy(this.found, 0, indices, this.offsets[this.start], this.foundCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTPolygonEdgeBuckets is a utility class of MTPolygon to find the winding number of a polygon
+ * with a lot of vertices without walking all of its edges.
+ * <p>
+ * The bounding box of a polygon is cut into horizontal slabs of the same height, and each edge is
+ * kept in the slabs its y-interval overlaps. Only an edge crossing the scanline of a point can
+ * change the winding number, and all of them are in the slab of the point. Thus, a query examines
+ * the edges of a single slab and gets the same winding number as the full walk.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+class MTPolygonEdgeBuckets {
+
+    // the average number of edges a slab is aimed to hold
+    private static final int EDGES_PER_SLAB = 4;
+    private static final int MAX_SLABS = 1 << 16;
+
+    private final double minY;
+    private final double slabScale;
+    private final int slabCount;
+    // edges in slab s are edges[slabStart[s]] ... edges[slabStart[s + 1] - 1]. an edge is
+    // numbered with its first vertex relative to the polygon offset.
+    private final int[] slabStart;
+    private final int[] edges;
+
+    /**
+     * Bucket the edges of a closed polygon.
+     *
+     * @param xs x parts of the vertices.
+     * @param ys y parts of the vertices.
+     * @param offset the position of the first vertex in the arrays.
+     * @param length the number of vertices.
+     * @param minY the smallest y part of the vertices.
+     * @param maxY the largest y part of the vertices.
+     */
+    MTPolygonEdgeBuckets(@NonNull double[] xs, @NonNull double[] ys, int offset, int length,
+                         double minY, double maxY) {
+        super();
+
+        // Slabs thinner than the average y-extent of edges would copy an edge into many slabs.
+        // Keep the slabs at least that thick so that the buckets take about twice the edges.
+        final double height = maxY - minY;
+        double extent = 0.0;
+        for (int i = 0; i < length; i++) {
+            final int j = (i == length - 1) ? 0 : i + 1;
+            extent += Math.abs(ys[offset + j] - ys[offset + i]);
+        }
+        int slabs = Math.min(length / EDGES_PER_SLAB, MAX_SLABS);
+        if (extent > 0.0) {
+            slabs = (int)Math.min(slabs, height * length / extent);
+        }
+        slabs = Math.max(1, slabs);
+        this.minY = minY;
+        this.slabScale = (height > 0.0) ? slabs / height : 0.0;
+        this.slabCount = slabs;
+
+        // count edges per slab first, then fill them in
+        final int[] start = new int[slabs + 1];
+        for (int i = 0; i < length; i++) {
+            final int j = (i == length - 1) ? 0 : i + 1;
+            final int s0 = slabOf(Math.min(ys[offset + i], ys[offset + j]));
+            final int s1 = slabOf(Math.max(ys[offset + i], ys[offset + j]));
+            for (int s = s0; s <= s1; s++) {
+                start[s + 1]++;
+            }
+        }
+        for (int s = 0; s < slabs; s++) {
+            start[s + 1] += start[s];
+        }
+
+        final int[] fill = new int[slabs];
+        System.arraycopy(start, 0, fill, 0, slabs);
+        final int[] bucket = new int[start[slabs]];
+        for (int i = 0; i < length; i++) {
+            final int j = (i == length - 1) ? 0 : i + 1;
+            final int s0 = slabOf(Math.min(ys[offset + i], ys[offset + j]));
+            final int s1 = slabOf(Math.max(ys[offset + i], ys[offset + j]));
+            for (int s = s0; s <= s1; s++) {
+                bucket[fill[s]++] = i;
+            }
+        }
+
+        this.slabStart = start;
+        this.edges = bucket;
+    }
+
+    /**
+     * Find the winding number of a point with the edges in its slab.
+     *
+     * @param xs x parts of the vertices, which the buckets are built with.
+     * @param ys y parts of the vertices, which the buckets are built with.
+     * @param offset the position of the first vertex in the arrays.
+     * @param length the number of vertices.
+     * @param px x part of a point.
+     * @param py y part of a point.
+     * @return the winding number. <code>0</code> if the point is outside.
+     */
+    int windingNumber(@NonNull double[] xs, @NonNull double[] ys, int offset, int length,
+                      double px, double py) {
+        // the slab is found by the same function edges are bucketed with, so that it is monotone
+        // in y and any edge crossing the scanline is in it.
+        final int s = slabOf(py);
+        final int last = length - 1;
+        int wn = 0;
+        for (int e = this.slabStart[s], end = this.slabStart[s + 1]; e < end; e++) {
+            final int i = this.edges[e];
+            final int j = (i == last) ? 0 : i + 1;
+            wn += MTPolygon.crossing(px, py, xs[offset + i], ys[offset + i], xs[offset + j], ys[offset + j]);
+        }
+        return wn;
+    }
+
+    /**
+     * Find the winding number of a point with the edges in its slab over fixed-point vertices.
+     *
+     * @param fxs fixed-point x parts of the vertices, from the first vertex.
+     * @param fys fixed-point y parts of the vertices, from the first vertex.
+     * @param length the number of vertices.
+     * @param px x part of a point in the fixed-point unit, which need not be on the grid.
+     * @param py y part of a point in the fixed-point unit, which need not be on the grid.
+     * @return the winding number. <code>0</code> if the point is outside.
+     */
+    int windingNumber(@NonNull int[] fxs, @NonNull int[] fys, int length, double px, double py) {
+        final int s = slabOf(py / MTPolygon.FIXED_POINT_SCALE);
+        final int last = length - 1;
+        int wn = 0;
+        for (int e = this.slabStart[s], end = this.slabStart[s + 1]; e < end; e++) {
+            final int i = this.edges[e];
+            final int j = (i == last) ? 0 : i + 1;
+            wn += MTPolygon.fixedCrossing(px, py, fxs[i], fys[i], fxs[j], fys[j]);
+        }
+        return wn;
+    }
+
+    /**
+     * @param y y part of a point.
+     * @return the number of edges in the slab of the point.
+     */
+    int getSlabSize(double y) {
+        final int s = slabOf(y);
+        return this.slabStart[s + 1] - this.slabStart[s];
+    }
+
+    /**
+     * @return the number of edge entries kept in all slabs.
+     */
+    int getEntryCount() {
+        return this.edges.length;
+    }
+
+    private int slabOf(double y) {
+        final double s = (y - this.minY) * this.slabScale;
+        if (!(s > 0.0)) {
+            return 0;
+        }
+        return (s >= this.slabCount) ? this.slabCount - 1 : (int)s;
+    }
+}
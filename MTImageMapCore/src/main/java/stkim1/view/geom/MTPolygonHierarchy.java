@@ -0,0 +1,611 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MTPolygonHierarchy is a containment tree of a polygon map, for nested maps such as
+ * country, state, and county. The parent of a polygon is the smallest polygon which contains it,
+ * and a polygon contained in no other polygon is a root. A polygon is contained when all of its
+ * vertices are in the other polygon, none of their edges cross, and no vertex of the other
+ * polygon, e.g. of a hole or a concave notch, is inside it. A polygon which only touches a border
+ * of the other polygon with a vertex can be left as a root, which costs pruning but never a hit.
+ * <p>
+ * A query picks candidates by their bounding box with the spatial index, then tests a candidate
+ * only if its parent contains the point. The subtree of a polygon which does not contain the
+ * point is never tested, so a tap on a county tests only the states around it and the counties
+ * of a single state. Since a child lies within its parent, a query finds the same polygons as
+ * a flat query of the spatial index, except that a point right on a border shared by a parent
+ * and a child is resolved by the parent.
+ * <p>
+ * The tree follows updates of the index with {@link #update(int)}, which re-parents only the
+ * polygons around the changed one. The tree keeps scratch buffers to answer queries without
+ * allocating, hence an instance is not thread-safe.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public class MTPolygonHierarchy {
+
+    private final MTPolygonIndex index;
+    private int size;
+    // parent of each polygon, or -1 for a root and a removed polygon
+    private int[] parents;
+    // children of polygon p in ascending order; children[p][0] up to children[p][childCounts[p] - 1]
+    private int[][] children;
+    private int[] childCounts;
+    // the area of each polygon, to order parents
+    private double[] areas;
+
+    // scratch buffers for queries and updates
+    private int[] candidates;
+    private int[] found;
+    private int[] chain;
+    // a polygon is marked with (stamp << 1) in a query that finds it out of the point, and with
+    // (stamp << 1) + 1 in a query that finds it containing the point
+    private int[] marks;
+    private int stamp = 0;
+
+    /**
+     * Build the containment tree of the polygons in a spatial index. Candidates of the parent
+     * of a polygon are picked by their bounding box with the index, then checked if they contain
+     * the polygon. Call {@link #update(int)} for each later update of the index.
+     *
+     * @param index the spatial index of a polygon map. The tree queries it from the same thread.
+     * @throws NullPointerException if the index is null.
+     */
+    public MTPolygonHierarchy(@NonNull MTPolygonIndex index) {
+        super();
+
+        final int psz = index.size();
+        this.index = index;
+        this.size = 0;
+        this.parents = new int[0];
+        this.children = new int[0][];
+        this.childCounts = new int[0];
+        this.areas = new double[0];
+        this.marks = new int[0];
+        ensureCapacity(psz);
+
+        for (int i = 0; i < psz; i++) {
+            final MTPolygon polygon = index.polygonAt(i);
+            this.areas[i] = (polygon != null) ? polygon.getArea() : 0.0;
+        }
+        for (int i = 0; i < psz; i++) {
+            this.parents[i] = findParent(i);
+        }
+        // children in ascending order
+        for (int i = 0; i < psz; i++) {
+            if (this.parents[i] != -1) {
+                addChild(this.parents[i], i);
+            }
+        }
+    }
+
+    // grow the arrays with the index
+    private void ensureCapacity(int psz) {
+        if (this.parents.length < psz) {
+            final int capacity = Math.max(psz, this.parents.length + (this.parents.length >> 1));
+            final int length = this.parents.length;
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            Arrays.fill(this.parents, length, capacity, -1);
+            this.children = Arrays.copyOf(this.children, capacity);
+            this.childCounts = Arrays.copyOf(this.childCounts, capacity);
+            this.areas = Arrays.copyOf(this.areas, capacity);
+            this.marks = Arrays.copyOf(this.marks, capacity);
+            this.candidates = new int[capacity];
+            this.found = new int[capacity];
+            this.chain = new int[capacity];
+        }
+        this.size = Math.max(this.size, psz);
+    }
+
+    // if polygon a comes before polygon b as a parent; the larger area, then the earlier one of
+    // polygons in the same area, so that the tree never has a cycle.
+    private boolean isLarger(int a, int b) {
+        return this.areas[a] > this.areas[b] || (this.areas[a] == this.areas[b] && a < b);
+    }
+
+    // the smallest polygon containing a polygon, or -1
+    private int findParent(int i) {
+        final MTPolygon polygon = this.index.polygonAt(i);
+        if (polygon == null || !polygon.isClosed()) {
+            return -1;
+        }
+
+        final MTPolygonBoundingBox box = polygon.getBoundingBox();
+        final int csz = this.index.search(box.minVertex.x, box.minVertex.y, box.maxVertex.x, box.maxVertex.y, this.candidates);
+        int parent = -1;
+        for (int k = 0; k < csz; k++) {
+            final int c = this.candidates[k];
+            if (c == i || !isLarger(c, i) || (parent != -1 && isLarger(c, parent))) {
+                continue;
+            }
+            if (contains(this.index.polygonAt(c), polygon)) {
+                parent = c;
+            }
+        }
+        return parent;
+    }
+
+    // insert a child into the sorted children of a polygon
+    private void addChild(int p, int c) {
+        int[] list = this.children[p];
+        final int csz = this.childCounts[p];
+        if (list == null) {
+            list = new int[4];
+        } else if (list.length == csz) {
+            list = Arrays.copyOf(list, csz * 2);
+        }
+        int at = Arrays.binarySearch(list, 0, csz, c);
+        at = (at < 0) ? -at - 1 : at;
+        System.arraycopy(list, at, list, at + 1, csz - at);
+        list[at] = c;
+        this.children[p] = list;
+        this.childCounts[p] = csz + 1;
+        this.parents[c] = p;
+    }
+
+    private void removeChild(int p, int c) {
+        final int[] list = this.children[p];
+        final int csz = this.childCounts[p];
+        final int at = Arrays.binarySearch(list, 0, csz, c);
+        if (at >= 0) {
+            System.arraycopy(list, at + 1, list, at, csz - at - 1);
+            this.childCounts[p] = csz - 1;
+        }
+        this.parents[c] = -1;
+    }
+
+    /**
+     * Follow an update of the spatial index at an index number; a polygon added, replaced, or
+     * removed there. The children of the old polygon find their parents again, the new polygon
+     * finds its parent, and the polygons whose bounding box is in the new polygon's are moved
+     * under it if it is their smallest container now. No other polygon is touched.
+     *
+     * @param index the index number the index is updated at.
+     * @throws IndexOutOfBoundsException if the index is out of range of the spatial index.
+     */
+    public void update(int index) {
+        final int psz = this.index.size();
+        if (index < 0 || psz <= index) {
+            throw new IndexOutOfBoundsException("Polygon index " + index + " is out of " + psz + " polygons.");
+        }
+        ensureCapacity(psz);
+
+        if (this.parents[index] != -1) {
+            removeChild(this.parents[index], index);
+        }
+        final MTPolygon polygon = this.index.polygonAt(index);
+        this.areas[index] = (polygon != null) ? polygon.getArea() : 0.0;
+
+        // children of the old polygon
+        final int[] orphans = this.children[index];
+        final int osz = this.childCounts[index];
+        this.children[index] = null;
+        this.childCounts[index] = 0;
+        for (int k = 0; k < osz; k++) {
+            final int o = orphans[k];
+            this.parents[o] = -1;
+            final int parent = findParent(o);
+            if (parent != -1) {
+                addChild(parent, o);
+            }
+        }
+
+        if (polygon == null || !polygon.isClosed()) {
+            return;
+        }
+        final int parent = findParent(index);
+        if (parent != -1) {
+            addChild(parent, index);
+        }
+
+        // polygons in the new one, which is smaller than their parent
+        final MTPolygonBoundingBox box = polygon.getBoundingBox();
+        final int csz = this.index.search(box.minVertex.x, box.minVertex.y, box.maxVertex.x, box.maxVertex.y, this.candidates);
+        for (int k = 0; k < csz; k++) {
+            final int q = this.candidates[k];
+            final int p = this.parents[q];
+            if (q == index || !isLarger(index, q) || (p != -1 && isLarger(index, p))) {
+                continue;
+            }
+            if (contains(polygon, this.index.polygonAt(q))) {
+                if (p != -1) {
+                    removeChild(p, q);
+                }
+                addChild(index, q);
+            }
+        }
+    }
+
+    // If the inner polygon lies within the outer polygon. Vertices of the outer polygon in the
+    // inner one catch a hole or a notch, even when no edges cross. Either test can reject
+    // a polygon on a shared border, which is safe.
+    static boolean contains(@NonNull MTPolygon outer, @NonNull MTPolygon inner) {
+        final MTPolygonBoundingBox ob = outer.getBoundingBox(), ib = inner.getBoundingBox();
+        if (ib.minVertex.x < ob.minVertex.x || ob.maxVertex.x < ib.maxVertex.x ||
+                ib.minVertex.y < ob.minVertex.y || ob.maxVertex.y < ib.maxVertex.y) {
+            return false;
+        }
+
+        // vertices of the outer rings of the inner polygon. Holes of it can be in a hole of
+        // the outer polygon.
+        final int irsz = inner.getRingCount();
+        for (int r = 0; r < irsz; r++) {
+            if (inner.isHole(r)) {
+                continue;
+            }
+            for (int i = inner.getRingStart(r); i < inner.getRingEnd(r); i++) {
+                if (!outer.isPointInPolygon(inner.getVertexX(i), inner.getVertexY(i))) {
+                    return false;
+                }
+            }
+        }
+
+        // edges of the outer polygon around the inner one, bucketed by y-slabs of the inner box
+        final EdgeSlabs slabs = new EdgeSlabs(outer, ib);
+        for (int e = 0; e < slabs.size(); e++) {
+            final double x = slabs.getX0(e), y = slabs.getY0(e);
+            if (inner.isPointInBBox(x, y) && inner.isPointInPolygon(x, y)) {
+                return false;
+            }
+        }
+        if (slabs.size() == 0) {
+            return true;
+        }
+
+        // no edge of the inner polygon crosses one of them
+        for (int r = 0; r < irsz; r++) {
+            final int start = inner.getRingStart(r), end = inner.getRingEnd(r);
+            for (int i = start; i < end; i++) {
+                final int j = (i + 1 == end) ? start : i + 1;
+                if (slabs.crosses(inner.getVertexX(i), inner.getVertexY(i), inner.getVertexX(j), inner.getVertexY(j))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Edges of a polygon whose bounding box intersects a box, in y-slabs over the box, so that
+    // a segment is tested against the edges around it only.
+    private static final class EdgeSlabs {
+
+        private final double[] coords;
+        private final int count;
+        private final double minY;
+        private final double slabHeight;
+        // edges of slab s are edges[slabStart[s]] up to edges[slabStart[s + 1]]
+        private final int[] slabStart;
+        private final int[] edges;
+
+        EdgeSlabs(@NonNull MTPolygon polygon, @NonNull MTPolygonBoundingBox box) {
+            final double bx0 = box.minVertex.x, by0 = box.minVertex.y;
+            final double bx1 = box.maxVertex.x, by1 = box.maxVertex.y;
+            double[] c = new double[64];
+            int n = 0;
+            final int rsz = polygon.getRingCount();
+            for (int r = 0; r < rsz; r++) {
+                final int start = polygon.getRingStart(r), end = polygon.getRingEnd(r);
+                for (int i = start; i < end; i++) {
+                    final int j = (i + 1 == end) ? start : i + 1;
+                    final double x0 = polygon.getVertexX(i), y0 = polygon.getVertexY(i);
+                    final double x1 = polygon.getVertexX(j), y1 = polygon.getVertexY(j);
+                    if (Math.max(x0, x1) < bx0 || bx1 < Math.min(x0, x1) ||
+                            Math.max(y0, y1) < by0 || by1 < Math.min(y0, y1)) {
+                        continue;
+                    }
+                    if (c.length < (n + 1) * 4) {
+                        c = Arrays.copyOf(c, c.length * 2);
+                    }
+                    c[n * 4] = x0;
+                    c[n * 4 + 1] = y0;
+                    c[n * 4 + 2] = x1;
+                    c[n * 4 + 3] = y1;
+                    n++;
+                }
+            }
+            this.coords = c;
+            this.count = n;
+
+            final int slabs = Math.max(1, Math.min(n, 1024));
+            this.minY = by0;
+            this.slabHeight = (by1 > by0) ? (by1 - by0) / slabs : 1.0;
+            this.slabStart = new int[slabs + 1];
+            for (int e = 0; e < n; e++) {
+                final int s0 = slabOf(Math.min(c[e * 4 + 1], c[e * 4 + 3]));
+                final int s1 = slabOf(Math.max(c[e * 4 + 1], c[e * 4 + 3]));
+                for (int s = s0; s <= s1; s++) {
+                    this.slabStart[s + 1]++;
+                }
+            }
+            for (int s = 0; s < slabs; s++) {
+                this.slabStart[s + 1] += this.slabStart[s];
+            }
+            this.edges = new int[this.slabStart[slabs]];
+            final int[] fill = Arrays.copyOf(this.slabStart, slabs);
+            for (int e = 0; e < n; e++) {
+                final int s0 = slabOf(Math.min(c[e * 4 + 1], c[e * 4 + 3]));
+                final int s1 = slabOf(Math.max(c[e * 4 + 1], c[e * 4 + 3]));
+                for (int s = s0; s <= s1; s++) {
+                    this.edges[fill[s]++] = e;
+                }
+            }
+        }
+
+        private int slabOf(double y) {
+            final int s = (int)((y - this.minY) / this.slabHeight);
+            return Math.max(0, Math.min(this.slabStart.length - 2, s));
+        }
+
+        int size() {
+            return this.count;
+        }
+
+        double getX0(int e) {
+            return this.coords[e * 4];
+        }
+
+        double getY0(int e) {
+            return this.coords[e * 4 + 1];
+        }
+
+        // if a segment properly crosses an edge; the edges cut each other at a single point
+        // off their ends
+        boolean crosses(double ax, double ay, double bx, double by) {
+            final int s0 = slabOf(Math.min(ay, by)), s1 = slabOf(Math.max(ay, by));
+            for (int s = s0; s <= s1; s++) {
+                for (int k = this.slabStart[s]; k < this.slabStart[s + 1]; k++) {
+                    final int e = this.edges[k];
+                    final double cx = this.coords[e * 4], cy = this.coords[e * 4 + 1];
+                    final double dx = this.coords[e * 4 + 2], dy = this.coords[e * 4 + 3];
+                    if (Math.max(ax, bx) < Math.min(cx, dx) || Math.max(cx, dx) < Math.min(ax, bx) ||
+                            Math.max(ay, by) < Math.min(cy, dy) || Math.max(cy, dy) < Math.min(ay, by)) {
+                        continue;
+                    }
+                    final double c0 = side(ax, ay, bx, by, cx, cy), c1 = side(ax, ay, bx, by, dx, dy);
+                    final double c2 = side(cx, cy, dx, dy, ax, ay), c3 = side(cx, cy, dx, dy, bx, by);
+                    if (((c0 > 0.0 && c1 < 0.0) || (c0 < 0.0 && c1 > 0.0)) &&
+                            ((c2 > 0.0 && c3 < 0.0) || (c2 < 0.0 && c3 > 0.0))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // the cross product of (x1 - x0, y1 - y0) and (x - x0, y - y0)
+        private static double side(double x0, double y0, double x1, double y1, double x, double y) {
+            return (x1 - x0) * (y - y0) - (x - x0) * (y1 - y0);
+        }
+    }
+
+    /**
+     * The number of polygons in this tree.
+     *
+     * @return the number of polygons.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * The number of levels of this tree. A map without nested polygons has a single level.
+     * It is counted over every polygon when it is called.
+     *
+     * @return the number of levels, or <code>0</code> for an empty map.
+     */
+    public int getDepth() {
+        int maxDepth = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.index.polygonAt(i) == null) {
+                continue;
+            }
+            int d = 1;
+            for (int p = this.parents[i]; p != -1; p = this.parents[p]) {
+                d++;
+            }
+            maxDepth = Math.max(maxDepth, d);
+        }
+        return maxDepth;
+    }
+
+    /**
+     * The parent of a polygon.
+     *
+     * @param index the index number of a polygon.
+     * @return the index number of the smallest polygon containing the polygon, or <code>-1</code>
+     *      for a root.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int getParent(int index) {
+        checkIndex(index);
+        return this.parents[index];
+    }
+
+    /**
+     * The number of polygons whose parent is a polygon.
+     *
+     * @param index the index number of a polygon.
+     * @return the number of children.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int getChildCount(int index) {
+        checkIndex(index);
+        return this.childCounts[index];
+    }
+
+    /**
+     * A child of a polygon. Children are in ascending order of their index number.
+     *
+     * @param index the index number of a polygon.
+     * @param child the position of a child from <code>0</code> to the number of children.
+     * @return the index number of the child.
+     * @throws IndexOutOfBoundsException if the index or the child is out of range.
+     */
+    public int getChild(int index, int child) {
+        final int csz = getChildCount(index);
+        if (child < 0 || csz <= child) {
+            throw new IndexOutOfBoundsException("Child index " + child + " is out of " + csz + " children.");
+        }
+        return this.children[index][child];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || this.size <= index) {
+            throw new IndexOutOfBoundsException("Polygon index " + index + " is out of " + this.size + " polygons.");
+        }
+    }
+
+    /**
+     * Find the indices of polygons which contain a point (x, y), in ascending order, from the
+     * roots down to the leaves. A query does not allocate.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result an array to hold the indices of the polygons found. Its length should be
+     *      at least {@link #size()}.
+     * @return the number of polygons found.
+     * @throws NullPointerException if the result array is null.
+     * @throws ArrayIndexOutOfBoundsException if the result array is too short.
+     */
+    public int findPolygonIndices(double x, double y, @NonNull int[] result) {
+        return findPolygonIndices(x, y, result, 0);
+    }
+
+    /**
+     * Find polygons which contain a point (x, y) the same way as
+     * {@link #findPolygonIndices(double, double, int[])}. A query does not allocate as long as
+     * the result list has room for the polygons found.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result a list to which polygons containing the point are appended in the list order.
+     * @throws NullPointerException if the result list is null.
+     */
+    public void findPolygons(double x, double y, @NonNull List<MTPolygon> result) {
+        final int fsz = query(x, y, this.found, 0, null);
+        for (int i = 0; i < fsz; i++) {
+            result.add(this.index.polygonAt(this.found[i]));
+        }
+    }
+
+    /**
+     * Find the indices of polygons which contain a point (x, y), in ascending order, and write
+     * them from a position of an array.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result an array to hold the indices of the polygons found. It should have room for
+     *      {@link #size()} indices from the offset.
+     * @param offset the position of the result array to start writing at.
+     * @return the number of polygons found.
+     * @throws NullPointerException if the result array is null.
+     * @throws ArrayIndexOutOfBoundsException if the result array is too short.
+     */
+    public int findPolygonIndices(double x, double y, @NonNull int[] result, int offset) {
+        return query(x, y, result, offset, null);
+    }
+
+    /**
+     * Find polygons which contain a point (x, y) the same way as
+     * {@link #findPolygons(double, double, List)}, and count the work done for it.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result a list to which polygons containing the point are appended in the list order.
+     * @param counters the counters to which the work is added.
+     * @throws NullPointerException if the result list or the counters are null.
+     */
+    public void findPolygons(double x, double y, @NonNull List<MTPolygon> result,
+                             @NonNull MTHitTestCounters counters) {
+        final int fsz = query(x, y, this.found, 0, counters);
+        for (int i = 0; i < fsz; i++) {
+            result.add(this.index.polygonAt(this.found[i]));
+        }
+    }
+
+    /**
+     * Drop polygons from the result of a flat query, e.g. of the spatial index, unless all their
+     * ancestors are in the result too, so that it is the same as a query of this tree.
+     *
+     * @param result the indices of polygons containing a point, in ascending order.
+     * @param offset the position of the first index in the result array.
+     * @param count the number of indices.
+     * @return the number of indices left, in ascending order from the offset.
+     * @throws NullPointerException if the result array is null.
+     */
+    public int prune(@NonNull int[] result, int offset, int count) {
+        final int inside = nextStamp() + 1;
+        for (int i = offset; i < offset + count; i++) {
+            this.marks[result[i]] = inside;
+        }
+        int rsz = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int p = this.parents[result[i]];
+            while (p != -1 && this.marks[p] == inside) {
+                p = this.parents[p];
+            }
+            if (p == -1) {
+                result[offset + rsz++] = result[i];
+            }
+        }
+        return rsz;
+    }
+
+    // the mark of polygons out of the point in a new query
+    private int nextStamp() {
+        if (++this.stamp == (1 << 30)) {
+            Arrays.fill(this.marks, 0);
+            this.stamp = 1;
+        }
+        return this.stamp << 1;
+    }
+
+    // the query of every find method. The work is counted only if there are counters.
+    private int query(double x, double y, @NonNull int[] result, int offset,
+                      @Nullable MTHitTestCounters counters) {
+        // bounding box candidates come in ascending order
+        final int hsz = this.index.collectHits(x, y, counters);
+        if (counters != null) {
+            counters.boxPasses += hsz;
+        }
+        final int outside = nextStamp();
+        int rsz = 0;
+        for (int k = 0; k < hsz; k++) {
+            final int c = this.index.hitAt(k);
+            if (isInside(c, x, y, outside, counters)) {
+                result[offset + rsz++] = c;
+            }
+        }
+        return rsz;
+    }
+
+    // If a polygon and all its ancestors contain a point. Ancestors are tested from the top down
+    // to the first one out of the point, and each polygon is tested once a query. An ancestor's
+    // bounding box contains the candidate's, so the point is in it.
+    private boolean isInside(int c, double x, double y, int outside, @Nullable MTHitTestCounters counters) {
+        int n = 0;
+        int p = c;
+        while (p != -1 && (this.marks[p] | 1) != (outside | 1)) {
+            this.chain[n++] = p;
+            p = this.parents[p];
+        }
+        boolean inside = (p == -1) || this.marks[p] != outside;
+        for (int i = n - 1; i >= 0; i--) {
+            final int q = this.chain[i];
+            if (inside) {
+                final MTPolygon polygon = this.index.polygonAt(q);
+                inside = (counters == null) ? polygon.isPointInPolygon(x, y) :
+                        MTPolygonIndex.testPolygon(polygon, x, y, counters);
+            }
+            this.marks[q] = inside ? outside + 1 : outside;
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,351 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MTPolygonHitMap rasterizes a set of <code>MTPolygon</code> maps into a grid of polygon indices
+ * in the logical space of <code>dp</code> unit. Once built, most points resolve to a polygon with
+ * a single array read.
+ * <p>
+ * A cell holds (1) the index of the only polygon which covers the whole cell, (2)
+ * {@link #EMPTY} when no polygon touches the cell, or (3) {@link #MIXED} when a polygon edge
+ * crosses the cell or polygons overlap in it. A point in a {@link #MIXED} cell needs the exact
+ * winding number test.
+ * <p>
+ * Building a hit map walks every cell in the bounding box of every polygon. It is expensive, so
+ * please build it off the UI thread. Once built, it is safe to share until it is patched.
+ * <p>
+ * When a few polygons change, the grid is patched instead of built again. The cells under the
+ * bounding box of a changed polygon become {@link #MIXED}, so points there go through the exact
+ * test against the current polygons. Patch it on the thread which looks it up.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public class MTPolygonHitMap {
+
+    /**
+     * No polygon touches a cell, or a point is out of the grid.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * A cell is crossed by a polygon edge, or covered by more than one polygon.
+     */
+    public static final int MIXED = -2;
+
+    private final double originX, originY;
+    private final double cellSize;
+    private final int columns, rows;
+    // only one of them is used. short cells are used when polygon indices fit in short.
+    private final short[] shortCells;
+    private final int[] intCells;
+    // what a point out of the grid gets. A changed polygon might reach out of the grid.
+    private int outside = EMPTY;
+
+    /**
+     * Rasterize polygons into a grid covering the bounding boxes of all closed polygons. The
+     * position of a polygon in the list is its index number in the grid.
+     *
+     * @param pList a list of polygons to rasterize. A <code>null</code> entry, e.g. a removed
+     *      polygon, is skipped.
+     * @param cSize the width and height of a cell in the logical space of <code>dp</code> unit.
+     * @throws NullPointerException if the list is null.
+     * @throws InvalidParameterException if the cell size is not positive, or the grid
+     *      becomes too large to be allocated.
+     */
+    public MTPolygonHitMap(@NonNull List<MTPolygon> pList, double cSize) {
+        super();
+
+        if (!(cSize > 0.0)) {
+            throw new InvalidParameterException("MTPolygonHitMap cell size must be positive.");
+        }
+        this.cellSize = cSize;
+
+        // the area of the grid
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        final int psz = pList.size();
+        for (int i = 0; i < psz; i++) {
+            MTPolygon polygon = pList.get(i);
+            if (polygon == null || !polygon.isClosed()) {
+                continue;
+            }
+            MTPolygonBoundingBox box = polygon.getBoundingBox();
+            minX = Math.min(minX, box.minVertex.x);
+            minY = Math.min(minY, box.minVertex.y);
+            maxX = Math.max(maxX, box.maxVertex.x);
+            maxY = Math.max(maxY, box.maxVertex.y);
+        }
+
+        if (minX > maxX) {
+            // no closed polygon
+            this.originX = 0.0;
+            this.originY = 0.0;
+            this.columns = 0;
+            this.rows = 0;
+        } else {
+            this.originX = minX;
+            this.originY = minY;
+            long cols = (long)Math.floor((maxX - minX) / cSize) + 1;
+            long rws = (long)Math.floor((maxY - minY) / cSize) + 1;
+            if (cols * rws > Integer.MAX_VALUE - 8) {
+                throw new InvalidParameterException("MTPolygonHitMap grid is too large for the cell size.");
+            }
+            this.columns = (int)cols;
+            this.rows = (int)rws;
+        }
+
+        final int cells = this.columns * this.rows;
+        int[] grid = new int[cells];
+        Arrays.fill(grid, EMPTY);
+        // which polygon crossed a cell with its edge last
+        int[] stamp = new int[cells];
+        Arrays.fill(stamp, -1);
+
+        for (int p = 0; p < psz; p++) {
+            MTPolygon polygon = pList.get(p);
+            if (polygon != null && polygon.isClosed()) {
+                rasterize(polygon, p, grid, stamp);
+            }
+        }
+
+        if (psz <= Short.MAX_VALUE) {
+            this.shortCells = new short[cells];
+            for (int i = 0; i < cells; i++) {
+                this.shortCells[i] = (short)grid[i];
+            }
+            this.intCells = null;
+        } else {
+            this.shortCells = null;
+            this.intCells = grid;
+        }
+    }
+
+    /**
+     * Look up a point in the grid.
+     *
+     * @param x x part of a point in the logical space of <code>dp</code> unit.
+     * @param y y part of a point in the logical space of <code>dp</code> unit.
+     * @return the index of the only polygon containing the point, {@link #EMPTY} if no polygon
+     *      contains the point, or {@link #MIXED} if the point needs the exact test.
+     */
+    public int lookup(double x, double y) {
+        final int cell = cellIndexOf(x, y);
+        if (cell < 0) {
+            return this.outside;
+        }
+        return (this.shortCells != null) ? this.shortCells[cell] : this.intCells[cell];
+    }
+
+    /**
+     * Patch the grid for a polygon which is added, removed, or reshaped. Every cell under the
+     * bounding box of the polygon becomes {@link #MIXED}. Patch the grid with the polygon before
+     * and after the change when it is reshaped.
+     *
+     * @param polygon a changed polygon.
+     * @throws NullPointerException if the polygon is null.
+     */
+    public void markMixed(@NonNull MTPolygon polygon) {
+        if (!polygon.isClosed()) {
+            // an open polygon contains no point
+            return;
+        }
+
+        final MTPolygonBoundingBox box = polygon.getBoundingBox();
+        final double maxX = this.originX + this.columns * this.cellSize;
+        final double maxY = this.originY + this.rows * this.cellSize;
+        if (box.minVertex.x < this.originX || box.minVertex.y < this.originY ||
+                maxX <= box.maxVertex.x || maxY <= box.maxVertex.y) {
+            // the polygon reaches out of the grid
+            this.outside = MIXED;
+        }
+        if (this.columns == 0 || maxX <= box.minVertex.x || box.maxVertex.x < this.originX ||
+                maxY <= box.minVertex.y || box.maxVertex.y < this.originY) {
+            return;
+        }
+
+        final int c0 = column(box.minVertex.x), c1 = column(box.maxVertex.x);
+        final int r0 = row(box.minVertex.y), r1 = row(box.maxVertex.y);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                if (this.shortCells != null) {
+                    this.shortCells[r * this.columns + c] = (short)MIXED;
+                } else {
+                    this.intCells[r * this.columns + c] = MIXED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the cell a point falls in.
+     *
+     * @param x x part of a point in the logical space of <code>dp</code> unit.
+     * @param y y part of a point in the logical space of <code>dp</code> unit.
+     * @return the row-major cell number of the point, or <code>-1</code> if the point is
+     *      out of the grid.
+     */
+    public int cellIndexOf(double x, double y) {
+        final double fc = Math.floor((x - this.originX) / this.cellSize);
+        final double fr = Math.floor((y - this.originY) / this.cellSize);
+        if (!(0.0 <= fc && fc < this.columns && 0.0 <= fr && fr < this.rows)) {
+            return -1;
+        }
+        return (int)fr * this.columns + (int)fc;
+    }
+
+    /**
+     * @return the width and height of a cell in the logical space of <code>dp</code> unit.
+     */
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * @return the number of columns in the grid.
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * @return the number of rows in the grid.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * The memory the grid occupies. Use it to trade the resolution of the grid against RAM.
+     *
+     * @return the size of the grid cells in bytes.
+     */
+    public long getMemoryFootprint() {
+        return (this.shortCells != null) ? (long)this.shortCells.length * Short.BYTES :
+                (long)this.intCells.length * Integer.BYTES;
+    }
+
+    private void rasterize(@NonNull MTPolygon polygon, int p, @NonNull int[] grid, @NonNull int[] stamp) {
+        final int vsz = polygon.getVertexCount();
+        final int rsz = polygon.getRingCount();
+
+        // mark every cell an edge passes through
+        for (int r = 0; r < rsz; r++) {
+            final int start = polygon.getRingStart(r), last = polygon.getRingEnd(r) - 1;
+            for (int i = start; i <= last; i++) {
+                int j = (i == last) ? start : i + 1;
+                markEdge(polygon.getVertexX(i), polygon.getVertexY(i),
+                        polygon.getVertexX(j), polygon.getVertexY(j), p, stamp);
+            }
+        }
+
+        MTPolygonBoundingBox box = polygon.getBoundingBox();
+        final int c0 = column(box.minVertex.x), c1 = column(box.maxVertex.x);
+        final int r0 = row(box.minVertex.y), r1 = row(box.maxVertex.y);
+
+        // A cell no edge passes through is either completely inside or outside of the polygon.
+        // Scan the center line of each row, and fill the cells in between crossings by the
+        // winding number at the center of the cell.
+        double[] xs = new double[vsz];
+        int[] dirs = new int[vsz];
+        for (int r = r0; r <= r1; r++) {
+            final double cy = this.originY + (r + 0.5) * this.cellSize;
+
+            int n = 0;
+            for (int ring = 0; ring < rsz; ring++) {
+                // crossings of a multipolygon ring count by its role; +1 for an outer ring, -1 for a hole
+                final int sign = polygon.getRingSign(ring);
+                final int start = polygon.getRingStart(ring), last = polygon.getRingEnd(ring) - 1;
+                for (int i = start; i <= last; i++) {
+                    int j = (i == last) ? start : i + 1;
+                    double x0 = polygon.getVertexX(i), y0 = polygon.getVertexY(i);
+                    double x1 = polygon.getVertexX(j), y1 = polygon.getVertexY(j);
+                    if (y0 <= cy && y1 > cy) {
+                        // an upward crossing
+                        xs[n] = x0 + (cy - y0) * (x1 - x0) / (y1 - y0);
+                        dirs[n++] = sign;
+                    } else if (y0 > cy && y1 <= cy) {
+                        // a downward crossing
+                        xs[n] = x0 + (cy - y0) * (x1 - x0) / (y1 - y0);
+                        dirs[n++] = -sign;
+                    }
+                }
+            }
+            sortCrossings(xs, dirs, n);
+
+            int k = 0;
+            int wn = 0;
+            for (int c = c0; c <= c1; c++) {
+                final double cx = this.originX + (c + 0.5) * this.cellSize;
+                while (k < n && xs[k] <= cx) {
+                    wn += dirs[k++];
+                }
+
+                final int cell = r * this.columns + c;
+                if (stamp[cell] == p) {
+                    grid[cell] = MIXED;
+                } else if (polygon.isWindingInside(-wn)) {
+                    // crossings on a line add up to zero, so the crossings on the left are the
+                    // negative of the winding number counted on the right of the center
+                    grid[cell] = (grid[cell] == EMPTY) ? p : MIXED;
+                }
+            }
+        }
+    }
+
+    // mark the cells the segment (x0, y0)-(x1, y1) passes through, row by row.
+    private void markEdge(double x0, double y0, double x1, double y1, int p, @NonNull int[] stamp) {
+        final double ylo = Math.min(y0, y1), yhi = Math.max(y0, y1);
+        final int rs = row(ylo), re = row(yhi);
+        for (int r = rs; r <= re; r++) {
+            double xa, xb;
+            if (y0 == y1) {
+                xa = x0;
+                xb = x1;
+            } else {
+                final double bandLo = Math.max(ylo, this.originY + r * this.cellSize);
+                final double bandHi = Math.min(yhi, this.originY + (r + 1) * this.cellSize);
+                xa = x0 + (bandLo - y0) * (x1 - x0) / (y1 - y0);
+                xb = x0 + (bandHi - y0) * (x1 - x0) / (y1 - y0);
+            }
+            final int cs = column(Math.min(xa, xb)), ce = column(Math.max(xa, xb));
+            for (int c = cs; c <= ce; c++) {
+                stamp[r * this.columns + c] = p;
+            }
+        }
+    }
+
+    // the column of x, clamped into the grid
+    private int column(double x) {
+        int c = (int)Math.floor((x - this.originX) / this.cellSize);
+        return Math.max(0, Math.min(this.columns - 1, c));
+    }
+
+    // the row of y, clamped into the grid
+    private int row(double y) {
+        int r = (int)Math.floor((y - this.originY) / this.cellSize);
+        return Math.max(0, Math.min(this.rows - 1, r));
+    }
+
+    // crossings on a scanline are only a few. sort them by x with an insertion sort.
+    private static void sortCrossings(@NonNull double[] xs, @NonNull int[] dirs, int n) {
+        for (int i = 1; i < n; i++) {
+            double x = xs[i];
+            int d = dirs[i];
+            int j = i - 1;
+            while (j >= 0 && xs[j] > x) {
+                xs[j + 1] = xs[j];
+                dirs[j + 1] = dirs[j];
+                j--;
+            }
+            xs[j + 1] = x;
+            dirs[j + 1] = d;
+        }
+    }
+}
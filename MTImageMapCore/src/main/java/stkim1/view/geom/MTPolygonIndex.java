@@ -0,0 +1,805 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * MTPolygonIndex is a static spatial index over the bounding boxes of <code>MTPolygon</code> maps.
+ * It is a Sort-Tile-Recursive (STR) packed R-tree laid out in flat primitive arrays, so that a
+ * point query costs <code>O(log N + k)</code> bounding box checks instead of a scan over every
+ * polygon.
+ * <p>
+ * Polygons can be replaced, removed, and added after the index is built. A changed polygon
+ * leaves its stale leaf entry in the tree, which queries skip, and goes to a short overflow list
+ * checked box by box, so that an update costs <code>O(1)</code>. Once the changes pile up, see
+ * {@link #isPackingDue()}, pack the tree again over the current polygons; with {@link #pack()},
+ * or off the thread which owns the index with {@link #beginPacking()}. A snapshot which fails to
+ * pack is given up with {@link #cancelPacking(Packing)}. Index numbers of polygons
+ * never change.
+ * <p>
+ * The index keeps scratch buffers to answer queries without allocating, hence an instance is
+ * not thread-safe. Query and update it from a single thread (i.e. the UI thread).
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public class MTPolygonIndex {
+
+    // maximum number of children in a node
+    static final int NODE_CAPACITY = 16;
+    // the number of items a sort task sorts without forking further
+    static final int PARALLEL_SORT_SIZE = 8192;
+    // the number of changed polygons from which the tree is due to be packed again
+    static final int MIN_PENDING_UPDATES = NODE_CAPACITY * NODE_CAPACITY;
+
+    // polygons by index number, null for a removed one. The array has room to add polygons.
+    private MTPolygon[] polygons;
+    private int size;
+    private int numItems;
+    // [minX, minY, maxX, maxY] of every node. Leaf entries come first, then upper levels
+    // level by level, and the root at the very end.
+    private double[] boxes;
+    // polygon index for a leaf entry, the first child position for an upper level node.
+    private int[] indices;
+    // the position where each level ends. The last one is the total number of nodes.
+    private int[] levelBounds;
+
+    // polygons changed since the tree is packed. Their leaf entries, if any, are skipped.
+    private boolean[] detached;
+    private int[] changed;
+    private int changedCount = 0;
+    // the update at which each polygon is changed last
+    private int[] stamps;
+    // closed polygons set after the tree is packed, and the position of each in the list or -1
+    private int[] extras;
+    private int extraCount = 0;
+    private int[] extraPositions;
+    private int modCount = 0;
+    // the tree being packed off the thread, if any
+    private Packing packing = null;
+
+    // scratch buffers for queries
+    private int[] stack;
+    private int[] hits;
+
+    /**
+     * Build an index over a list of polygons. Only closed polygons are indexed, since an open
+     * polygon contains no point. The position of a polygon in the list is its index number.
+     *
+     * @param pList a list of polygons to index.
+     * @throws NullPointerException if the list is null.
+     */
+    public MTPolygonIndex(@NonNull List<MTPolygon> pList) {
+        this(pList, null);
+    }
+
+    /**
+     * Build an index over a list of polygons, and sort the polygons into tiles on a pool of
+     * threads. The index is the same as one built on a single thread, and a large map of
+     * hundreds of thousands of polygons is built in a fraction of the time.
+     *
+     * @param pList a list of polygons to index.
+     * @param pool a pool to sort on, or <code>null</code> to build on the calling thread.
+     * @throws NullPointerException if the list is null.
+     */
+    public MTPolygonIndex(@NonNull List<MTPolygon> pList, @Nullable ForkJoinPool pool) {
+        super();
+
+        final int psz = pList.size();
+        this.polygons = pList.toArray(new MTPolygon[psz]);
+        this.size = psz;
+        this.detached = new boolean[psz];
+        this.changed = new int[0];
+        this.stamps = new int[psz];
+        this.extras = new int[0];
+        this.extraPositions = new int[psz];
+        Arrays.fill(this.extraPositions, -1);
+        this.hits = new int[psz];
+
+        final Packing packed = new Packing(this.polygons, psz, this.modCount);
+        packed.pack(pool);
+        adopt(packed);
+    }
+
+    /**
+     * Packing is a tree packed from a snapshot of the polygons in an index. It can be packed on
+     * any thread while the index is queried and updated on its own thread, then the index adopts
+     * it with {@link #finishPacking(Packing)}.
+     */
+    public static final class Packing {
+
+        private final MTPolygon[] polygons;
+        private final int size;
+        // the update of the index the snapshot is taken at
+        private final int modCount;
+        private boolean packed = false;
+
+        private int numItems;
+        private double[] boxes;
+        private int[] indices;
+        private int[] levelBounds;
+
+        Packing(@NonNull MTPolygon[] polygons, int size, int modCount) {
+            super();
+            this.polygons = polygons;
+            this.size = size;
+            this.modCount = modCount;
+        }
+
+        /**
+         * Pack every closed polygon of the snapshot into a tree. It does not touch the index.
+         *
+         * @param pool a pool to sort on, or <code>null</code> to pack on the calling thread.
+         */
+        public void pack(@Nullable ForkJoinPool pool) {
+            final int psz = this.size;
+
+            // pick closed polygons only
+            int[] items = new int[psz];
+            int n = 0;
+            for (int i = 0; i < psz; i++) {
+                if (this.polygons[i] != null && this.polygons[i].isClosed()) {
+                    items[n++] = i;
+                }
+            }
+            this.numItems = n;
+
+            // count nodes level by level
+            int levels = 1;
+            int numNodes = n;
+            int count = n;
+            while (count > 1) {
+                count = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+                numNodes += count;
+                levels++;
+            }
+            this.levelBounds = new int[levels];
+            this.boxes = new double[numNodes * 4];
+            this.indices = new int[numNodes];
+            this.packed = true;
+
+            if (n == 0) {
+                return;
+            }
+
+            sortTileRecursive(this.polygons, items, n, pool);
+
+            // leaf entries
+            for (int i = 0; i < n; i++) {
+                MTPolygonBoundingBox box = this.polygons[items[i]].getBoundingBox();
+                this.boxes[i * 4] = box.minVertex.x;
+                this.boxes[i * 4 + 1] = box.minVertex.y;
+                this.boxes[i * 4 + 2] = box.maxVertex.x;
+                this.boxes[i * 4 + 3] = box.maxVertex.y;
+                this.indices[i] = items[i];
+            }
+            this.levelBounds[0] = n;
+
+            // pack consecutive children into upper level nodes until we reach the root
+            int start = 0;
+            int end = n;
+            int pos = n;
+            for (int l = 1; l < levels; l++) {
+                for (int c = start; c < end; c += NODE_CAPACITY) {
+                    int ce = Math.min(c + NODE_CAPACITY, end);
+                    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                    for (int k = c; k < ce; k++) {
+                        minX = Math.min(minX, this.boxes[k * 4]);
+                        minY = Math.min(minY, this.boxes[k * 4 + 1]);
+                        maxX = Math.max(maxX, this.boxes[k * 4 + 2]);
+                        maxY = Math.max(maxY, this.boxes[k * 4 + 3]);
+                    }
+                    this.boxes[pos * 4] = minX;
+                    this.boxes[pos * 4 + 1] = minY;
+                    this.boxes[pos * 4 + 2] = maxX;
+                    this.boxes[pos * 4 + 3] = maxY;
+                    this.indices[pos] = c;
+                    pos++;
+                }
+                this.levelBounds[l] = pos;
+                start = end;
+                end = pos;
+            }
+        }
+    }
+
+    /**
+     * Take a snapshot of the polygons to pack the tree again off the thread which owns this index.
+     * Pack it with {@link Packing#pack(ForkJoinPool)} on any thread, then hand it back to
+     * {@link #finishPacking(Packing)} on the thread which owns this index. Taking the snapshot
+     * copies the references to the polygons. A later snapshot or {@link #pack()} supersedes it.
+     *
+     * @return a snapshot of the polygons to pack.
+     */
+    @NonNull
+    public Packing beginPacking() {
+        this.packing = new Packing(Arrays.copyOf(this.polygons, this.size), this.size, this.modCount);
+        return this.packing;
+    }
+
+    /**
+     * Adopt a tree packed off the thread. Polygons changed after the snapshot stay in the overflow
+     * list, so that adopting it costs as many polygons as are changed, and queries find the same
+     * polygons before and after.
+     *
+     * @param packing a snapshot taken by {@link #beginPacking()} and packed.
+     * @return <code>true</code> if the tree is adopted. <code>false</code> if the snapshot is
+     *      superseded or not packed yet.
+     * @throws NullPointerException if the packing is null.
+     */
+    public boolean finishPacking(@NonNull Packing packing) {
+        if (packing != this.packing || !packing.packed) {
+            return false;
+        }
+        this.packing = null;
+        adopt(packing);
+        return true;
+    }
+
+    /**
+     * Abandon a snapshot taken by {@link #beginPacking()}, e.g. when packing it failed or could
+     * not be scheduled, so that the tree can be packed again. The tree stays as it is.
+     *
+     * @param packing a snapshot taken by {@link #beginPacking()}.
+     * @return <code>true</code> if the snapshot is abandoned. <code>false</code> if it is
+     *      superseded or adopted already.
+     * @throws NullPointerException if the packing is null.
+     */
+    public boolean cancelPacking(@NonNull Packing packing) {
+        if (packing != this.packing) {
+            return false;
+        }
+        this.packing = null;
+        return true;
+    }
+
+    /**
+     * Pack the tree again over the current polygons on the calling thread.
+     */
+    public void pack() {
+        final Packing packed = new Packing(this.polygons, this.size, this.modCount);
+        this.packing = null;
+        packed.pack(null);
+        adopt(packed);
+    }
+
+    /**
+     * @return <code>true</code> if a snapshot taken by {@link #beginPacking()} is yet to be adopted.
+     */
+    public boolean isPacking() {
+        return this.packing != null;
+    }
+
+    /**
+     * Tells you if so many polygons are changed since the tree is packed that it is due to be
+     * packed again, and no snapshot is being packed.
+     *
+     * @return <code>true</code> if the tree should be packed again.
+     */
+    public boolean isPackingDue() {
+        return this.packing == null && this.changedCount >= MIN_PENDING_UPDATES;
+    }
+
+    // replace the tree with a packed one. Polygons changed since its snapshot stay detached.
+    private void adopt(@NonNull Packing packed) {
+        this.numItems = packed.numItems;
+        this.boxes = packed.boxes;
+        this.indices = packed.indices;
+        this.levelBounds = packed.levelBounds;
+        this.stack = new int[this.levelBounds.length * NODE_CAPACITY + 1];
+
+        int kept = 0;
+        for (int i = 0; i < this.changedCount; i++) {
+            final int index = this.changed[i];
+            if (this.stamps[index] > packed.modCount) {
+                this.changed[kept++] = index;
+                continue;
+            }
+            this.detached[index] = false;
+            removeExtra(index);
+        }
+        this.changedCount = kept;
+    }
+
+    // take a polygon out of the overflow list
+    private void removeExtra(int index) {
+        final int at = this.extraPositions[index];
+        if (at >= 0) {
+            // move the last one into its place
+            final int last = this.extras[--this.extraCount];
+            this.extras[at] = last;
+            this.extraPositions[last] = at;
+            this.extraPositions[index] = -1;
+        }
+    }
+
+    /**
+     * The number of polygons given to this index, including open ones which are not indexed,
+     * and the index numbers of removed ones.
+     *
+     * @return the number of index numbers.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Replace the polygon at an index number, or remove it. The bounding box of the polygon
+     * should not be changed while it is in the index, so a reshaped polygon is set again.
+     *
+     * @param index the index number of a polygon.
+     * @param polygon a polygon to put at the index number, or <code>null</code> to remove the
+     *      polygon there.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public void set(int index, @Nullable MTPolygon polygon) {
+        if (index < 0 || this.size <= index) {
+            throw new IndexOutOfBoundsException("Polygon index " + index + " is out of " + this.size + " polygons.");
+        }
+
+        if (!this.detached[index]) {
+            this.detached[index] = true;
+            if (this.changed.length == this.changedCount) {
+                this.changed = Arrays.copyOf(this.changed, Math.max(NODE_CAPACITY, this.changedCount * 2));
+            }
+            this.changed[this.changedCount++] = index;
+        }
+        removeExtra(index);
+
+        this.polygons[index] = polygon;
+        if (polygon != null && polygon.isClosed()) {
+            if (this.extras.length == this.extraCount) {
+                this.extras = Arrays.copyOf(this.extras, Math.max(NODE_CAPACITY, this.extraCount * 2));
+            }
+            this.extraPositions[index] = this.extraCount;
+            this.extras[this.extraCount++] = index;
+        }
+
+        this.stamps[index] = ++this.modCount;
+    }
+
+    /**
+     * Add a polygon at the next index number.
+     *
+     * @param polygon a polygon to add.
+     * @return the index number of the polygon.
+     * @throws NullPointerException if the polygon is null.
+     */
+    public int add(@NonNull MTPolygon polygon) {
+        if (this.polygons.length == this.size) {
+            final int capacity = Math.max(NODE_CAPACITY, this.size + (this.size >> 1));
+            this.polygons = Arrays.copyOf(this.polygons, capacity);
+            this.detached = Arrays.copyOf(this.detached, capacity);
+            this.stamps = Arrays.copyOf(this.stamps, capacity);
+            this.extraPositions = Arrays.copyOf(this.extraPositions, capacity);
+            Arrays.fill(this.extraPositions, this.size, capacity, -1);
+            this.hits = new int[capacity];
+        }
+        final int index = this.size++;
+        set(index, Objects.requireNonNull(polygon));
+        return index;
+    }
+
+    /**
+     * The number of polygons changed since the tree is packed. It drops when a packed tree is
+     * adopted, to the number of polygons changed after its snapshot.
+     *
+     * @return the number of polygons the tree does not have.
+     */
+    public int getPendingUpdates() {
+        return this.changedCount;
+    }
+
+    /**
+     * The number of updates since this index is built, to find if something derived from the
+     * index is out of date.
+     *
+     * @return the number of updates.
+     */
+    public int getModCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Find polygons which contain a point. Candidates are picked with the bounding boxes in the
+     * index, then each candidate is precisely checked with <code>isPointInPolygon</code>.
+     * The polygons are appended to the result list in the order of the list this index is
+     * built with.
+     *
+     * @param point a point in <code>MTPoint</code>.
+     * @param result a list to which polygons containing the point are appended.
+     * @throws NullPointerException if the point or the result list is null.
+     */
+    public void findPolygons(@NonNull MTPoint point, @NonNull List<MTPolygon> result) {
+        findPolygons(point.x, point.y, result);
+    }
+
+    /**
+     * Find polygons which contain a point (x, y). A query does not allocate as long as the
+     * result list has room for the polygons found.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result a list to which polygons containing the point are appended.
+     * @throws NullPointerException if the result list is null.
+     * @see #findPolygons(MTPoint, List)
+     */
+    public void findPolygons(double x, double y, @NonNull List<MTPolygon> result) {
+        final int hsz = collectHits(x, y, null);
+        for (int i = 0; i < hsz; i++) {
+            MTPolygon polygon = this.polygons[this.hits[i]];
+            if (polygon.isPointInPolygon(x, y)) {
+                result.add(polygon);
+            }
+        }
+    }
+
+    /**
+     * Find polygons which contain a point (x, y) the same way as
+     * {@link #findPolygons(double, double, List)}, and count the work done for it.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result a list to which polygons containing the point are appended.
+     * @param counters the counters to which the work is added.
+     */
+    public void findPolygons(double x, double y, @NonNull List<MTPolygon> result,
+                             @NonNull MTHitTestCounters counters) {
+        final int hsz = collectHits(x, y, counters);
+        counters.boxPasses += hsz;
+        for (int i = 0; i < hsz; i++) {
+            MTPolygon polygon = this.polygons[this.hits[i]];
+            if (testPolygon(polygon, x, y, counters)) {
+                result.add(polygon);
+            }
+        }
+    }
+
+    // the point test of an instrumented query, after the bounding box passed
+    static boolean testPolygon(@NonNull MTPolygon polygon, double x, double y,
+                                       @NonNull MTHitTestCounters counters) {
+        // a point out of the octagonal bounds is rejected without a winding number test
+        if (!polygon.isPointInBounds(x, y)) {
+            return false;
+        }
+        counters.windingTests++;
+        counters.edgesVisited += polygon.getEdgesExamined(y);
+        return polygon.isPointInPolygon(x, y);
+    }
+
+    /**
+     * Find the indices of polygons which contain a point (x, y), in ascending order.
+     * A query does not allocate.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result an array to hold the indices of the polygons found. Its length should be
+     *      at least {@link #size()}.
+     * @return the number of polygons found.
+     * @throws NullPointerException if the result array is null.
+     * @throws ArrayIndexOutOfBoundsException if the result array is too short.
+     */
+    public int findPolygonIndices(double x, double y, @NonNull int[] result) {
+        return findPolygonIndices(x, y, result, 0);
+    }
+
+    /**
+     * Find the indices of polygons which contain a point (x, y), in ascending order, and write
+     * them from a position of an array, e.g. to pack the results of many points in one array.
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param result an array to hold the indices of the polygons found. It should have room for
+     *      {@link #size()} indices from the offset.
+     * @param offset the position of the result array to start writing at.
+     * @return the number of polygons found.
+     * @throws NullPointerException if the result array is null.
+     * @throws ArrayIndexOutOfBoundsException if the result array is too short.
+     */
+    public int findPolygonIndices(double x, double y, @NonNull int[] result, int offset) {
+        return findPolygonIndices(x, y, result, offset, null);
+    }
+
+    // find the indices of polygons, and count the work only if there are counters
+    int findPolygonIndices(double x, double y, @NonNull int[] result, int offset,
+                           @Nullable MTHitTestCounters counters) {
+        final int hsz = collectHits(x, y, counters);
+        if (counters != null) {
+            counters.boxPasses += hsz;
+        }
+        int rsz = 0;
+        for (int i = 0; i < hsz; i++) {
+            final MTPolygon polygon = this.polygons[this.hits[i]];
+            if ((counters == null) ? polygon.isPointInPolygon(x, y) : testPolygon(polygon, x, y, counters)) {
+                result[offset + rsz++] = this.hits[i];
+            }
+        }
+        return rsz;
+    }
+
+    /**
+     * Find polygons whose bounding box intersects a rectangle, e.g. the visible area of a view.
+     * The indices of the polygons are written to the result array in no particular order.
+     * A search does not allocate.
+     *
+     * @param minX the left of the rectangle.
+     * @param minY the top of the rectangle.
+     * @param maxX the right of the rectangle.
+     * @param maxY the bottom of the rectangle.
+     * @param result an array to hold the indices of the polygons found. Its length should be
+     *      at least {@link #size()}.
+     * @return the number of polygons found.
+     * @throws NullPointerException if the result array is null.
+     * @throws ArrayIndexOutOfBoundsException if the result array is too short.
+     */
+    public int search(double minX, double minY, double maxX, double maxY, @NonNull int[] result) {
+        int rsz = 0;
+        for (int i = 0; i < this.extraCount; i++) {
+            final MTPolygonBoundingBox box = this.polygons[this.extras[i]].getBoundingBox();
+            if (box.minVertex.x <= maxX && minX <= box.maxVertex.x &&
+                    box.minVertex.y <= maxY && minY <= box.maxVertex.y) {
+                result[rsz++] = this.extras[i];
+            }
+        }
+
+        if (this.numItems == 0) {
+            return rsz;
+        }
+
+        final int root = this.boxes.length / 4 - 1;
+        if (!intersects(root, minX, minY, maxX, maxY)) {
+            return rsz;
+        }
+
+        int sp = 0;
+        this.stack[sp++] = root;
+
+        while (sp > 0) {
+            final int node = this.stack[--sp];
+            if (node < this.numItems) {
+                // a leaf entry, unless its polygon is changed
+                if (!this.detached[this.indices[node]]) {
+                    result[rsz++] = this.indices[node];
+                }
+                continue;
+            }
+
+            final int c = this.indices[node];
+            final int ce = Math.min(c + NODE_CAPACITY, upperBound(c));
+            for (int k = c; k < ce; k++) {
+                if (intersects(k, minX, minY, maxX, maxY)) {
+                    this.stack[sp++] = k;
+                }
+            }
+        }
+        return rsz;
+    }
+
+    // if the box of a node intersects a rectangle
+    private boolean intersects(int node, double minX, double minY, double maxX, double maxY) {
+        return this.boxes[node * 4] <= maxX && minX <= this.boxes[node * 4 + 2] &&
+                this.boxes[node * 4 + 1] <= maxY && minY <= this.boxes[node * 4 + 3];
+    }
+
+    // the polygon at an index number, or null if it is removed
+    MTPolygon polygonAt(int index) {
+        return this.polygons[index];
+    }
+
+    // a stack buffer large enough for a query, for a caller who keeps its own scratch buffers
+    @NonNull
+    int[] newStack() {
+        return new int[this.stack.length];
+    }
+
+    // collect indices of polygons whose bounding box contains (x, y) into hits in ascending order.
+    int collectHits(double x, double y, @Nullable MTHitTestCounters counters) {
+        return collectHits(x, y, counters, this.stack, this.hits);
+    }
+
+    // a hit of the last collectHits(x, y, counters)
+    int hitAt(int i) {
+        return this.hits[i];
+    }
+
+    // collect hits with caller's scratch buffers so that threads can query at the same time.
+    // Returns the number of hits, which can be larger than the hits buffer. Then only what fits
+    // is written and left unsorted, and the caller should retry with a larger buffer.
+    int collectHits(double x, double y, @Nullable MTHitTestCounters counters,
+                    @NonNull int[] stack, @NonNull int[] hits) {
+        int hsz = 0;
+        // polygons changed since the tree is packed
+        if (counters != null) {
+            counters.candidates += this.extraCount;
+        }
+        for (int i = 0; i < this.extraCount; i++) {
+            if (this.polygons[this.extras[i]].isPointInBBox(x, y)) {
+                if (hsz < hits.length) {
+                    hits[hsz] = this.extras[i];
+                }
+                hsz++;
+            }
+        }
+
+        final int root = this.boxes.length / 4 - 1;
+        int sp = 0;
+        if (this.numItems != 0 && intersects(root, x, y, x, y)) {
+            stack[sp++] = root;
+            if (counters != null && root < this.numItems) {
+                counters.candidates++;
+            }
+        }
+
+        while (sp > 0) {
+            final int node = stack[--sp];
+            if (node < this.numItems) {
+                // a leaf entry, unless its polygon is changed
+                if (!this.detached[this.indices[node]]) {
+                    if (hsz < hits.length) {
+                        hits[hsz] = this.indices[node];
+                    }
+                    hsz++;
+                }
+                continue;
+            }
+
+            final int c = this.indices[node];
+            final int ce = Math.min(c + NODE_CAPACITY, upperBound(c));
+            // leaf entries checked against the point, only for an instrumented query
+            if (counters != null && c < this.numItems) {
+                counters.candidates += ce - c;
+            }
+            for (int k = c; k < ce; k++) {
+                if (intersects(k, x, y, x, y)) {
+                    stack[sp++] = k;
+                }
+            }
+        }
+
+        if (hits.length < hsz) {
+            return hsz;
+        }
+
+        // hits are only a few. An insertion sort puts them back in the list order.
+        for (int i = 1; i < hsz; i++) {
+            int h = hits[i];
+            int j = i - 1;
+            while (j >= 0 && hits[j] > h) {
+                hits[j + 1] = hits[j];
+                j--;
+            }
+            hits[j + 1] = h;
+        }
+        return hsz;
+    }
+
+    // the end position of the level a node belongs to
+    private int upperBound(int node) {
+        for (int bound : this.levelBounds) {
+            if (node < bound) {
+                return bound;
+            }
+        }
+        return this.levelBounds[this.levelBounds.length - 1];
+    }
+
+    // Sort-Tile-Recursive ordering: sort by the center x, cut into vertical slices,
+    // then sort each slice by the center y.
+    private static void sortTileRecursive(@NonNull MTPolygon[] polygons, @NonNull int[] items, int n,
+                                          @Nullable ForkJoinPool pool) {
+        double[] cx = new double[polygons.length];
+        double[] cy = new double[polygons.length];
+        for (int i = 0; i < n; i++) {
+            MTPolygonBoundingBox box = polygons[items[i]].getBoundingBox();
+            cx[items[i]] = (box.minVertex.x + box.maxVertex.x) * 0.5;
+            cy[items[i]] = (box.minVertex.y + box.maxVertex.y) * 0.5;
+        }
+
+        int leaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int)Math.ceil(Math.sqrt(leaves));
+        int sliceSize = slices * NODE_CAPACITY;
+
+        if (pool == null || n <= PARALLEL_SORT_SIZE) {
+            sortByKey(items, cx, 0, n - 1);
+            for (int s = 0; s < n; s += sliceSize) {
+                sortByKey(items, cy, s, Math.min(s + sliceSize, n) - 1);
+            }
+            return;
+        }
+
+        // slices are independent of each other once the items are sorted by x
+        pool.invoke(new SortTask(items, cx, 0, n - 1));
+        final List<SortTask> tasks = new ArrayList<>();
+        for (int s = 0; s < n; s += sliceSize) {
+            tasks.add(new SortTask(items, cy, s, Math.min(s + sliceSize, n) - 1));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    // A quicksort task. It partitions the same way as sortByKey(), and forks both halves until
+    // they are small enough to sort on a single thread.
+    private static final class SortTask extends RecursiveAction {
+
+        private final int[] items;
+        private final double[] keys;
+        private final int lo;
+        private final int hi;
+
+        SortTask(@NonNull int[] items, @NonNull double[] keys, int lo, int hi) {
+            super();
+            this.items = items;
+            this.keys = keys;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo < PARALLEL_SORT_SIZE) {
+                sortByKey(this.items, this.keys, this.lo, this.hi);
+                return;
+            }
+
+            final double pivot = this.keys[this.items[(this.lo + this.hi) >>> 1]];
+            int i = this.lo, j = this.hi;
+            while (i <= j) {
+                while (this.keys[this.items[i]] < pivot) {
+                    i++;
+                }
+                while (this.keys[this.items[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = this.items[i];
+                    this.items[i] = this.items[j];
+                    this.items[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            invokeAll(new SortTask(this.items, this.keys, this.lo, j),
+                    new SortTask(this.items, this.keys, i, this.hi));
+        }
+    }
+
+    // quicksort of items[lo..hi] by keys of items
+    private static void sortByKey(@NonNull int[] items, @NonNull double[] keys, int lo, int hi) {
+        while (lo < hi) {
+            double pivot = keys[items[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (keys[items[i]] < pivot) {
+                    i++;
+                }
+                while (keys[items[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = items[i];
+                    items[i] = items[j];
+                    items[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller half to keep the stack shallow
+            if (j - lo < hi - i) {
+                sortByKey(items, keys, lo, j);
+                lo = i;
+            } else {
+                sortByKey(items, keys, i, hi);
+                hi = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * MTPolygonMapFile is a compact binary format of polygon maps, which can be memory-mapped and
+ * read lazily. A polygon is decoded only when it is asked for, so opening a map does not copy
+ * every vertex to the heap.
+ * <p>
+ * All numbers are in little endian. The layout is
+ * <pre>
+ * header        32 bytes
+ *   int32   magic "MTPM"
+ *   uint16  version (2)
+ *   uint16  flags (bit 0: bounding boxes present)
+ *   int32   number of polygons
+ *   int32   number of vertices
+ *   float64 scale; a coordinate v is stored as round(v * scale)
+ *   int32   offset of the id pool
+ *   int32   offset of the vertex data
+ * polygon table, an entry per polygon right after the header
+ *   int32   offset of the id in the id pool, or -1 for no id
+ *   int32   offset of the vertices in the vertex data
+ *   int32   number of vertices
+ *   int32   number of rings
+ *   float64 x 4 minX, minY, maxX, maxY of the stored vertices, only if the bounding box flag
+ *           is set
+ * id pool, an id per polygon with an id
+ *   uint8   type of the id; 0 String, 1 Integer, 2 Long, 3 Double
+ *   varint  length, followed by the UTF-8 bytes of a String id
+ *   zigzag varint of an Integer or a Long id
+ *   float64 of a Double id
+ * vertex data, the vertices of a polygon at its offset
+ *   varint  (number of vertices &lt;&lt; 1) | 1 for a hole, a ring after another, only if the
+ *           polygon has more than one ring
+ *   zigzag varint x and y of the first vertex, then deltas from the previous vertex, through the
+ *           rings in their order
+ * </pre>
+ * A multipolygon keeps its outer rings and holes in their order, and is decoded into the same
+ * multipolygon.
+ * Polygon ids are read back in their type, so an id equals to the id of the written polygon.
+ * Only <code>String</code>, <code>Integer</code>, <code>Long</code> and <code>Double</code> ids
+ * can be written, i.e. the string and number ids of {@link MTPolygonMapReader}.
+ * Coordinates are quantized to <code>1 / scale</code>;
+ * a map of integer pixel coordinates round-trips exactly with the scale of <code>1.0</code>.
+ * <p>
+ * The bounding boxes let {@link #getPolygons(double, double, double, double, List)} decode only
+ * the polygons around an area, e.g. the viewport of a large map, without touching the vertices of
+ * the others.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public class MTPolygonMapFile {
+
+    private static final int MAGIC = 0x4D50544D; // "MTPM" in little endian
+    private static final int VERSION = 2;
+    private static final int FLAG_BOUNDING_BOX = 0x01;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 16;
+    private static final int BOX_SIZE = 32;
+    private static final int ID_STRING = 0;
+    private static final int ID_INTEGER = 1;
+    private static final int ID_LONG = 2;
+    private static final int ID_DOUBLE = 3;
+
+    private final ByteBuffer buffer;
+    private final MTPolygonOptions options;
+    private final int polygonCount;
+    private final int vertexCount;
+    private final double scale;
+    private final boolean boundingBoxes;
+    private final int entrySize;
+    private final int idPool;
+    private final int vertexData;
+
+    /**
+     * Read a polygon map from a buffer in the format, e.g. a memory-mapped file or an asset.
+     * The buffer is not copied. The map starts at the position of the buffer.
+     *
+     * @param buf a buffer of a polygon map from its position. Its content must not change.
+     * @throws NullPointerException if the buffer is null.
+     * @throws IOException if the buffer is not a polygon map of this version.
+     */
+    public MTPolygonMapFile(@NonNull ByteBuffer buf) throws IOException {
+        this(buf, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Read a polygon map from a buffer in the format, whose polygons are closed with given options
+     * when they are decoded.
+     *
+     * @param buf a buffer of a polygon map from its position. Its content must not change.
+     * @param options the options to close decoded polygons with.
+     * @throws NullPointerException if the buffer or the options is null.
+     * @throws IOException if the buffer is not a polygon map of this version.
+     * @see #MTPolygonMapFile(ByteBuffer)
+     */
+    public MTPolygonMapFile(@NonNull ByteBuffer buf, @NonNull MTPolygonOptions options) throws IOException {
+        super();
+
+        if (options == null) {
+            throw new NullPointerException("MTPolygonMapFile options must not be null.");
+        }
+        this.options = options;
+        this.buffer = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (this.buffer.limit() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a polygon map file.");
+        }
+        int version = this.buffer.getShort(4) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported polygon map file version " + version + ".");
+        }
+        int flags = this.buffer.getShort(6) & 0xFFFF;
+        this.boundingBoxes = (flags & FLAG_BOUNDING_BOX) != 0;
+        this.entrySize = ENTRY_SIZE + (this.boundingBoxes ? BOX_SIZE : 0);
+        this.polygonCount = this.buffer.getInt(8);
+        this.vertexCount = this.buffer.getInt(12);
+        this.scale = this.buffer.getDouble(16);
+        this.idPool = this.buffer.getInt(24);
+        this.vertexData = this.buffer.getInt(28);
+
+        if (this.polygonCount < 0 || !(this.scale > 0.0) ||
+                this.idPool < HEADER_SIZE + (long)this.polygonCount * this.entrySize ||
+                this.vertexData < this.idPool || this.buffer.limit() < this.vertexData) {
+            throw new IOException("Corrupted polygon map file.");
+        }
+    }
+
+    /**
+     * Memory-map a polygon map file. The file is mapped read-only and its vertices are decoded
+     * only when a polygon is asked for.
+     *
+     * @param file a polygon map file.
+     * @return a polygon map over the mapped file.
+     * @throws NullPointerException if the file is null.
+     * @throws IOException if the file cannot be mapped, or is not a polygon map of this version.
+     */
+    @NonNull
+    public static MTPolygonMapFile open(@NonNull File file) throws IOException {
+        return open(file, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Memory-map a polygon map file, whose polygons are closed with given options when they are
+     * decoded.
+     *
+     * @param file a polygon map file.
+     * @param options the options to close decoded polygons with.
+     * @return a polygon map over the mapped file.
+     * @throws NullPointerException if the file or the options is null.
+     * @throws IOException if the file cannot be mapped, or is not a polygon map of this version.
+     * @see #open(File)
+     */
+    @NonNull
+    public static MTPolygonMapFile open(@NonNull File file, @NonNull MTPolygonOptions options) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // a mapping stays valid after its channel is closed.
+            return new MTPolygonMapFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), options);
+        }
+    }
+
+    /**
+     * @return the number of polygons in this map.
+     */
+    public int getPolygonCount() {
+        return this.polygonCount;
+    }
+
+    /**
+     * @return the number of vertices of all polygons in this map.
+     */
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    /**
+     * @return <code>true</code> if this map has precomputed bounding boxes.
+     */
+    public boolean hasBoundingBoxes() {
+        return this.boundingBoxes;
+    }
+
+    /**
+     * Read the precomputed bounding box of a polygon without decoding its vertices.
+     *
+     * @param index the position of a polygon.
+     * @param bounds an array to hold <code>minX, minY, maxX, maxY</code> of the polygon.
+     * @return <code>true</code> if the bounding box is read, <code>false</code> if this map has no
+     *      bounding boxes.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public boolean getBounds(int index, @NonNull double[] bounds) {
+        final int entry = entryOf(index);
+        if (!this.boundingBoxes) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            bounds[i] = this.buffer.getDouble(entry + ENTRY_SIZE + i * 8);
+        }
+        return true;
+    }
+
+    /**
+     * Decode a polygon. Only the vertices of this polygon are copied to the heap.
+     * It is safe to call from multiple threads.
+     *
+     * @param index the position of a polygon.
+     * @return a closed polygon.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws InvalidParameterException if the polygon or any of its rings has less than three
+     *      vertices.
+     * @throws IllegalStateException if the id of the polygon is corrupted.
+     */
+    @NonNull
+    public MTPolygon getPolygon(int index) {
+        final int entry = entryOf(index);
+        final int idOffset = this.buffer.getInt(entry);
+        final int count = this.buffer.getInt(entry + 8);
+        final int ringCount = this.buffer.getInt(entry + 12);
+
+        final Object pid = (idOffset < 0) ? null : readId(this.idPool + idOffset);
+
+        int[] cursor = {this.vertexData + this.buffer.getInt(entry + 4)};
+        int[] ringLengths = null;
+        boolean[] holes = null;
+        if (ringCount > 1) {
+            ringLengths = new int[ringCount];
+            holes = new boolean[ringCount];
+            for (int r = 0; r < ringCount; r++) {
+                long ring = readVarint(this.buffer, cursor);
+                ringLengths[r] = (int)(ring >>> 1);
+                holes[r] = (ring & 1) != 0;
+            }
+        }
+
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        long qx = 0, qy = 0;
+        for (int i = 0; i < count; i++) {
+            qx += zigzagDecode(readVarint(this.buffer, cursor));
+            qy += zigzagDecode(readVarint(this.buffer, cursor));
+            xs[i] = qx / this.scale;
+            ys[i] = qy / this.scale;
+        }
+        if (ringLengths != null) {
+            return new MTPolygon(pid, xs, ys, 0, ringLengths, holes, this.options);
+        }
+        return new MTPolygon(pid, xs, ys, 0, count, this.options);
+    }
+
+    /**
+     * Decode the polygons whose bounding box intersects an area. With precomputed bounding boxes,
+     * the vertices of the other polygons are never read. Otherwise, every polygon is decoded and
+     * checked with its bounding box.
+     *
+     * @param minX the left of an area.
+     * @param minY the top of an area.
+     * @param maxX the right of an area.
+     * @param maxY the bottom of an area.
+     * @param result a list to which the polygons are appended in their order in this map.
+     * @return the number of polygons appended.
+     * @throws NullPointerException if the list is null.
+     */
+    public int getPolygons(double minX, double minY, double maxX, double maxY, @NonNull List<MTPolygon> result) {
+        int found = 0;
+        for (int p = 0; p < this.polygonCount; p++) {
+            final int entry = HEADER_SIZE + p * this.entrySize;
+            if (this.boundingBoxes) {
+                final int box = entry + ENTRY_SIZE;
+                if (this.buffer.getDouble(box) > maxX || this.buffer.getDouble(box + 8) > maxY ||
+                        this.buffer.getDouble(box + 16) < minX || this.buffer.getDouble(box + 24) < minY) {
+                    continue;
+                }
+                result.add(getPolygon(p));
+                found++;
+                continue;
+            }
+
+            final MTPolygon polygon = getPolygon(p);
+            final MTPolygonBoundingBox box = polygon.getBoundingBox();
+            if (box.minVertex.x <= maxX && box.minVertex.y <= maxY &&
+                    minX <= box.maxVertex.x && minY <= box.maxVertex.y) {
+                result.add(polygon);
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A list view of the polygons in this map. A polygon is decoded whenever it is got from the
+     * list, and nothing is cached. Copy the list if you need to visit polygons many times.
+     *
+     * @return an unmodifiable list of polygons decoded on demand.
+     */
+    @NonNull
+    public List<MTPolygon> asList() {
+        return new PolygonList();
+    }
+
+    /**
+     * Write polygon maps in the format.
+     *
+     * @param polygons closed polygons to write.
+     * @param scale a coordinate <code>v</code> is stored as <code>round(v * scale)</code>.
+     *      Use <code>1.0</code> for integer pixel coordinates.
+     * @param withBoundingBoxes <code>true</code> to store the bounding boxes of polygons.
+     * @param out a stream to write to. It is not closed.
+     * @throws NullPointerException if any of the arguments is null.
+     * @throws InvalidParameterException if a polygon is open, an id is not a
+     *      <code>String</code>, an <code>Integer</code>, a <code>Long</code> or a
+     *      <code>Double</code>, the scale is not positive, or a quantized coordinate is out of
+     *      range.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static void write(@NonNull List<MTPolygon> polygons, double scale, boolean withBoundingBoxes,
+                             @NonNull OutputStream out) throws IOException {
+        if (!(scale > 0.0)) {
+            throw new InvalidParameterException("MTPolygonMapFile scale must be positive.");
+        }
+
+        final int psz = polygons.size();
+        final int entrySize = ENTRY_SIZE + (withBoundingBoxes ? BOX_SIZE : 0);
+        ByteBuffer table = ByteBuffer.allocate(psz * entrySize).order(ByteOrder.LITTLE_ENDIAN);
+        Bytes ids = new Bytes();
+        Bytes vertices = new Bytes();
+        long vertexCount = 0;
+
+        for (int p = 0; p < psz; p++) {
+            MTPolygon polygon = polygons.get(p);
+            if (!polygon.isClosed()) {
+                throw new InvalidParameterException("MTPolygonMapFile can only write closed polygons.");
+            }
+
+            Object pid = polygon.getPolygonId();
+            if (pid == null) {
+                table.putInt(-1);
+            } else {
+                table.putInt(ids.size);
+                writeId(pid, ids);
+            }
+
+            final int vsz = polygon.getVertexCount();
+            final int rsz = polygon.getRingCount();
+            table.putInt(vertices.size);
+            table.putInt(vsz);
+            table.putInt(rsz);
+            if (rsz > 1) {
+                // rings are kept one after another, so their lengths are enough to split vertices
+                for (int r = 0; r < rsz; r++) {
+                    long length = polygon.getRingEnd(r) - polygon.getRingStart(r);
+                    vertices.putVarint((length << 1) | (polygon.isHole(r) ? 1 : 0));
+                }
+            }
+            long px = 0, py = 0;
+            // the bounding box of the quantized vertices, which is the box of a decoded polygon
+            long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+            long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+            for (int i = 0; i < vsz; i++) {
+                long qx = quantize(polygon.getVertexX(i), scale);
+                long qy = quantize(polygon.getVertexY(i), scale);
+                vertices.putVarint(zigzagEncode(qx - px));
+                vertices.putVarint(zigzagEncode(qy - py));
+                px = qx;
+                py = qy;
+                minX = Math.min(minX, qx);
+                minY = Math.min(minY, qy);
+                maxX = Math.max(maxX, qx);
+                maxY = Math.max(maxY, qy);
+            }
+            vertexCount += vsz;
+
+            if (withBoundingBoxes) {
+                table.putDouble(minX / scale);
+                table.putDouble(minY / scale);
+                table.putDouble(maxX / scale);
+                table.putDouble(maxY / scale);
+            }
+        }
+
+        long idPool = HEADER_SIZE + (long)table.capacity();
+        long vertexData = idPool + ids.size;
+        if (vertexData + vertices.size > Integer.MAX_VALUE || vertexCount > Integer.MAX_VALUE) {
+            throw new InvalidParameterException("MTPolygonMapFile cannot hold a map over 2GB.");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putShort((short)VERSION);
+        header.putShort((short)(withBoundingBoxes ? FLAG_BOUNDING_BOX : 0));
+        header.putInt(psz);
+        header.putInt((int)vertexCount);
+        header.putDouble(scale);
+        header.putInt((int)idPool);
+        header.putInt((int)vertexData);
+
+        out.write(header.array());
+        out.write(table.array());
+        out.write(ids.bytes, 0, ids.size);
+        out.write(vertices.bytes, 0, vertices.size);
+        out.flush();
+    }
+
+    /**
+     * Convert polygon maps in the JSON format of {@link MTPolygonMapReader} into the binary
+     * format with bounding boxes.
+     *
+     * @param json a stream of polygon maps in JSON. It is not closed.
+     * @param scale a coordinate <code>v</code> is stored as <code>round(v * scale)</code>.
+     * @param out a stream to write to. It is not closed.
+     * @throws NullPointerException if any of the streams is null.
+     * @throws InvalidParameterException if the scale is not positive, an id is an object, an array
+     *      or a boolean, or a quantized coordinate is out of range.
+     * @throws IOException if the JSON cannot be read, or the stream cannot be written.
+     */
+    public static void convert(@NonNull InputStream json, double scale, @NonNull OutputStream out) throws IOException {
+        write(MTPolygonMapReader.read(json), scale, true, out);
+    }
+
+    // the position of a polygon entry in the table
+    private int entryOf(int index) {
+        if (index < 0 || this.polygonCount <= index) {
+            throw new IndexOutOfBoundsException("Polygon index " + index + " is out of " + this.polygonCount + " polygons.");
+        }
+        return HEADER_SIZE + index * this.entrySize;
+    }
+
+    // write an id with its type, so that it is read back in the same type.
+    private static void writeId(@NonNull Object pid, @NonNull Bytes ids) {
+        if (pid instanceof String) {
+            byte[] bytes = ((String)pid).getBytes(StandardCharsets.UTF_8);
+            ids.putByte(ID_STRING);
+            ids.putVarint(bytes.length);
+            ids.put(bytes);
+        } else if (pid instanceof Integer) {
+            ids.putByte(ID_INTEGER);
+            ids.putVarint(zigzagEncode((Integer)pid));
+        } else if (pid instanceof Long) {
+            ids.putByte(ID_LONG);
+            ids.putVarint(zigzagEncode((Long)pid));
+        } else if (pid instanceof Double) {
+            ids.putByte(ID_DOUBLE);
+            ids.putLong(Double.doubleToRawLongBits((Double)pid));
+        } else {
+            throw new InvalidParameterException("MTPolygonMapFile cannot write an id of " + pid.getClass().getName() + ".");
+        }
+    }
+
+    // read an id at a position of the id pool
+    @NonNull
+    private Object readId(int position) {
+        final int type = this.buffer.get(position) & 0xFF;
+        int[] cursor = {position + 1};
+        switch (type) {
+            case ID_STRING: {
+                int length = (int)readVarint(this.buffer, cursor);
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = this.buffer.get(cursor[0] + i);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case ID_INTEGER:
+                return (int)zigzagDecode(readVarint(this.buffer, cursor));
+            case ID_LONG:
+                return zigzagDecode(readVarint(this.buffer, cursor));
+            case ID_DOUBLE:
+                return this.buffer.getDouble(cursor[0]);
+            default:
+                throw new IllegalStateException("Unknown polygon id type " + type + ".");
+        }
+    }
+
+    private static long quantize(double v, double scale) {
+        double q = Math.rint(v * scale);
+        if (!(Math.abs(q) < 0x1p53)) {
+            throw new InvalidParameterException("MTPolygonMapFile coordinate " + v + " is out of range for the scale.");
+        }
+        return (long)q;
+    }
+
+    private static long zigzagEncode(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long zigzagDecode(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // read an unsigned LEB128 varint at cursor[0], and advance the cursor.
+    private static long readVarint(@NonNull ByteBuffer buf, @NonNull int[] cursor) {
+        long v = 0;
+        int shift = 0;
+        int pos = cursor[0];
+        while (true) {
+            byte b = buf.get(pos++);
+            v |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        cursor[0] = pos;
+        return v;
+    }
+
+    // a growable byte array
+    private static class Bytes {
+        byte[] bytes = new byte[4096];
+        int size = 0;
+
+        void put(@NonNull byte[] src) {
+            ensure(src.length);
+            System.arraycopy(src, 0, this.bytes, this.size, src.length);
+            this.size += src.length;
+        }
+
+        void putByte(int v) {
+            ensure(1);
+            this.bytes[this.size++] = (byte)v;
+        }
+
+        // a long in little endian
+        void putLong(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                this.bytes[this.size++] = (byte)(v >>> (i * 8));
+            }
+        }
+
+        void putVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                this.bytes[this.size++] = (byte)((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            this.bytes[this.size++] = (byte)v;
+        }
+
+        private void ensure(int more) {
+            if (this.size + more > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.size + more));
+            }
+        }
+    }
+
+    private class PolygonList extends AbstractList<MTPolygon> implements RandomAccess {
+        @Override
+        public MTPolygon get(int index) {
+            return getPolygon(index);
+        }
+
+        @Override
+        public int size() {
+            return polygonCount;
+        }
+    }
+}
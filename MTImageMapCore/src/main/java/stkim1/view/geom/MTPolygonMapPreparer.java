@@ -0,0 +1,140 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MTPolygonMapPreparer prepares a raw polygon map in bulk, for a map too large to close and index
+ * polygon by polygon on a single thread. Polygons are split across a <code>ForkJoinPool</code> to
+ * <ol>
+ *     <li>validate that every vertex is a finite number,</li>
+ *     <li>normalize open polygons by dropping repeated vertices, including a last vertex which
+ *     repeats the first one as in GeoJSON rings,</li>
+ *     <li>close them, which finds their bounding boxes and builds their edge buckets and
+ *     fixed-point vertices,</li>
+ * </ol>
+ * then the spatial index is bulk-loaded on the same pool. Every polygon is validated before any
+ * is normalized, so that a map with an invalid polygon is left as it was.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTPolygonMapPreparer {
+
+    // the number of polygons a task prepares without splitting further
+    static final int BATCH_SIZE = 256;
+
+    private MTPolygonMapPreparer() {
+        super();
+    }
+
+    /**
+     * Prepare a list of polygons and build the spatial index over them. Open polygons are
+     * normalized and closed in place. An open polygon left with less than three vertices stays
+     * open, and is not indexed. If a polygon is invalid, none of them is modified.
+     *
+     * @param pList a list of polygons, either open or closed.
+     * @param pool a pool to prepare on, or <code>null</code> to prepare on the calling thread.
+     * @return the spatial index over the polygons.
+     * @throws NullPointerException if the list or a polygon in it is null.
+     * @throws InvalidParameterException if a polygon has a vertex which is not a finite number.
+     */
+    @NonNull
+    public static MTPolygonIndex prepare(@NonNull List<MTPolygon> pList, @Nullable ForkJoinPool pool) {
+        return prepare(pList, pool, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Prepare a list of polygons and build the spatial index over them. Open polygons are closed
+     * with given options. Polygons closed already stay as they were closed.
+     *
+     * @param pList a list of polygons, either open or closed.
+     * @param pool a pool to prepare on, or <code>null</code> to prepare on the calling thread.
+     * @param options the options to close open polygons with.
+     * @return the spatial index over the polygons.
+     * @throws NullPointerException if the list, a polygon in it, or the options is null.
+     * @throws InvalidParameterException if a polygon has a vertex which is not a finite number.
+     * @see #prepare(List, ForkJoinPool)
+     */
+    @NonNull
+    public static MTPolygonIndex prepare(@NonNull List<MTPolygon> pList, @Nullable ForkJoinPool pool,
+                                         @NonNull MTPolygonOptions options) {
+        if (options == null) {
+            throw new NullPointerException("MTPolygonMapPreparer options must not be null.");
+        }
+        final MTPolygon[] polygons = pList.toArray(new MTPolygon[pList.size()]);
+        final AtomicInteger invalid = new AtomicInteger(polygons.length);
+        run(new Task(polygons, 0, polygons.length, invalid, null), pool);
+
+        // report the first invalid polygon on the calling thread, whichever task finds it
+        if (invalid.get() < polygons.length) {
+            throw new InvalidParameterException("MTPolygon index " + invalid.get() + " of " +
+                    polygons.length + " polygons has a vertex which is not a finite number.");
+        }
+
+        run(new Task(polygons, 0, polygons.length, invalid, options), pool);
+        return new MTPolygonIndex(pList, pool);
+    }
+
+    private static void run(@NonNull Task task, @Nullable ForkJoinPool pool) {
+        if (pool == null || task.end - task.start <= BATCH_SIZE) {
+            task.compute();
+        } else {
+            task.split = true;
+            pool.invoke(task);
+        }
+    }
+
+    // A task validates or normalizes a range of polygons, and splits into halves until the range
+    // is small enough.
+    private static final class Task extends RecursiveAction {
+
+        private final MTPolygon[] polygons;
+        private final int start;
+        private final int end;
+        // the lowest index of invalid polygons found so far
+        private final AtomicInteger invalid;
+        // null to validate, or the options to normalize and close validated polygons with
+        private final MTPolygonOptions normalizing;
+        // if the task should split, i.e. it runs in a pool
+        private boolean split;
+
+        Task(MTPolygon[] polygons, int start, int end, AtomicInteger invalid, MTPolygonOptions normalizing) {
+            super();
+            this.polygons = polygons;
+            this.start = start;
+            this.end = end;
+            this.invalid = invalid;
+            this.normalizing = normalizing;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.split && BATCH_SIZE < this.end - this.start) {
+                final int mid = (this.start + this.end) >>> 1;
+                final Task left = new Task(this.polygons, this.start, mid, this.invalid, this.normalizing);
+                final Task right = new Task(this.polygons, mid, this.end, this.invalid, this.normalizing);
+                left.split = true;
+                right.split = true;
+                invokeAll(left, right);
+                return;
+            }
+
+            for (int i = this.start; i < this.end; i++) {
+                if (this.normalizing != null) {
+                    this.polygons[i].normalize(this.normalizing);
+                } else if (!this.polygons[i].isFinite()) {
+                    this.invalid.accumulateAndGet(i, Math::min);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,644 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MTPolygonMapReader reads polygon maps in the JSON format below, and builds a list of
+ * <code>MTPolygon</code> straight from a stream.
+ * <pre>
+ * [
+ *     { "id": "Alabama", "vertices": [[409,298],[411,292],[409,279]] },
+ *     { "id": { "name": "Alaska", "dial": 907 }, "vertices": [[58,294],[56,293],[55,292]] },
+ *     { "vertices": [[163,213],[153,290],[131,288]], "description": "An area map without an id" }
+ * ]
+ * </pre>
+ * A multipolygon takes its holes in the <code>holes</code> field, and its further parts in the
+ * <code>parts</code> field, each of which has <code>vertices</code> and optional <code>holes</code>
+ * in turn.
+ * <pre>
+ * { "id": "Lesotho and South Africa",
+ *   "vertices": [[0,0],[90,0],[90,80],[0,80]],
+ *   "holes": [ [[40,30],[50,30],[50,40],[40,40]] ],
+ *   "parts": [ { "vertices": [[100,10],[120,10],[110,30]] } ] }
+ * </pre>
+ * It does not build a document tree, nor box coordinates. Coordinates are parsed from a small
+ * character buffer directly into packed vertex arrays shared by all the polygons read, so that
+ * memory stays close to the size of the coordinates.
+ * <p>
+ * The <code>id</code> field becomes the polygon id; a <code>String</code>, a <code>Long</code> or
+ * a <code>Double</code> for a number, a <code>Boolean</code>, a <code>Map</code> for an object, or
+ * a <code>List</code> for an array. Fields other than <code>id</code>, <code>vertices</code>,
+ * <code>holes</code>, and <code>parts</code> are skipped.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public class MTPolygonMapReader {
+
+    // exact powers of ten in double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private final MTPolygonOptions options;
+    private final char[] buffer = new char[8192];
+    private int pos = 0, limit = 0;
+    private long offset = 0;
+    private final StringBuilder text = new StringBuilder();
+
+    // packed vertices of all polygons
+    private double[] xs = new double[1024];
+    private double[] ys = new double[1024];
+    private int vertexCount = 0;
+
+    // rings of the polygon being read
+    private int[] ringLengths = new int[4];
+    private boolean[] ringHoles = new boolean[4];
+    private int ringCount = 0;
+
+    private MTPolygonMapReader(@NonNull Reader reader, @NonNull MTPolygonOptions options) {
+        super();
+        if (options == null) {
+            throw new NullPointerException("MTPolygonMapReader options must not be null.");
+        }
+        this.reader = reader;
+        this.options = options;
+    }
+
+    /**
+     * Read polygon maps in UTF-8 JSON from a stream. The stream is not closed.
+     *
+     * @param in a stream of polygon maps in JSON.
+     * @return a list of closed polygons in the order of the JSON array.
+     * @throws NullPointerException if the stream is null.
+     * @throws IOException if the stream cannot be read, the JSON is malformed, or a ring of a
+     *      polygon has less than three vertices.
+     */
+    @NonNull
+    public static List<MTPolygon> read(@NonNull InputStream in) throws IOException {
+        return read(in, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Read polygon maps in UTF-8 JSON from a stream, and close the polygons with given options.
+     * The stream is not closed.
+     *
+     * @param in a stream of polygon maps in JSON.
+     * @param options the options to close the polygons with.
+     * @return a list of closed polygons in the order of the JSON array.
+     * @throws NullPointerException if the stream or the options is null.
+     * @throws IOException if the stream cannot be read, the JSON is malformed, or a ring of a
+     *      polygon has less than three vertices.
+     * @see #read(InputStream)
+     */
+    @NonNull
+    public static List<MTPolygon> read(@NonNull InputStream in, @NonNull MTPolygonOptions options) throws IOException {
+        return read(new InputStreamReader(in, StandardCharsets.UTF_8), options);
+    }
+
+    /**
+     * Read polygon maps in JSON from a reader. The reader is not closed.
+     *
+     * @param reader a reader of polygon maps in JSON.
+     * @return a list of closed polygons in the order of the JSON array.
+     * @throws NullPointerException if the reader is null.
+     * @throws IOException if the reader cannot be read, the JSON is malformed, or a ring of a
+     *      polygon has less than three vertices.
+     * @see #read(InputStream)
+     */
+    @NonNull
+    public static List<MTPolygon> read(@NonNull Reader reader) throws IOException {
+        return read(reader, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Read polygon maps in JSON from a reader, and close the polygons with given options.
+     * The reader is not closed.
+     *
+     * @param reader a reader of polygon maps in JSON.
+     * @param options the options to close the polygons with.
+     * @return a list of closed polygons in the order of the JSON array.
+     * @throws NullPointerException if the reader or the options is null.
+     * @throws IOException if the reader cannot be read, the JSON is malformed, or a ring of a
+     *      polygon has less than three vertices.
+     * @see #read(InputStream)
+     */
+    @NonNull
+    public static List<MTPolygon> read(@NonNull Reader reader, @NonNull MTPolygonOptions options) throws IOException {
+        return new MTPolygonMapReader(reader, options).readPolygons();
+    }
+
+    @NonNull
+    private List<MTPolygon> readPolygons() throws IOException {
+        List<Object> ids = new ArrayList<>();
+        // rings of multipolygons, and null for a polygon of a single ring
+        List<int[]> rings = new ArrayList<>();
+        List<boolean[]> holes = new ArrayList<>();
+        int[] ranges = new int[64];
+        int count = 0;
+
+        expect('[');
+        if (peek() == ']') {
+            read();
+        } else {
+            do {
+                if (count * 2 + 2 > ranges.length) {
+                    ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                }
+                ids.add(readPolygon(count, ranges));
+                final boolean single = this.ringCount == 1;
+                rings.add(single ? null : Arrays.copyOf(this.ringLengths, this.ringCount));
+                holes.add(single ? null : Arrays.copyOf(this.ringHoles, this.ringCount));
+                count++;
+            } while (nextInList(']'));
+        }
+        if (peek() != -1) {
+            throw malformed("trailing characters after the polygon array");
+        }
+
+        // every polygon shares the trimmed arrays
+        final double[] pxs = Arrays.copyOf(this.xs, this.vertexCount);
+        final double[] pys = Arrays.copyOf(this.ys, this.vertexCount);
+        this.xs = null;
+        this.ys = null;
+
+        List<MTPolygon> polygons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (rings.get(i) == null) {
+                polygons.add(new MTPolygon(ids.get(i), pxs, pys, ranges[i * 2], ranges[i * 2 + 1], this.options));
+            } else {
+                polygons.add(new MTPolygon(ids.get(i), pxs, pys, ranges[i * 2], rings.get(i), holes.get(i), this.options));
+            }
+        }
+        return polygons;
+    }
+
+    // read a polygon object, record its vertex range and rings, and return its id.
+    private Object readPolygon(int index, @NonNull int[] ranges) throws IOException {
+        Object pid = null;
+        boolean hasVertices = false;
+        boolean hasOuterRing = false;
+        ranges[index * 2] = this.vertexCount;
+        this.ringCount = 0;
+
+        expect('{');
+        if (peek() == '}') {
+            read();
+        } else {
+            do {
+                String key = readString();
+                expect(':');
+                if ("id".equals(key)) {
+                    pid = readValue();
+                } else if ("vertices".equals(key)) {
+                    if (hasVertices) {
+                        throw malformed("polygon #" + index + " has more than one vertices field");
+                    }
+                    readRing(index, false);
+                    hasVertices = true;
+                    hasOuterRing = true;
+                } else if ("holes".equals(key)) {
+                    readHoles(index);
+                } else if ("parts".equals(key)) {
+                    hasOuterRing |= readParts(index);
+                } else {
+                    skipValue();
+                }
+            } while (nextInList('}'));
+        }
+
+        if (!hasOuterRing) {
+            throw new IOException("Polygon #" + index + " has no vertices field.");
+        }
+        ranges[index * 2 + 1] = this.vertexCount - ranges[index * 2];
+        return pid;
+    }
+
+    // read a ring of vertices into the packed arrays and record it.
+    private void readRing(int index, boolean hole) throws IOException {
+        final int length = readVertices();
+        if (length < 3) {
+            throw new IOException("Polygon #" + index + " must have at least three vertices.");
+        }
+        if (this.ringCount == this.ringLengths.length) {
+            this.ringLengths = Arrays.copyOf(this.ringLengths, this.ringCount * 2);
+            this.ringHoles = Arrays.copyOf(this.ringHoles, this.ringCount * 2);
+        }
+        this.ringLengths[this.ringCount] = length;
+        this.ringHoles[this.ringCount] = hole;
+        this.ringCount++;
+    }
+
+    // read [ring, ring, ...] of holes.
+    private void readHoles(int index) throws IOException {
+        expect('[');
+        if (peek() == ']') {
+            read();
+            return;
+        }
+        do {
+            readRing(index, true);
+        } while (nextInList(']'));
+    }
+
+    // read [{ "vertices": ring, "holes": [ring, ...] }, ...] of parts. true if any part is read.
+    private boolean readParts(int index) throws IOException {
+        boolean hasPart = false;
+        expect('[');
+        if (peek() == ']') {
+            read();
+            return false;
+        }
+        do {
+            boolean hasVertices = false;
+            expect('{');
+            if (peek() == '}') {
+                read();
+            } else {
+                do {
+                    String key = readString();
+                    expect(':');
+                    if ("vertices".equals(key)) {
+                        if (hasVertices) {
+                            throw malformed("a part of polygon #" + index + " has more than one vertices field");
+                        }
+                        readRing(index, false);
+                        hasVertices = true;
+                    } else if ("holes".equals(key)) {
+                        readHoles(index);
+                    } else {
+                        skipValue();
+                    }
+                } while (nextInList('}'));
+            }
+            if (!hasVertices) {
+                throw new IOException("A part of polygon #" + index + " has no vertices field.");
+            }
+            hasPart = true;
+        } while (nextInList(']'));
+        return hasPart;
+    }
+
+    // read [[x,y],[x,y],...] into the packed arrays and return the number of vertices.
+    private int readVertices() throws IOException {
+        int count = 0;
+        expect('[');
+        if (peek() == ']') {
+            read();
+            return 0;
+        }
+        do {
+            expect('[');
+            double x = readNumber();
+            expect(',');
+            double y = readNumber();
+            expect(']');
+
+            if (this.vertexCount == this.xs.length) {
+                this.xs = Arrays.copyOf(this.xs, this.xs.length * 2);
+                this.ys = Arrays.copyOf(this.ys, this.ys.length * 2);
+            }
+            this.xs[this.vertexCount] = x;
+            this.ys[this.vertexCount] = y;
+            this.vertexCount++;
+            count++;
+        } while (nextInList(']'));
+        return count;
+    }
+
+    // read any JSON value as an id
+    private Object readValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '"':
+                return readString();
+            case '{': {
+                read();
+                Map<String, Object> map = new LinkedHashMap<>();
+                if (peek() == '}') {
+                    read();
+                    return map;
+                }
+                do {
+                    String key = readString();
+                    expect(':');
+                    map.put(key, readValue());
+                } while (nextInList('}'));
+                return map;
+            }
+            case '[': {
+                read();
+                List<Object> list = new ArrayList<>();
+                if (peek() == ']') {
+                    read();
+                    return list;
+                }
+                do {
+                    list.add(readValue());
+                } while (nextInList(']'));
+                return list;
+            }
+            case 't':
+                readLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                readLiteral("null");
+                return null;
+            default: {
+                double number = readNumber();
+                if (number == Math.rint(number) && Math.abs(number) < 0x1p53) {
+                    return (long)number;
+                }
+                return number;
+            }
+        }
+    }
+
+    // skip any JSON value without building it
+    private void skipValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '"':
+                skipString();
+                return;
+            case '{':
+                read();
+                if (peek() == '}') {
+                    read();
+                    return;
+                }
+                do {
+                    skipString();
+                    expect(':');
+                    skipValue();
+                } while (nextInList('}'));
+                return;
+            case '[':
+                read();
+                if (peek() == ']') {
+                    read();
+                    return;
+                }
+                do {
+                    skipValue();
+                } while (nextInList(']'));
+                return;
+            case 't':
+                readLiteral("true");
+                return;
+            case 'f':
+                readLiteral("false");
+                return;
+            case 'n':
+                readLiteral("null");
+                return;
+            default:
+                readNumber();
+        }
+    }
+
+    // after an element of an array or an object, tell if another element follows.
+    private boolean nextInList(char close) throws IOException {
+        int c = read();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw malformed("expected ',' or '" + close + "'");
+    }
+
+    @NonNull
+    private String readString() throws IOException {
+        expect('"');
+        this.text.setLength(0);
+        while (true) {
+            int c = readRaw();
+            if (c == '"') {
+                return this.text.toString();
+            }
+            if (c == '\\') {
+                this.text.append(readEscape());
+            } else if (c < 0x20) {
+                throw malformed("unterminated string");
+            } else {
+                this.text.append((char)c);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+        while (true) {
+            int c = readRaw();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            } else if (c < 0x20) {
+                throw malformed("unterminated string");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = readRaw();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u': {
+                int u = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = Character.digit(readRaw(), 16);
+                    if (h < 0) {
+                        throw malformed("invalid unicode escape");
+                    }
+                    u = (u << 4) | h;
+                }
+                return (char)u;
+            }
+            default:
+                throw malformed("invalid escape");
+        }
+    }
+
+    private void readLiteral(@NonNull String literal) throws IOException {
+        skipWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (readRaw() != literal.charAt(i)) {
+                throw malformed("expected " + literal);
+            }
+        }
+    }
+
+    // Parse a JSON number without allocation. Numbers with up to 18 significant digits and a
+    // small exponent are computed exactly with a power of ten. Others fall back to the JDK.
+    private double readNumber() throws IOException {
+        skipWhitespace();
+        this.text.setLength(0);
+
+        boolean negative = false;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        int exponent = 0;
+        boolean simple = true;
+
+        int c = peekRaw();
+        if (c == '-') {
+            negative = true;
+            this.text.append((char)readRaw());
+            c = peekRaw();
+        }
+        if (c < '0' || '9' < c) {
+            throw malformed("expected a number");
+        }
+        while ('0' <= c && c <= '9') {
+            this.text.append((char)readRaw());
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                simple = false;
+            }
+            c = peekRaw();
+        }
+        if (c == '.') {
+            this.text.append((char)readRaw());
+            c = peekRaw();
+            if (c < '0' || '9' < c) {
+                throw malformed("expected a digit");
+            }
+            while ('0' <= c && c <= '9') {
+                this.text.append((char)readRaw());
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    scale++;
+                } else {
+                    simple = false;
+                }
+                c = peekRaw();
+            }
+        }
+        if (c == 'e' || c == 'E') {
+            this.text.append((char)readRaw());
+            c = peekRaw();
+            boolean negativeExponent = false;
+            if (c == '+' || c == '-') {
+                negativeExponent = (c == '-');
+                this.text.append((char)readRaw());
+                c = peekRaw();
+            }
+            if (c < '0' || '9' < c) {
+                throw malformed("expected a digit");
+            }
+            while ('0' <= c && c <= '9') {
+                this.text.append((char)readRaw());
+                if (exponent < 10000) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+                c = peekRaw();
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        int power = exponent - scale;
+        if (simple && mantissa < (1L << 53) && -22 <= power && power <= 22) {
+            double value = (power < 0) ? mantissa / POWERS_OF_TEN[-power] : mantissa * POWERS_OF_TEN[power];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(this.text.toString());
+    }
+
+    private void expect(char expected) throws IOException {
+        if (read() != expected) {
+            throw malformed("expected '" + expected + "'");
+        }
+    }
+
+    // the next character after whitespace, without consuming it. -1 at the end of stream.
+    private int peek() throws IOException {
+        skipWhitespace();
+        return peekRaw();
+    }
+
+    // the next character after whitespace. -1 at the end of stream.
+    private int read() throws IOException {
+        skipWhitespace();
+        return readRaw();
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            int c = peekRaw();
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                this.pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int peekRaw() throws IOException {
+        if (this.pos == this.limit && !fill()) {
+            return -1;
+        }
+        return this.buffer[this.pos];
+    }
+
+    private int readRaw() throws IOException {
+        if (this.pos == this.limit && !fill()) {
+            throw malformed("unexpected end of stream");
+        }
+        return this.buffer[this.pos++];
+    }
+
+    private boolean fill() throws IOException {
+        this.offset += this.limit;
+        this.pos = 0;
+        this.limit = 0;
+        int n = this.reader.read(this.buffer, 0, this.buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        this.limit = n;
+        return true;
+    }
+
+    @NonNull
+    private IOException malformed(@NonNull String reason) {
+        return new IOException("Malformed polygon map JSON at offset " + (this.offset + this.pos) + ": " + reason + ".");
+    }
+}
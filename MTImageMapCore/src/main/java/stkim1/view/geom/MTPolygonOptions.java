@@ -0,0 +1,116 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+import java.security.InvalidParameterException;
+
+/**
+ * MTPolygonOptions decides how a polygon prepares itself for point tests when it is closed; from
+ * how many vertices it buckets its edges, whether it keeps fixed-point vertices, and whether it
+ * checks its octagonal bounds. The options are given to each polygon, reader, or preparer, so that
+ * maps closed with different options can live side by side in a process.
+ * <p>
+ * Options are immutable. Derive new options from {@link #DEFAULT} with the <code>with</code>
+ * methods, e.g.
+ * <pre>
+ * MTPolygonOptions exact = MTPolygonOptions.DEFAULT.withFixedPointGeometry(true);
+ * List&lt;MTPolygon&gt; map = MTPolygonMapReader.read(stream, exact);
+ * </pre>
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTPolygonOptions {
+
+    // the default number of vertices from which edges are bucketed
+    private static final int DEFAULT_EDGE_BUCKET_THRESHOLD = 128;
+
+    /**
+     * The options polygons are closed with unless told otherwise; edges are bucketed from 128
+     * vertices, the fixed-point geometry mode is off, and octagonal bounds are checked.
+     */
+    public static final MTPolygonOptions DEFAULT = new MTPolygonOptions(DEFAULT_EDGE_BUCKET_THRESHOLD, false, true);
+
+    private final int edgeBucketThreshold;
+    private final boolean fixedPointGeometry;
+    private final boolean octagonalBounds;
+
+    private MTPolygonOptions(int edgeBucketThreshold, boolean fixedPointGeometry, boolean octagonalBounds) {
+        super();
+        this.edgeBucketThreshold = edgeBucketThreshold;
+        this.fixedPointGeometry = fixedPointGeometry;
+        this.octagonalBounds = octagonalBounds;
+    }
+
+    /**
+     * Set the number of vertices from which a polygon buckets its edges when it is closed.
+     * Bucketing takes a few integers per edge, and pays off for a polygon with hundreds of
+     * vertices or more. Each large ring of a multipolygon buckets its own edges.
+     *
+     * @param threshold the number of vertices. Pass <code>Integer.MAX_VALUE</code> to never bucket.
+     * @return options with the threshold.
+     * @throws InvalidParameterException if the threshold is less than three.
+     */
+    @NonNull
+    public MTPolygonOptions withEdgeBucketThreshold(int threshold) {
+        if (threshold < 3) {
+            throw new InvalidParameterException("MTPolygon edge bucket threshold must be at least three.");
+        }
+        return new MTPolygonOptions(threshold, this.fixedPointGeometry, this.octagonalBounds);
+    }
+
+    /**
+     * Turn the fixed-point geometry mode on or off. In the mode, a polygon keeps its vertices as
+     * fixed-point integers with 8 fraction bits if every vertex is a multiple of 1/256 and its
+     * magnitude is less than 2^22, e.g. integer pixel coordinates. Such a polygon tests any point,
+     * on the grid or not, with exact arithmetic, so that a point is never misclassified however
+     * close it is to an edge.
+     * <p>
+     * A multipolygon of several rings does not keep fixed-point vertices. It falls back to the
+     * default <code>double</code> test, which truncates the cross product of <code>isLeft</code>,
+     * in either mode.
+     *
+     * @param enabled <code>true</code> to turn the fixed-point geometry mode on.
+     * @return options with the mode.
+     */
+    @NonNull
+    public MTPolygonOptions withFixedPointGeometry(boolean enabled) {
+        return new MTPolygonOptions(this.edgeBucketThreshold, enabled, this.octagonalBounds);
+    }
+
+    /**
+     * Turn the octagonal bounds check on or off. The octagonal bounds of a polygon are its
+     * bounding box with the corners cut off by the diagonal lines through its extreme vertices,
+     * i.e. an 8-DOP. Points in the bounding box but out of the octagon, which are common around a
+     * diagonal polygon, are rejected in constant time without a winding number test.
+     *
+     * @param enabled <code>true</code> to check the octagonal bounds.
+     * @return options with the check.
+     */
+    @NonNull
+    public MTPolygonOptions withOctagonalBounds(boolean enabled) {
+        return new MTPolygonOptions(this.edgeBucketThreshold, this.fixedPointGeometry, enabled);
+    }
+
+    /**
+     * @return the number of vertices from which a polygon buckets its edges.
+     */
+    public int getEdgeBucketThreshold() {
+        return this.edgeBucketThreshold;
+    }
+
+    /**
+     * @return <code>true</code> if the fixed-point geometry mode is on.
+     */
+    public boolean isFixedPointGeometry() {
+        return this.fixedPointGeometry;
+    }
+
+    /**
+     * @return <code>true</code> if polygons check their octagonal bounds.
+     */
+    public boolean isOctagonalBounds() {
+        return this.octagonalBounds;
+    }
+}
@@ -0,0 +1,117 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTPolygonSimplifier is a utility class of MTPolygon to simplify the outline of a closed polygon
+ * with the Douglas-Peucker algorithm. The ring is split at its first vertex and the vertex
+ * farthest from it, and each half is simplified, so that both of them are always kept.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+class MTPolygonSimplifier {
+
+    private MTPolygonSimplifier() {
+        super();
+    }
+
+    /**
+     * Find the vertices to keep so that no dropped vertex is farther than a tolerance from the
+     * simplified outline.
+     *
+     * @param xs x parts of the vertices.
+     * @param ys y parts of the vertices.
+     * @param offset the position of the first vertex in the arrays.
+     * @param length the number of vertices.
+     * @param tolerance the largest distance a dropped vertex can be off the simplified outline.
+     * @return the indices of the kept vertices relative to the offset, in ascending order.
+     */
+    @NonNull
+    static int[] simplify(@NonNull double[] xs, @NonNull double[] ys, int offset, int length,
+                          double tolerance) {
+        final boolean[] keep = new boolean[length];
+        final double x0 = xs[offset], y0 = ys[offset];
+
+        // the vertex farthest from the first one splits the ring into two open chains
+        int far = 0;
+        double farthest = 0.0;
+        for (int i = 1; i < length; i++) {
+            final double dx = xs[offset + i] - x0, dy = ys[offset + i] - y0;
+            final double d = dx * dx + dy * dy;
+            if (d > farthest) {
+                farthest = d;
+                far = i;
+            }
+        }
+        keep[0] = true;
+        keep[far] = true;
+
+        // chains are (start, end) pairs of vertex indices. the end 'length' wraps to the first.
+        final double limit = tolerance * tolerance;
+        final int[] stack = new int[length * 2 + 4];
+        int top = 0;
+        if (far > 0) {
+            stack[top++] = 0;
+            stack[top++] = far;
+            stack[top++] = far;
+            stack[top++] = length;
+        }
+        while (top > 0) {
+            final int end = stack[--top];
+            final int start = stack[--top];
+            if (end - start < 2) {
+                continue;
+            }
+
+            final int e = (end == length) ? 0 : end;
+            final double ax = xs[offset + start], ay = ys[offset + start];
+            final double bx = xs[offset + e], by = ys[offset + e];
+            int split = -1;
+            double worst = limit;
+            for (int i = start + 1; i < end; i++) {
+                final double d = distanceSquared(xs[offset + i], ys[offset + i], ax, ay, bx, by);
+                if (d > worst) {
+                    worst = d;
+                    split = i;
+                }
+            }
+            if (split >= 0) {
+                keep[split] = true;
+                stack[top++] = start;
+                stack[top++] = split;
+                stack[top++] = split;
+                stack[top++] = end;
+            }
+        }
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        final int[] indices = new int[kept];
+        for (int i = 0, k = 0; i < length; i++) {
+            if (keep[i]) {
+                indices[k++] = i;
+            }
+        }
+        return indices;
+    }
+
+    // the squared distance from a point (px, py) to a segment (a-b)
+    private static double distanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        final double dx = bx - ax, dy = by - ay;
+        final double len = dx * dx + dy * dy;
+        double t = (len > 0.0) ? ((px - ax) * dx + (py - ay) * dy) / len : 0.0;
+        if (t < 0.0) {
+            t = 0.0;
+        } else if (t > 1.0) {
+            t = 1.0;
+        }
+        final double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+}
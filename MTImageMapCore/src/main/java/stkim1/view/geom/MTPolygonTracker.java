@@ -0,0 +1,307 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * MTPolygonTracker follows a moving point, e.g. a dragging finger or a hovering stylus, and tells
+ * which polygons the point enters and leaves. It exploits the coherence between two consecutive
+ * points so that a move costs far less than a fresh query.
+ * <ul>
+ *     <li>When a hit map is given and the point stays in a cell covered by one polygon or
+ *     none, nothing is computed at all.</li>
+ *     <li>When the point is still in the polygon it was in, only that polygon's spatial
+ *     neighbours, the polygons whose bounding box intersects its bounding box, are tested. No
+ *     other polygon can contain the point.</li>
+ *     <li>Otherwise, the spatial index is queried.</li>
+ * </ul>
+ * Neighbours of a polygon are found once and kept until the index is updated. With a containment
+ * tree, polygons are pruned the same way as a query of the tree. A tracker does not allocate in
+ * the steady state, and is not thread-safe.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public class MTPolygonTracker {
+
+    private final MTPolygonIndex index;
+    // the containment tree of the same polygons, if polygons are nested
+    private MTPolygonHierarchy hierarchy;
+    // spatial neighbours of each polygon, found lazily, and the update of the index they are for
+    private int[][] neighbors;
+    private int[] neighborMods;
+    // the update of the index the tracker has seen last
+    private int modCount;
+
+    // polygons containing the point in ascending order, and the next ones
+    private int[] current;
+    private int currentCount = 0;
+    private int[] next;
+    private int[] entered;
+    private int enteredCount = 0;
+    private int[] exited;
+    private int exitedCount = 0;
+
+    // the last hit map cell, if every point in it has the same result
+    private MTPolygonHitMap lastGrid = null;
+    private int lastCell = -1;
+
+    /**
+     * Build a tracker over polygons in a spatial index.
+     *
+     * @param index the spatial index of polygons.
+     * @throws NullPointerException if the index is null.
+     */
+    public MTPolygonTracker(@NonNull MTPolygonIndex index) {
+        this(index, null);
+    }
+
+    /**
+     * Build a tracker over polygons in a spatial index and their containment tree. A polygon is
+     * entered only when its ancestors are, as a query of the tree finds it.
+     *
+     * @param index the spatial index of polygons.
+     * @param hierarchy the containment tree over the same index, or <code>null</code> for none.
+     * @throws NullPointerException if the index is null.
+     */
+    public MTPolygonTracker(@NonNull MTPolygonIndex index, @Nullable MTPolygonHierarchy hierarchy) {
+        super();
+        this.index = index;
+        this.hierarchy = hierarchy;
+        this.modCount = index.getModCount();
+        final int psz = index.size();
+        this.neighbors = new int[psz][];
+        this.neighborMods = new int[psz];
+        this.current = new int[psz];
+        this.next = new int[psz];
+        this.entered = new int[psz];
+        this.exited = new int[psz];
+    }
+
+    /**
+     * Move the tracked point to (x, y).
+     *
+     * @param x x part of a point.
+     * @param y y part of a point.
+     * @param grid an optional hit map of the same polygons to skip work while the point stays in
+     *      a cell. Pass <code>null</code> if there is none.
+     * @return <code>true</code> if the point entered or left any polygon.
+     */
+    public boolean update(double x, double y, @Nullable MTPolygonHitMap grid) {
+        this.enteredCount = 0;
+        this.exitedCount = 0;
+        if (this.modCount != this.index.getModCount()) {
+            followIndex();
+        }
+
+        int nsz = -1;
+        if (grid != null) {
+            final int cell = grid.cellIndexOf(x, y);
+            if (cell >= 0 && cell == this.lastCell && grid == this.lastGrid) {
+                // the point has not left a cell with a single answer
+                return false;
+            }
+            final int hit = grid.lookup(x, y);
+            if (hit == MTPolygonHitMap.MIXED) {
+                this.lastCell = -1;
+            } else {
+                this.lastGrid = grid;
+                this.lastCell = cell;
+                nsz = 0;
+                if (hit >= 0) {
+                    this.next[nsz++] = hit;
+                }
+            }
+        } else {
+            this.lastCell = -1;
+        }
+
+        if (nsz < 0 && this.currentCount > 0) {
+            nsz = findAround(this.current[0], x, y);
+            if (nsz >= 0 && this.hierarchy != null) {
+                nsz = this.hierarchy.prune(this.next, 0, nsz);
+            }
+        }
+        if (nsz < 0) {
+            nsz = (this.hierarchy != null) ? this.hierarchy.findPolygonIndices(x, y, this.next) :
+                    this.index.findPolygonIndices(x, y, this.next);
+        }
+        return commit(nsz);
+    }
+
+    /**
+     * Replace the containment tree, e.g. when it is built again or dropped. The next update
+     * follows it.
+     *
+     * @param hierarchy the containment tree over the same index, or <code>null</code> for none.
+     */
+    public void setHierarchy(@Nullable MTPolygonHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.lastCell = -1;
+    }
+
+    /**
+     * Leave every polygon the point is in, e.g. when a finger is lifted.
+     *
+     * @return <code>true</code> if the point left any polygon.
+     */
+    public boolean clear() {
+        this.enteredCount = 0;
+        this.exitedCount = 0;
+        this.lastCell = -1;
+        return commit(0);
+    }
+
+    /**
+     * Forget a polygon removed from the index, or replaced, without telling that the point left
+     * it. The next update finds if the point is in the polygon at the index number again.
+     *
+     * @param index the index number of a polygon.
+     * @return <code>true</code> if the point was in the polygon.
+     */
+    public boolean remove(int index) {
+        this.lastCell = -1;
+        for (int i = 0; i < this.currentCount; i++) {
+            if (this.current[i] == index) {
+                System.arraycopy(this.current, i + 1, this.current, i, this.currentCount - i - 1);
+                this.currentCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of polygons the point is in.
+     */
+    public int getCurrentCount() {
+        return this.currentCount;
+    }
+
+    /**
+     * @param i the position in the polygons the point is in.
+     * @return the index number of a polygon the point is in.
+     */
+    public int getCurrent(int i) {
+        return this.current[i];
+    }
+
+    /**
+     * @return the number of polygons the point entered by the last update.
+     */
+    public int getEnteredCount() {
+        return this.enteredCount;
+    }
+
+    /**
+     * @param i the position in the polygons the point entered.
+     * @return the index number of a polygon the point entered by the last update.
+     */
+    public int getEntered(int i) {
+        return this.entered[i];
+    }
+
+    /**
+     * @return the number of polygons the point left by the last update.
+     */
+    public int getExitedCount() {
+        return this.exitedCount;
+    }
+
+    /**
+     * @param i the position in the polygons the point left.
+     * @return the index number of a polygon the point left by the last update.
+     */
+    public int getExited(int i) {
+        return this.exited[i];
+    }
+
+    // Test the last polygon first, then only its neighbours. Returns -1 if the point left it.
+    private int findAround(int last, double x, double y) {
+        final MTPolygon polygon = this.index.polygonAt(last);
+        if (polygon == null || !polygon.isPointInBBox(x, y) || !polygon.isPointInPolygon(x, y)) {
+            return -1;
+        }
+
+        int[] around = this.neighbors[last];
+        if (around == null || this.neighborMods[last] != this.modCount) {
+            around = findNeighbors(last);
+            this.neighbors[last] = around;
+            this.neighborMods[last] = this.modCount;
+        }
+
+        // neighbours are in ascending order. keep the result sorted with the last polygon in it.
+        int nsz = 0;
+        boolean placed = false;
+        for (int q : around) {
+            if (!placed && last < q) {
+                this.next[nsz++] = last;
+                placed = true;
+            }
+            final MTPolygon other = this.index.polygonAt(q);
+            if (other.isPointInBBox(x, y) && other.isPointInPolygon(x, y)) {
+                this.next[nsz++] = q;
+            }
+        }
+        if (!placed) {
+            this.next[nsz++] = last;
+        }
+        return nsz;
+    }
+
+    // polygons whose bounding box intersects that of a polygon, except itself, in ascending order
+    @NonNull
+    private int[] findNeighbors(int p) {
+        MTPolygonBoundingBox box = this.index.polygonAt(p).getBoundingBox();
+        int found = this.index.search(box.minVertex.x, box.minVertex.y, box.maxVertex.x, box.maxVertex.y, this.entered);
+        int[] around = new int[found - 1];
+        for (int i = 0, k = 0; i < found; i++) {
+            if (this.entered[i] != p) {
+                around[k++] = this.entered[i];
+            }
+        }
+        Arrays.sort(around);
+        return around;
+    }
+
+    // The index is updated. Hit map cells and neighbours found before might be out of date, and
+    // buffers grow with the polygons added.
+    private void followIndex() {
+        this.modCount = this.index.getModCount();
+        this.lastCell = -1;
+        final int psz = this.index.size();
+        if (this.current.length < psz) {
+            final int capacity = Math.max(psz, this.current.length + (this.current.length >> 1));
+            this.neighbors = Arrays.copyOf(this.neighbors, capacity);
+            this.neighborMods = Arrays.copyOf(this.neighborMods, capacity);
+            this.current = Arrays.copyOf(this.current, capacity);
+            this.next = new int[capacity];
+            this.entered = new int[capacity];
+            this.exited = new int[capacity];
+        }
+    }
+
+    // diff the next polygons against the current ones, then make them current
+    private boolean commit(int nsz) {
+        int i = 0, j = 0;
+        while (i < this.currentCount || j < nsz) {
+            if (j == nsz || (i < this.currentCount && this.current[i] < this.next[j])) {
+                this.exited[this.exitedCount++] = this.current[i++];
+            } else if (i == this.currentCount || this.next[j] < this.current[i]) {
+                this.entered[this.enteredCount++] = this.next[j++];
+            } else {
+                i++;
+                j++;
+            }
+        }
+
+        int[] swap = this.current;
+        this.current = this.next;
+        this.next = swap;
+        this.currentCount = nsz;
+        return this.enteredCount > 0 || this.exitedCount > 0;
+    }
+}
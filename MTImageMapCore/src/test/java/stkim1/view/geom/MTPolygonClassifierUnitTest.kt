@@ -0,0 +1,96 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import java.io.File
+import java.security.InvalidParameterException
+import java.util.Random
+import java.util.concurrent.ForkJoinPool
+
+class MTPolygonClassifierUnitTest {
+
+    private val polygons = File("../sample/assets/us_states.json").inputStream().use { MTPolygonMapReader.read(it) }
+
+    private fun randomPoints(count: Int): DoubleArray {
+        val rnd = Random(11L)
+        return DoubleArray(count * 2) { if (it % 2 == 0) rnd.nextDouble() * 620.0 - 10.0 else rnd.nextDouble() * 400.0 - 10.0 }
+    }
+
+    @Test
+    fun check_classifyMatchesIndexQuery() {
+        val points = randomPoints(50000)
+        val index = MTPolygonIndex(polygons)
+        val found = IntArray(polygons.size)
+        val expected = IntArray(points.size / 2) {
+            if (index.findPolygonIndices(points[it * 2], points[it * 2 + 1], found) == 0) MTPolygonClassifier.NONE else found[0]
+        }
+
+        val classifier = MTPolygonClassifier(polygons)
+        val sequential = IntArray(expected.size)
+        classifier.classify(points, sequential)
+        assertArrayEquals(expected, sequential)
+
+        val pool = ForkJoinPool(4)
+        try {
+            val parallel = IntArray(expected.size)
+            classifier.classify(points, parallel, pool)
+            assertArrayEquals(expected, parallel)
+
+            val floats = FloatArray(points.size) { points[it].toFloat() }
+            val fromFloats = IntArray(expected.size)
+            classifier.classify(floats, fromFloats, pool)
+            val fromDoubles = IntArray(expected.size)
+            classifier.classify(DoubleArray(floats.size) { floats[it].toDouble() }, fromDoubles)
+            assertArrayEquals(fromDoubles, fromFloats)
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun check_classifyAllOverlappingPolygons() {
+        // squares of 40 on a pitch of 25 overlap their neighbours
+        val squares = ArrayList<MTPolygon>()
+        for (r in 0 until 20) {
+            for (c in 0 until 20) {
+                val x = c * 25.0
+                val y = r * 25.0
+                squares.add(MTPolygon(squares.size, listOf(MTPoint(x, y), MTPoint(x + 40.0, y), MTPoint(x + 40.0, y + 40.0), MTPoint(x, y + 40.0))))
+            }
+        }
+        val rnd = Random(5L)
+        val points = DoubleArray(40000) { rnd.nextDouble() * 520.0 - 10.0 }
+        val index = MTPolygonIndex(squares)
+        val found = IntArray(squares.size)
+
+        val classifier = MTPolygonClassifier(index)
+        val pool = ForkJoinPool(4)
+        try {
+            for (p in listOf(null, pool)) {
+                val offsets = IntArray(points.size / 2 + 1)
+                val indices = classifier.classifyAll(points, offsets, p)
+                assertEquals(indices.size, offsets[points.size / 2])
+                for (i in 0 until points.size / 2) {
+                    val n = index.findPolygonIndices(points[i * 2], points[i * 2 + 1], found)
+                    assertArrayEquals(found.copyOf(n), indices.copyOfRange(offsets[i], offsets[i + 1]))
+                }
+            }
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun check_pointsNotInPairs() {
+        val classifier = MTPolygonClassifier(polygons)
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            classifier.classify(DoubleArray(3), IntArray(2))
+        }
+        assertEquals("MTPolygonClassifier takes points in x, y pairs.", exception.message)
+        assertThrows(InvalidParameterException::class.java) {
+            classifier.classifyAll(FloatArray(4), IntArray(2), null)
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.Random
+
+class MTPolygonHierarchyUnitTest {
+
+    private fun square(id: Any, x: Double, y: Double, size: Double): MTPolygon {
+        return MTPolygon(id, listOf(MTPoint(x, y), MTPoint(x + size, y), MTPoint(x + size, y + size), MTPoint(x, y + size)))
+    }
+
+    // countries of 4 x 4 states, each of 3 x 3 counties, inset from their parents
+    private fun nestedMap(): List<MTPolygon> {
+        val polygons = ArrayList<MTPolygon>()
+        for (c in 0 until 4) {
+            val cx = c * 400.0
+            polygons.add(square("country $c", cx, 0.0, 390.0))
+            for (s in 0 until 16) {
+                val sx = cx + 5.0 + (s % 4) * 95.0
+                val sy = 5.0 + (s / 4) * 95.0
+                polygons.add(square("state $c.$s", sx, sy, 90.0))
+                for (k in 0 until 9) {
+                    polygons.add(square("county $c.$s.$k", sx + 2.0 + (k % 3) * 29.0, sy + 2.0 + (k / 3) * 29.0, 27.0))
+                }
+            }
+        }
+        Collections.shuffle(polygons, Random(1L))
+        return polygons
+    }
+
+    @Test
+    fun check_sameAsFlatIndex() {
+        val polygons = nestedMap()
+        val index = MTPolygonIndex(polygons)
+        val hierarchy = MTPolygonHierarchy(index)
+        assertEquals(3, hierarchy.getDepth())
+
+        for (i in polygons.indices) {
+            val id = polygons[i].getPolygonId() as String
+            val parent = hierarchy.getParent(i)
+            when {
+                id.startsWith("country") -> assertEquals(-1, parent)
+                id.startsWith("state") -> {
+                    assertEquals("country " + id.substring(6).substringBefore('.'), polygons[parent].getPolygonId())
+                    assertEquals(9, hierarchy.getChildCount(i))
+                }
+                else -> assertEquals("state " + id.substring(7).substringBeforeLast('.'), polygons[parent].getPolygonId())
+            }
+        }
+
+        val rnd = Random(4L)
+        val expected = IntArray(polygons.size)
+        val actual = IntArray(polygons.size + 2)
+        val listed = ArrayList<MTPolygon>()
+        for (i in 0 until 20000) {
+            val x = rnd.nextDouble() * 1650.0 - 20.0
+            val y = rnd.nextDouble() * 420.0 - 20.0
+            val n = index.findPolygonIndices(x, y, expected)
+            assertEquals(n, hierarchy.findPolygonIndices(x, y, actual, 2))
+            assertArrayEquals(expected.copyOf(n), actual.copyOfRange(2, 2 + n))
+
+            listed.clear()
+            hierarchy.findPolygons(x, y, listed)
+            assertEquals((0 until n).map { polygons[expected[it]] }, listed)
+        }
+    }
+
+    @Test
+    fun check_enclaveInHoleIsRoot() {
+        // a country with a hole, an enclave in the hole, and a province in the country
+        val xs = doubleArrayOf(0.0, 100.0, 100.0, 0.0, 40.0, 60.0, 60.0, 40.0)
+        val ys = doubleArrayOf(0.0, 0.0, 100.0, 100.0, 40.0, 40.0, 60.0, 60.0)
+        val country = MTPolygon("country", xs, ys, 0, intArrayOf(4, 4), booleanArrayOf(false, true))
+        val enclave = square("enclave", 42.0, 42.0, 16.0)
+        val province = square("province", 5.0, 5.0, 20.0)
+        val hierarchy = MTPolygonHierarchy(MTPolygonIndex(listOf(enclave, country, province)))
+
+        assertEquals(-1, hierarchy.getParent(0))
+        assertEquals(-1, hierarchy.getParent(1))
+        assertEquals(1, hierarchy.getParent(2))
+        assertEquals(2, hierarchy.getDepth())
+
+        val result = IntArray(3)
+        assertEquals(1, hierarchy.findPolygonIndices(50.0, 50.0, result))
+        assertEquals(0, result[0])
+        assertEquals(2, hierarchy.findPolygonIndices(10.0, 10.0, result))
+        assertArrayEquals(intArrayOf(1, 2), result.copyOf(2))
+    }
+
+    @Test
+    fun check_childCrossingConcaveParentIsRoot() {
+        // a U-shaped country, and a band whose vertices are all in its arms but crosses the notch
+        val country = MTPolygon("country", listOf(MTPoint(0.0, 0.0), MTPoint(100.0, 0.0), MTPoint(100.0, 100.0),
+                MTPoint(60.0, 100.0), MTPoint(60.0, 40.0), MTPoint(40.0, 40.0), MTPoint(40.0, 100.0), MTPoint(0.0, 100.0)))
+        val band = MTPolygon("band", listOf(MTPoint(10.0, 60.0), MTPoint(90.0, 60.0), MTPoint(90.0, 80.0), MTPoint(10.0, 80.0)))
+        val index = MTPolygonIndex(listOf(country, band))
+        val hierarchy = MTPolygonHierarchy(index)
+        assertEquals(-1, hierarchy.getParent(1))
+
+        val result = IntArray(2)
+        assertEquals(1, hierarchy.findPolygonIndices(50.0, 70.0, result))
+        assertEquals(1, result[0])
+        assertEquals(2, hierarchy.findPolygonIndices(20.0, 70.0, result))
+    }
+
+    @Test
+    fun check_childOverParentHoleIsRoot() {
+        // a country with a hole, and a province over the hole without crossing it
+        val xs = doubleArrayOf(0.0, 100.0, 100.0, 0.0, 40.0, 60.0, 60.0, 40.0)
+        val ys = doubleArrayOf(0.0, 0.0, 100.0, 100.0, 40.0, 40.0, 60.0, 60.0)
+        val country = MTPolygon("country", xs, ys, 0, intArrayOf(4, 4), booleanArrayOf(false, true))
+        val province = square("province", 30.0, 30.0, 40.0)
+        val hierarchy = MTPolygonHierarchy(MTPolygonIndex(listOf(country, province)))
+        assertEquals(-1, hierarchy.getParent(1))
+
+        val result = IntArray(2)
+        assertEquals(1, hierarchy.findPolygonIndices(50.0, 50.0, result))
+        assertEquals(1, result[0])
+    }
+
+    // nested squares, and shapes which cross or wrap around them
+    private fun mixedMap(): List<MTPolygon> {
+        val polygons = ArrayList(nestedMap())
+        val rnd = Random(7L)
+        for (i in 0 until 200) {
+            val x = rnd.nextDouble() * 1600.0
+            val y = rnd.nextDouble() * 400.0
+            val w = 5.0 + rnd.nextDouble() * 120.0
+            val h = 5.0 + rnd.nextDouble() * 120.0
+            when (i % 3) {
+                0 -> polygons.add(square("square $i", x, y, w))
+                1 -> polygons.add(MTPolygon("u $i", listOf(MTPoint(x, y), MTPoint(x + w, y), MTPoint(x + w, y + h),
+                        MTPoint(x + w * 0.6, y + h), MTPoint(x + w * 0.6, y + h * 0.3), MTPoint(x + w * 0.4, y + h * 0.3),
+                        MTPoint(x + w * 0.4, y + h), MTPoint(x, y + h))))
+                else -> {
+                    val rxs = doubleArrayOf(x, x + w, x + w, x, x + w * 0.3, x + w * 0.7, x + w * 0.7, x + w * 0.3)
+                    val rys = doubleArrayOf(y, y, y + h, y + h, y + h * 0.3, y + h * 0.3, y + h * 0.7, y + h * 0.7)
+                    polygons.add(MTPolygon("ring $i", rxs, rys, 0, intArrayOf(4, 4), booleanArrayOf(false, true)))
+                }
+            }
+        }
+        return polygons
+    }
+
+    @Test
+    fun check_crossingShapesSameAsFlatIndex() {
+        val polygons = mixedMap()
+        val index = MTPolygonIndex(polygons)
+        val hierarchy = MTPolygonHierarchy(index)
+        val rnd = Random(8L)
+        val expected = IntArray(polygons.size)
+        val actual = IntArray(polygons.size)
+        for (i in 0 until 20000) {
+            val x = rnd.nextDouble() * 1650.0 - 20.0
+            val y = rnd.nextDouble() * 420.0 - 20.0
+            val n = index.findPolygonIndices(x, y, expected)
+            assertEquals(n, hierarchy.findPolygonIndices(x, y, actual))
+            assertArrayEquals(expected.copyOf(n), actual.copyOf(n))
+        }
+    }
+
+    @Test
+    fun check_updatesSameAsRebuiltTree() {
+        val pool = mixedMap()
+        val polygons = ArrayList<MTPolygon?>(pool.subList(0, 500))
+        val index = MTPolygonIndex(pool.subList(0, 500))
+        val hierarchy = MTPolygonHierarchy(index)
+        val rnd = Random(9L)
+        val expected = IntArray(pool.size * 2)
+        val actual = IntArray(pool.size * 2)
+        var next = 500
+
+        for (step in 0 until 1500) {
+            val i = rnd.nextInt(polygons.size)
+            val polygon = pool[next]
+            next = (next + 1) % pool.size
+            when (rnd.nextInt(3)) {
+                0 -> { polygons[i] = polygon; index.set(i, polygon); hierarchy.update(i) }
+                1 -> { polygons[i] = null; index.set(i, null); hierarchy.update(i) }
+                else -> { polygons.add(polygon); hierarchy.update(index.add(polygon)) }
+            }
+            if (index.isPackingDue()) {
+                index.pack()
+            }
+            if (step % 100 != 0) {
+                continue
+            }
+
+            // the tree patched in place is the same as one built from scratch
+            val rebuilt = MTPolygonHierarchy(MTPolygonIndex(polygons))
+            assertEquals(rebuilt.size(), hierarchy.size())
+            assertEquals(rebuilt.getDepth(), hierarchy.getDepth())
+            for (k in polygons.indices) {
+                assertEquals(rebuilt.getParent(k), hierarchy.getParent(k))
+                assertEquals(rebuilt.getChildCount(k), hierarchy.getChildCount(k))
+            }
+            for (k in 0 until 1000) {
+                val x = rnd.nextDouble() * 1650.0 - 20.0
+                val y = rnd.nextDouble() * 420.0 - 20.0
+                val n = index.findPolygonIndices(x, y, expected)
+                assertEquals(n, hierarchy.findPolygonIndices(x, y, actual))
+                assertArrayEquals(expected.copyOf(n), actual.copyOf(n))
+            }
+        }
+    }
+
+    @Test
+    fun check_countersMatchUninstrumentedQuery() {
+        val polygons = mixedMap()
+        val hierarchy = MTPolygonHierarchy(MTPolygonIndex(polygons))
+        val counters = MTHitTestCounters()
+        val rnd = Random(9L)
+        val expected = ArrayList<MTPolygon>()
+        val actual = ArrayList<MTPolygon>()
+        for (i in 0 until 2000) {
+            val x = rnd.nextDouble() * 1600.0
+            val y = rnd.nextDouble() * 400.0
+            expected.clear()
+            actual.clear()
+            hierarchy.findPolygons(x, y, expected)
+            hierarchy.findPolygons(x, y, actual, counters)
+            assertEquals(expected, actual)
+        }
+        assertTrue(counters.windingTests > 0)
+        assertTrue(counters.boxPasses >= counters.windingTests)
+        assertTrue(counters.candidates >= counters.boxPasses)
+    }
+
+    @Test
+    fun check_pruneFlatResult() {
+        val polygons = nestedMap()
+        val index = MTPolygonIndex(polygons)
+        val hierarchy = MTPolygonHierarchy(index)
+        val county = polygons.indexOfFirst { it.getPolygonId() == "county 1.5.4" }
+        val state = hierarchy.getParent(county)
+        val country = hierarchy.getParent(state)
+
+        val result = intArrayOf(-1, county, state, country).also { it.sort(1, 4) }
+        assertEquals(3, hierarchy.prune(result, 1, 3))
+        // a county without its state
+        val orphan = intArrayOf(county, country).also { it.sort() }
+        assertEquals(1, hierarchy.prune(orphan, 0, 2))
+        assertEquals(country, orphan[0])
+    }
+
+    @Test
+    fun check_trackerSameAsQuery() {
+        val polygons = mixedMap()
+        val index = MTPolygonIndex(polygons)
+        val hierarchy = MTPolygonHierarchy(index)
+        val tracker = MTPolygonTracker(index, hierarchy)
+        val rnd = Random(10L)
+        val expected = IntArray(polygons.size)
+        var x = 200.0
+        var y = 200.0
+        for (i in 0 until 20000) {
+            x = Math.max(-10.0, Math.min(1610.0, x + rnd.nextGaussian() * 4.0))
+            y = Math.max(-10.0, Math.min(410.0, y + rnd.nextGaussian() * 4.0))
+            tracker.update(x, y, null)
+            val n = hierarchy.findPolygonIndices(x, y, expected)
+            assertEquals(n, tracker.getCurrentCount())
+            for (k in 0 until n) {
+                assertEquals(expected[k], tracker.getCurrent(k))
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.security.InvalidParameterException
+import java.util.Random
+
+class MTPolygonHitMapUnitTest {
+
+    private fun randomPolygons(count: Int, seed: Long): List<MTPolygon> {
+        return randomPolygons(count, seed, extent = 1000.0, minRadius = 10.0, maxRadius = 50.0)
+    }
+
+    @Test
+    fun check_invalidCellSize() {
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygonHitMap(emptyList(), 0.0)
+        }
+        assertEquals("MTPolygonHitMap cell size must be positive.", exception.message)
+    }
+
+    @Test
+    fun check_emptyHitMap() {
+        val map = MTPolygonHitMap(emptyList(), 1.0)
+        assertEquals(MTPolygonHitMap.EMPTY, map.lookup(0.0, 0.0))
+        assertEquals(0L, map.getMemoryFootprint())
+    }
+
+    @Test
+    fun check_squareCells() {
+        val square = MTPolygon("square", listOf(
+            MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(10.0, 10.0), MTPoint(0.0, 10.0)))
+        val map = MTPolygonHitMap(listOf(square), 1.0)
+
+        assertEquals(11, map.getColumns())
+        assertEquals(11, map.getRows())
+        assertEquals(11L * 11L * 2L, map.getMemoryFootprint())
+        assertEquals(0, map.lookup(5.5, 5.5))
+        assertEquals(MTPolygonHitMap.MIXED, map.lookup(0.5, 5.5))
+        assertEquals(MTPolygonHitMap.EMPTY, map.lookup(-1.0, 5.5))
+        assertEquals(MTPolygonHitMap.EMPTY, map.lookup(5.5, 20.0))
+    }
+
+    @Test
+    fun check_overlappedCellsAreMixed() {
+        val a = MTPolygon("a", listOf(
+            MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(10.0, 10.0), MTPoint(0.0, 10.0)))
+        val b = MTPolygon("b", listOf(
+            MTPoint(5.0, 0.0), MTPoint(20.0, 0.0), MTPoint(20.0, 10.0), MTPoint(5.0, 10.0)))
+        val map = MTPolygonHitMap(listOf(a, b), 1.0)
+
+        assertEquals(0, map.lookup(2.5, 5.5))
+        assertEquals(MTPolygonHitMap.MIXED, map.lookup(7.5, 5.5))
+        assertEquals(1, map.lookup(15.5, 5.5))
+    }
+
+    @Test
+    fun check_sameAsExactTest() {
+        val polygons = randomPolygons(300, 7L)
+        val index = MTPolygonIndex(polygons)
+        val map = MTPolygonHitMap(polygons, 4.0)
+        val rnd = Random(11)
+        val result = ArrayList<MTPolygon>()
+        var resolved = 0
+        for (i in 0 until 20000) {
+            val point = MTPoint(rnd.nextDouble() * 1000.0, rnd.nextDouble() * 1000.0)
+            result.clear()
+            index.findPolygons(point, result)
+            when (val hit = map.lookup(point.x, point.y)) {
+                MTPolygonHitMap.MIXED -> {}
+                MTPolygonHitMap.EMPTY -> { resolved++; assertTrue(result.isEmpty()) }
+                else -> { resolved++; assertEquals(listOf(polygons[hit]), result) }
+            }
+        }
+        // most points should be resolved without geometry
+        assertTrue(resolved > 15000)
+    }
+
+    @Test
+    fun check_holesAreNotFilled() {
+        val xs = doubleArrayOf(0.0, 100.0, 100.0, 0.0, 30.0, 30.0, 70.0, 70.0)
+        val ys = doubleArrayOf(0.0, 0.0, 100.0, 100.0, 30.0, 70.0, 70.0, 30.0)
+        val plg = MTPolygon(null, xs, ys, 0, intArrayOf(4, 4), booleanArrayOf(false, true))
+        val map = MTPolygonHitMap(listOf(plg), 5.0)
+
+        assertEquals(0, map.lookup(10.0, 10.0))
+        assertEquals(MTPolygonHitMap.EMPTY, map.lookup(50.0, 50.0))
+        assertEquals(MTPolygonHitMap.MIXED, map.lookup(30.0, 50.0))
+    }
+
+    @Test
+    fun check_patchedCellsAreMixed() {
+        val polygons = ArrayList(randomPolygons(300, 17L))
+        val map = MTPolygonHitMap(polygons, 4.0)
+        val moved = randomPolygons(2, 19L)
+        val far = MTPolygon("far", listOf(MTPoint(1200.0, 1200.0), MTPoint(1300.0, 1200.0), MTPoint(1300.0, 1300.0)))
+
+        // reshape one polygon, and add two more, one of which is out of the grid
+        map.markMixed(polygons[5])
+        polygons[5] = moved[0]
+        map.markMixed(moved[0])
+        polygons.add(moved[1])
+        map.markMixed(moved[1])
+        polygons.add(far)
+        map.markMixed(far)
+
+        val index = MTPolygonIndex(polygons)
+        val rnd = Random(23)
+        val result = ArrayList<MTPolygon>()
+        for (i in 0 until 20000) {
+            val point = MTPoint(rnd.nextDouble() * 1400.0, rnd.nextDouble() * 1400.0)
+            result.clear()
+            index.findPolygons(point, result)
+            when (val hit = map.lookup(point.x, point.y)) {
+                MTPolygonHitMap.MIXED -> {}
+                MTPolygonHitMap.EMPTY -> assertTrue(result.isEmpty())
+                else -> assertEquals(listOf(polygons[hit]), result)
+            }
+        }
+        assertEquals(MTPolygonHitMap.MIXED, map.lookup(1290.0, 1210.0))
+    }
+}
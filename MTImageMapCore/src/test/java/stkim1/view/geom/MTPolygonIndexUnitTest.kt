@@ -0,0 +1,297 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.util.Random
+
+class MTPolygonIndexUnitTest {
+
+    private fun randomPolygons(count: Int, seed: Long): List<MTPolygon> {
+        return randomPolygons(count, seed, extent = 1000.0, minRadius = 2.0, maxRadius = 32.0)
+    }
+
+    // the same steps MTImageMapView takes for a tap
+    private fun tap(polygons: List<MTPolygon>, index: MTPolygonIndex, hitMap: MTPolygonHitMap,
+                    result: ArrayList<MTPolygon>, x: Double, y: Double) {
+        result.clear()
+        val hit = hitMap.lookup(x, y)
+        if (hit >= 0) {
+            result.add(polygons[hit])
+        } else if (hit == MTPolygonHitMap.MIXED) {
+            index.findPolygons(x, y, result)
+        }
+    }
+
+    private fun linearScan(polygons: List<MTPolygon>, point: MTPoint): List<MTPolygon> {
+        return polygons.filter { it.isPointInBBox(point) && it.isPointInPolygon(point) }
+    }
+
+    @Test
+    fun check_emptyIndex() {
+        val index = MTPolygonIndex(emptyList())
+        val result = ArrayList<MTPolygon>()
+        index.findPolygons(MTPoint(), result)
+        assertEquals(0, index.size())
+        assertTrue(result.isEmpty())
+    }
+
+    @Test
+    fun check_openPolygonIsNotIndexed() {
+        val open = MTPolygon()
+        open.addVertex(MTPoint(0.0, 0.0))
+        open.addVertex(MTPoint(10.0, 0.0))
+        open.addVertex(MTPoint(0.0, 10.0))
+        val closed = MTPolygon("closed", listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(0.0, 10.0)))
+
+        val index = MTPolygonIndex(listOf(open, closed))
+        val result = ArrayList<MTPolygon>()
+        index.findPolygons(MTPoint(2.0, 2.0), result)
+        assertEquals(2, index.size())
+        assertEquals(listOf(closed), result)
+    }
+
+    @Test
+    fun check_sameAsLinearScan() {
+        for (count in listOf(1, 15, 16, 17, 300, 5000)) {
+            val polygons = randomPolygons(count, count.toLong())
+            val index = MTPolygonIndex(polygons)
+            val rnd = Random(42)
+            val result = ArrayList<MTPolygon>()
+            for (i in 0 until 2000) {
+                val point = MTPoint(rnd.nextDouble() * 1000.0, rnd.nextDouble() * 1000.0)
+                result.clear()
+                index.findPolygons(point, result)
+                assertEquals(linearScan(polygons, point), result)
+            }
+        }
+    }
+
+    @Test
+    fun check_searchSameAsLinearScan() {
+        val polygons = randomPolygons(3000, 9L)
+        val index = MTPolygonIndex(polygons)
+        val rnd = Random(13)
+        val found = IntArray(index.size())
+        for (i in 0 until 500) {
+            val minX = rnd.nextDouble() * 1000.0
+            val minY = rnd.nextDouble() * 1000.0
+            val maxX = minX + rnd.nextDouble() * 200.0
+            val maxY = minY + rnd.nextDouble() * 200.0
+            val count = index.search(minX, minY, maxX, maxY, found)
+            val expected = polygons.indices.filter {
+                val p = polygons[it]
+                var bx0 = Double.POSITIVE_INFINITY; var by0 = Double.POSITIVE_INFINITY
+                var bx1 = Double.NEGATIVE_INFINITY; var by1 = Double.NEGATIVE_INFINITY
+                for (k in 0 until p.getVertexCount()) {
+                    bx0 = minOf(bx0, p.getVertexX(k)); bx1 = maxOf(bx1, p.getVertexX(k))
+                    by0 = minOf(by0, p.getVertexY(k)); by1 = maxOf(by1, p.getVertexY(k))
+                }
+                bx0 <= maxX && minX <= bx1 && by0 <= maxY && minY <= by1
+            }
+            assertEquals(expected, found.copyOf(count).sorted())
+        }
+    }
+
+    @Test
+    fun check_steadyStateQueryAllocatesNothing() {
+        val polygons = randomPolygons(5000, 3L)
+        val index = MTPolygonIndex(polygons)
+        val hitMap = MTPolygonHitMap(polygons, 4.0)
+        val xs = DoubleArray(4096)
+        val ys = DoubleArray(4096)
+        val rnd = Random(5)
+        for (i in xs.indices) {
+            xs[i] = rnd.nextDouble() * 1000.0
+            ys[i] = rnd.nextDouble() * 1000.0
+        }
+        val result = ArrayList<MTPolygon>(polygons.size)
+
+        // warm up
+        for (i in xs.indices) {
+            tap(polygons, index, hitMap, result, xs[i], ys[i])
+        }
+
+        val mxBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val tid = Thread.currentThread().id
+        mxBean.getThreadAllocatedBytes(tid)
+        // the JIT can still be compiling during a round. a single clean round proves the
+        // steady state does not allocate.
+        var least = Long.MAX_VALUE
+        for (round in 0 until 5) {
+            val before = mxBean.getThreadAllocatedBytes(tid)
+            for (i in xs.indices) {
+                tap(polygons, index, hitMap, result, xs[i], ys[i])
+            }
+            least = Math.min(least, mxBean.getThreadAllocatedBytes(tid) - before)
+        }
+        assertEquals(0L, least)
+    }
+
+    @Test
+    fun check_countersMatchUninstrumentedQuery() {
+        val polygons = randomPolygons(3000, 9L)
+        val index = MTPolygonIndex(polygons)
+        val counters = MTHitTestCounters()
+        val rnd = Random(13)
+        val plain = ArrayList<MTPolygon>()
+        val counted = ArrayList<MTPolygon>()
+        for (i in 0 until 2000) {
+            val x = rnd.nextDouble() * 1000.0
+            val y = rnd.nextDouble() * 1000.0
+            plain.clear()
+            counted.clear()
+            counters.reset()
+            index.findPolygons(x, y, plain)
+            index.findPolygons(x, y, counted, counters)
+            assertEquals(plain, counted)
+
+            val inBox = polygons.filter { it.isPointInBBox(x, y) }
+            val inBounds = inBox.filter { it.isPointInBounds(x, y) }
+            assertEquals(inBox.size.toLong(), counters.getBoxPasses())
+            assertEquals(inBounds.size.toLong(), counters.getWindingTests())
+            assertEquals(inBounds.sumOf { it.getVertexCount() }.toLong(), counters.getEdgesVisited())
+            assertTrue(counters.getCandidates() >= counters.getBoxPasses())
+            assertTrue(counters.getCandidates() < polygons.size)
+        }
+    }
+
+    @Test
+    fun check_updatesSameAsLinearScan() {
+        val pool = randomPolygons(4000, 41L)
+        val polygons = ArrayList<MTPolygon?>(pool.subList(0, 2000))
+        val index = MTPolygonIndex(pool.subList(0, 2000))
+        val rnd = Random(43L)
+        val result = IntArray(4000)
+        var next = 2000
+        var packed = 0
+
+        for (step in 0 until 3000) {
+            val i = rnd.nextInt(polygons.size)
+            val polygon = pool[next]
+            next = (next + 1) % pool.size
+            when (rnd.nextInt(3)) {
+                0 -> { polygons[i] = polygon; index.set(i, polygon) }
+                1 -> { polygons[i] = null; index.set(i, null) }
+                else -> { polygons.add(polygon); assertEquals(polygons.size - 1, index.add(polygon)) }
+            }
+            if (index.isPackingDue()) {
+                index.pack()
+                assertEquals(0, index.getPendingUpdates())
+                packed++
+            }
+            assertEquals(polygons.size, index.size())
+            if (step % 50 != 0) {
+                continue
+            }
+
+            for (k in 0 until 100) {
+                val x = rnd.nextDouble() * 1000.0
+                val y = rnd.nextDouble() * 1000.0
+                val expected = polygons.indices.filter { val p = polygons[it]; p != null && p.isPointInBBox(x, y) && p.isPointInPolygon(x, y) }
+                val n = index.findPolygonIndices(x, y, result)
+                assertEquals(expected, result.copyOf(n).toList())
+
+                val found = index.search(x, y, x + 50.0, y + 50.0, result)
+                val boxed = polygons.indices.filter {
+                    val box = polygons[it]?.getBoundingBox()
+                    box != null && box.minVertex.x <= x + 50.0 && x <= box.maxVertex.x && box.minVertex.y <= y + 50.0 && y <= box.maxVertex.y
+                }
+                assertEquals(boxed, result.copyOf(found).sorted())
+            }
+        }
+        // the tree is due to be packed again as the updates pile up
+        assertTrue(packed > 0)
+    }
+
+    @Test
+    fun check_packingOffThreadKeepsLaterUpdates() {
+        val pool = randomPolygons(3000, 47L)
+        val polygons = ArrayList<MTPolygon?>(pool.subList(0, 2000))
+        val index = MTPolygonIndex(pool.subList(0, 2000))
+        val rnd = Random(53L)
+        val result = IntArray(3000)
+        var next = 2000
+
+        fun update() {
+            val i = rnd.nextInt(polygons.size)
+            val polygon = pool[next++]
+            when (rnd.nextInt(3)) {
+                0 -> { polygons[i] = polygon; index.set(i, polygon) }
+                1 -> { polygons[i] = null; index.set(i, null) }
+                else -> { polygons.add(polygon); index.add(polygon) }
+            }
+        }
+
+        fun verify() {
+            for (k in 0 until 200) {
+                val x = rnd.nextDouble() * 1000.0
+                val y = rnd.nextDouble() * 1000.0
+                val expected = polygons.indices.filter { val p = polygons[it]; p != null && p.isPointInBBox(x, y) && p.isPointInPolygon(x, y) }
+                val n = index.findPolygonIndices(x, y, result)
+                assertEquals(expected, result.copyOf(n).toList())
+            }
+        }
+
+        repeat(300) { update() }
+        assertTrue(index.isPackingDue())
+        val packing = index.beginPacking()
+        assertTrue(index.isPacking())
+        assertFalse(index.isPackingDue())
+        // not packed yet
+        assertFalse(index.finishPacking(packing))
+
+        val thread = Thread { packing.pack(null) }
+        thread.start()
+        // the index is still queried and updated while the snapshot is packed
+        repeat(100) { update() }
+        verify()
+        thread.join()
+
+        val pending = index.getPendingUpdates()
+        assertTrue(index.finishPacking(packing))
+        assertFalse(index.isPacking())
+        // only the polygons changed after the snapshot are left over
+        assertTrue(index.getPendingUpdates() in 1..100)
+        assertTrue(index.getPendingUpdates() < pending)
+        verify()
+
+        // a snapshot superseded by a later one is not adopted
+        val stale = index.beginPacking()
+        val latest = index.beginPacking()
+        stale.pack(null)
+        latest.pack(null)
+        assertFalse(index.finishPacking(stale))
+        assertTrue(index.finishPacking(latest))
+        assertEquals(0, index.getPendingUpdates())
+        verify()
+    }
+
+    @Test
+    fun check_cancelledPackingCanBePackedAgain() {
+        val pool = randomPolygons(2300, 59L)
+        val index = MTPolygonIndex(pool.subList(0, 2000))
+        for (i in 0 until 300) {
+            index.set(i, pool[2000 + i])
+        }
+        assertTrue(index.isPackingDue())
+
+        // a snapshot which failed to pack is given up, and the tree is due again
+        val failed = index.beginPacking()
+        assertTrue(index.cancelPacking(failed))
+        assertFalse(index.isPacking())
+        assertTrue(index.isPackingDue())
+        assertEquals(300, index.getPendingUpdates())
+        failed.pack(null)
+        assertFalse(index.finishPacking(failed))
+        assertFalse(index.cancelPacking(failed))
+
+        val packing = index.beginPacking()
+        packing.pack(null)
+        assertTrue(index.finishPacking(packing))
+        assertFalse(index.cancelPacking(packing))
+        assertEquals(0, index.getPendingUpdates())
+    }
+}
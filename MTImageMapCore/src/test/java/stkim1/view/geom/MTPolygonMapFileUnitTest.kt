@@ -0,0 +1,247 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.security.InvalidParameterException
+
+class MTPolygonMapFileUnitTest {
+
+    private val sample = File("../sample/assets/us_states.json")
+
+    @Test
+    fun check_roundTripSampleMap() {
+        val polygons = sample.inputStream().use { MTPolygonMapReader.read(it) }
+
+        val file = File.createTempFile("us_states", ".mtpm")
+        try {
+            file.outputStream().use { out ->
+                sample.inputStream().use { MTPolygonMapFile.convert(it, 1.0, out) }
+            }
+            val map = MTPolygonMapFile.open(file)
+
+            assertEquals(polygons.size, map.getPolygonCount())
+            assertEquals(polygons.sumOf { it.getVertexCount() }, map.getVertexCount())
+            assertTrue(map.hasBoundingBoxes())
+            // delta and varint encoded vertices should be far smaller than the JSON
+            assertTrue(file.length() * 2 < sample.length())
+
+            val bounds = DoubleArray(4)
+            val decoded = map.asList()
+            for (p in polygons.indices) {
+                val expected = polygons[p]
+                val actual = decoded[p]
+                assertEquals(expected.getPolygonId(), actual.getPolygonId())
+                assertEquals(expected.getVertexCount(), actual.getVertexCount())
+                for (i in 0 until expected.getVertexCount()) {
+                    assertEquals(expected.getVertexX(i), actual.getVertexX(i), 0.0)
+                    assertEquals(expected.getVertexY(i), actual.getVertexY(i), 0.0)
+                }
+
+                assertTrue(map.getBounds(p, bounds))
+                val box = expected.getBoundingBox()
+                assertEquals(box.minVertex.x, bounds[0], 0.0)
+                assertEquals(box.minVertex.y, bounds[1], 0.0)
+                assertEquals(box.maxVertex.x, bounds[2], 0.0)
+                assertEquals(box.maxVertex.y, bounds[3], 0.0)
+            }
+        } finally {
+            file.delete()
+        }
+    }
+
+    @Test
+    fun check_roundTripScaledCoordinates() {
+        val polygons = listOf(
+            MTPolygon(null, listOf(MTPoint(-3.91, 3.14), MTPoint(-4.17, -1.48), MTPoint(1.61, -2.77))),
+            MTPolygon(42, listOf(MTPoint(100000.25, 0.0), MTPoint(-100000.5, 7.75), MTPoint(0.0, -0.01)))
+        )
+        val out = ByteArrayOutputStream()
+        MTPolygonMapFile.write(polygons, 100.0, false, out)
+        val map = MTPolygonMapFile(ByteBuffer.wrap(out.toByteArray()))
+
+        assertFalse(map.hasBoundingBoxes())
+        assertFalse(map.getBounds(0, DoubleArray(4)))
+        assertNull(map.getPolygon(0).getPolygonId())
+        assertEquals(42, map.getPolygon(1).getPolygonId())
+        for (p in polygons.indices) {
+            for (i in 0 until 3) {
+                assertEquals(polygons[p].getVertexX(i), map.getPolygon(p).getVertexX(i), 0.005)
+                assertEquals(polygons[p].getVertexY(i), map.getPolygon(p).getVertexY(i), 0.005)
+            }
+        }
+    }
+
+    @Test
+    fun check_boundsOfQuantizedVertices() {
+        val polygons = listOf(
+            MTPolygon("a", listOf(MTPoint(-3.914, 3.146), MTPoint(-4.171, -1.482), MTPoint(1.618, -2.777))),
+            MTPolygon("b", listOf(MTPoint(10.005, 0.0), MTPoint(20.0049, 7.75), MTPoint(15.0, 9.999)))
+        )
+        val out = ByteArrayOutputStream()
+        MTPolygonMapFile.write(polygons, 100.0, true, out)
+        val map = MTPolygonMapFile(ByteBuffer.wrap(out.toByteArray()))
+
+        // the stored bounding box is the box of the decoded polygon, not of the original one
+        val bounds = DoubleArray(4)
+        for (p in polygons.indices) {
+            assertTrue(map.getBounds(p, bounds))
+            val box = map.getPolygon(p).getBoundingBox()
+            assertEquals(box.minVertex.x, bounds[0], 0.0)
+            assertEquals(box.minVertex.y, bounds[1], 0.0)
+            assertEquals(box.maxVertex.x, bounds[2], 0.0)
+            assertEquals(box.maxVertex.y, bounds[3], 0.0)
+        }
+    }
+
+    @Test
+    fun check_mapStartsAtBufferPosition() {
+        val polygons = listOf(MTPolygon(7, listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(0.0, 10.0))))
+        val out = ByteArrayOutputStream()
+        // an asset which packs the map after a header of its own
+        out.write(ByteArray(12) { 0x55 })
+        MTPolygonMapFile.write(polygons, 1.0, true, out)
+        val buffer = ByteBuffer.wrap(out.toByteArray())
+        buffer.position(12)
+
+        val map = MTPolygonMapFile(buffer)
+        assertEquals(1, map.getPolygonCount())
+        assertEquals(7, map.getPolygon(0).getPolygonId())
+        assertEquals(10.0, map.getPolygon(0).getVertexX(1), 0.0)
+        assertEquals(12, buffer.position())
+    }
+
+    @Test
+    fun check_polygonsInArea() {
+        val polygons = ArrayList<MTPolygon>()
+        for (i in 0 until 400) {
+            val x = (i % 20) * 10.0
+            val y = (i / 20) * 10.0
+            polygons.add(MTPolygon(i, listOf(MTPoint(x, y), MTPoint(x + 8.0, y), MTPoint(x + 8.0, y + 8.0), MTPoint(x, y + 8.0))))
+        }
+        val boxed = ByteArrayOutputStream()
+        MTPolygonMapFile.write(polygons, 1.0, true, boxed)
+        val plain = ByteArrayOutputStream()
+        MTPolygonMapFile.write(polygons, 1.0, false, plain)
+
+        for (bytes in listOf(boxed.toByteArray(), plain.toByteArray())) {
+            val map = MTPolygonMapFile(ByteBuffer.wrap(bytes))
+            val result = ArrayList<MTPolygon>()
+            assertEquals(9, map.getPolygons(15.0, 25.0, 38.0, 48.0, result))
+            val expected = listOf(41, 42, 43, 61, 62, 63, 81, 82, 83)
+            assertEquals(expected, result.map { it.getPolygonId() })
+
+            // an edge touching the area counts, and nothing is found out of the map
+            result.clear()
+            assertEquals(1, map.getPolygons(198.0, 198.0, 300.0, 300.0, result))
+            assertEquals(0, map.getPolygons(-10.0, -10.0, -1.0, -1.0, result))
+        }
+    }
+
+    @Test
+    fun check_roundTripIdTypes() {
+        val json = """[
+            { "id": "Alabama", "vertices": [[0,0],[10,0],[0,10]] },
+            { "id": 42, "vertices": [[0,0],[10,0],[0,10]] },
+            { "id": -1234567890123, "vertices": [[0,0],[10,0],[0,10]] },
+            { "id": 4.25, "vertices": [[0,0],[10,0],[0,10]] },
+            { "vertices": [[0,0],[10,0],[0,10]] }
+        ]"""
+        val out = ByteArrayOutputStream()
+        MTPolygonMapFile.convert(json.byteInputStream(), 1.0, out)
+        val map = MTPolygonMapFile(ByteBuffer.wrap(out.toByteArray()))
+
+        // an id is read back in its type, so it still finds the polygon of the JSON map
+        val expected = MTPolygonMapReader.read(json.byteInputStream()).map { it.getPolygonId() }
+        val ids = map.asList().map { it.getPolygonId() }
+        assertEquals(expected, ids)
+        assertEquals(listOf("Alabama", 42L, -1234567890123L, 4.25, null), ids)
+
+        // so is an Integer id of a polygon made in code
+        out.reset()
+        MTPolygonMapFile.write(listOf(MTPolygon(-7, listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(0.0, 10.0)))), 1.0, false, out)
+        val pid = MTPolygonMapFile(ByteBuffer.wrap(out.toByteArray())).getPolygon(0).getPolygonId()
+        assertEquals(-7, pid)
+        assertEquals(Integer::class.java, pid!!.javaClass)
+    }
+
+    @Test
+    fun check_roundTripMultipolygon() {
+        val json = "[{\"holes\":[[[4,4],[6,4],[6,6],[4,6]]],\"id\":\"building\"," +
+                "\"vertices\":[[0,0],[10,0],[10,10],[0,10]]," +
+                "\"parts\":[{\"vertices\":[[20,0],[30,0],[25,8]]}]}," +
+                "{\"vertices\":[[0,0],[1,0],[0,1]]}]"
+        val out = ByteArrayOutputStream()
+        MTPolygonMapFile.convert(json.byteInputStream(), 1.0, out)
+        val map = MTPolygonMapFile(ByteBuffer.wrap(out.toByteArray()))
+        val expected = MTPolygonMapReader.read(json.byteInputStream())
+        assertEquals(14, map.getVertexCount())
+
+        // rings and holes are read back in their order
+        for (p in expected.indices) {
+            val polygon = map.getPolygon(p)
+            assertEquals(expected[p].getRingCount(), polygon.getRingCount())
+            for (r in 0 until polygon.getRingCount()) {
+                assertEquals(expected[p].getRingStart(r), polygon.getRingStart(r))
+                assertEquals(expected[p].getRingEnd(r), polygon.getRingEnd(r))
+                assertEquals(expected[p].isHole(r), polygon.isHole(r))
+            }
+        }
+
+        val building = map.getPolygon(0)
+        assertTrue(building.isPointInPolygon(2.0, 2.0))
+        assertFalse(building.isPointInPolygon(5.0, 5.0))
+        assertTrue(building.isPointInPolygon(25.0, 3.0))
+        assertFalse(building.isPointInPolygon(15.0, 3.0))
+
+        // the bounding box covers every part
+        val bounds = DoubleArray(4)
+        assertTrue(map.getBounds(0, bounds))
+        assertEquals(listOf(0.0, 0.0, 30.0, 10.0), bounds.toList())
+    }
+
+    @Test
+    fun check_objectIdCannotBeWritten() {
+        val json = """[ { "id": { "name": "Alaska", "dial": 907 }, "vertices": [[0,0],[10,0],[0,10]] } ]"""
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygonMapFile.convert(json.byteInputStream(), 1.0, ByteArrayOutputStream())
+        }
+        assertTrue(exception.message!!.startsWith("MTPolygonMapFile cannot write an id of "))
+    }
+
+    @Test
+    fun check_notPolygonMap() {
+        val exception = assertThrows(IOException::class.java) {
+            MTPolygonMapFile(ByteBuffer.wrap(ByteArray(64)))
+        }
+        assertEquals("Not a polygon map file.", exception.message)
+    }
+
+    @Test
+    fun check_openPolygonCannotBeWritten() {
+        val open = MTPolygon()
+        open.addVertex(MTPoint())
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygonMapFile.write(listOf(open), 1.0, true, ByteArrayOutputStream())
+        }
+        assertEquals("MTPolygonMapFile can only write closed polygons.", exception.message)
+    }
+
+    @Test
+    fun check_polygonIndexOutOfRange() {
+        val out = ByteArrayOutputStream()
+        MTPolygonMapFile.write(emptyList(), 1.0, true, out)
+        val map = MTPolygonMapFile(ByteBuffer.wrap(out.toByteArray()))
+        assertEquals(0, map.getPolygonCount())
+        assertThrows(IndexOutOfBoundsException::class.java) {
+            map.getPolygon(0)
+        }
+    }
+}
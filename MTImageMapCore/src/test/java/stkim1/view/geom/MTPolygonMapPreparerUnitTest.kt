@@ -0,0 +1,130 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.security.InvalidParameterException
+import java.util.Random
+import java.util.concurrent.ForkJoinPool
+
+class MTPolygonMapPreparerUnitTest {
+
+    // open polygons with a closing vertex repeating the first, and a few repeated vertices
+    private fun rawPolygons(count: Int, seed: Long): List<MTPolygon> {
+        val rnd = Random(seed)
+        return (0 until count).map { i ->
+            val cx = rnd.nextDouble() * 3000.0
+            val cy = rnd.nextDouble() * 3000.0
+            val r = 2.0 + rnd.nextDouble() * 20.0
+            val n = 3 + rnd.nextInt(12)
+            val polygon = MTPolygon()
+            polygon.setPolygonId(i)
+            for (k in 0 until n) {
+                val a = Math.PI * 2.0 * k / n
+                val v = MTPoint(cx + Math.cos(a) * r, cy + Math.sin(a) * r)
+                polygon.addVertex(v)
+                if (rnd.nextInt(4) == 0) {
+                    polygon.addVertex(MTPoint(v.x, v.y))
+                }
+            }
+            polygon.addVertex(MTPoint(cx + r, cy))
+            polygon
+        }
+    }
+
+    @Test
+    fun check_parallelSameAsSequential() {
+        val sequential = rawPolygons(50000, 3L)
+        val parallel = rawPolygons(50000, 3L)
+        val seqIndex = MTPolygonMapPreparer.prepare(sequential, null)
+        val pool = ForkJoinPool(4)
+        val parIndex = try {
+            MTPolygonMapPreparer.prepare(parallel, pool)
+        } finally {
+            pool.shutdown()
+        }
+
+        for (p in sequential.indices) {
+            assertTrue(parallel[p].isClosed())
+            assertEquals(sequential[p].getVertexCount(), parallel[p].getVertexCount())
+            for (i in 0 until sequential[p].getVertexCount()) {
+                assertFalse(parallel[p].getVertexX(i) == parallel[p].getVertexX((i + 1) % parallel[p].getVertexCount()) &&
+                        parallel[p].getVertexY(i) == parallel[p].getVertexY((i + 1) % parallel[p].getVertexCount()))
+            }
+        }
+
+        val rnd = Random(17L)
+        val seqFound = IntArray(sequential.size)
+        val parFound = IntArray(parallel.size)
+        for (i in 0 until 20000) {
+            val x = rnd.nextDouble() * 3000.0
+            val y = rnd.nextDouble() * 3000.0
+            val n = seqIndex.findPolygonIndices(x, y, seqFound)
+            assertEquals(n, parIndex.findPolygonIndices(x, y, parFound))
+            assertArrayEquals(seqFound.copyOf(n), parFound.copyOf(n))
+        }
+    }
+
+    @Test
+    fun check_normalizeRepeatedVertices() {
+        val polygon = MTPolygon()
+        polygon.addVertices(arrayOf(MTPoint(0.0, 0.0), MTPoint(0.0, 0.0), MTPoint(4.0, 0.0),
+                MTPoint(4.0, 4.0), MTPoint(4.0, 4.0), MTPoint(0.0, 0.0)))
+        val degenerate = MTPolygon()
+        degenerate.addVertices(arrayOf(MTPoint(1.0, 1.0), MTPoint(2.0, 2.0), MTPoint(1.0, 1.0)))
+
+        val index = MTPolygonMapPreparer.prepare(listOf(polygon, degenerate), null)
+        assertTrue(polygon.isClosed())
+        assertEquals(3, polygon.getVertexCount())
+        assertFalse(degenerate.isClosed())
+        assertEquals(2, index.size())
+        assertEquals(1, index.findPolygonIndices(3.0, 1.0, IntArray(2)))
+    }
+
+    @Test
+    fun check_firstInvalidPolygonIsReported() {
+        val polygons = rawPolygons(2000, 5L)
+        polygons[1500].addVertex(MTPoint(Double.NaN, 0.0))
+        polygons[700].addVertex(MTPoint(0.0, Double.POSITIVE_INFINITY))
+        val pool = ForkJoinPool(4)
+        try {
+            val exception = assertThrows(InvalidParameterException::class.java) {
+                MTPolygonMapPreparer.prepare(polygons, pool)
+            }
+            assertEquals("MTPolygon index 700 of 2000 polygons has a vertex which is not a finite number.", exception.message)
+        } finally {
+            pool.shutdown()
+        }
+
+        // nothing is normalized or closed when a polygon is invalid
+        val raw = rawPolygons(2000, 5L)
+        for (p in raw.indices) {
+            assertFalse(polygons[p].isClosed())
+            val extra = if (p == 1500 || p == 700) 1 else 0
+            assertEquals(raw[p].getVertexCount() + extra, polygons[p].getVertexCount())
+        }
+    }
+
+    @Test
+    fun check_polygonsClosedWithOptions() {
+        val polygons = rawPolygons(2000, 7L)
+        val pool = ForkJoinPool(4)
+        try {
+            MTPolygonMapPreparer.prepare(polygons, pool, MTPolygonOptions.DEFAULT.withEdgeBucketThreshold(3))
+        } finally {
+            pool.shutdown()
+        }
+        for (polygon in polygons) {
+            assertTrue(polygon.isClosed())
+            assertTrue(polygon.getEdgeBuckets() != null)
+        }
+
+        // the default options bucket no polygon this small
+        val plain = rawPolygons(2000, 7L)
+        MTPolygonMapPreparer.prepare(plain, null)
+        assertTrue(plain.all { it.getEdgeBuckets() == null })
+    }
+}
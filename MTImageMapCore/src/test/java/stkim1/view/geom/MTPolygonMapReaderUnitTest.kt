@@ -0,0 +1,138 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+import java.io.StringReader
+
+class MTPolygonMapReaderUnitTest {
+
+    @Test
+    fun check_readmeFormat() {
+        val json = """
+            [
+                {
+                    "id": "Alabama",
+                    "vertices": [[409,298],[409,298],[411,292],[409,279]]
+                },
+                {
+                    "id": {
+                        "name": "Alaska",
+                        "code": "AZ",
+                        "dial": 907,
+                        "desc": "Alaska State Polygon Map"
+                    },
+                    "vertices": [[58,294],[56,293],[55,292],[54,292],[51,294]]
+                },
+                {
+                    "vertices": [[163.5,213.25],[153,-2.9e2],[131E0,288],[90,266]],
+                    "description": "An area map without an id"
+                }
+            ]
+        """.trimIndent()
+
+        val polygons = MTPolygonMapReader.read(StringReader(json))
+        assertEquals(3, polygons.size)
+
+        assertEquals("Alabama", polygons[0].getPolygonId())
+        assertEquals(4, polygons[0].getVertexCount())
+        assertEquals(411.0, polygons[0].getVertexX(2), 0.0)
+        assertEquals(292.0, polygons[0].getVertexY(2), 0.0)
+
+        val alaska = polygons[1].getPolygonId() as Map<*, *>
+        assertEquals("Alaska", alaska["name"])
+        assertEquals(907L, alaska["dial"])
+        assertEquals(5, polygons[1].getVertexCount())
+
+        assertNull(polygons[2].getPolygonId())
+        assertEquals(163.5, polygons[2].getVertexX(0), 0.0)
+        assertEquals(213.25, polygons[2].getVertexY(0), 0.0)
+        assertEquals(-290.0, polygons[2].getVertexY(1), 0.0)
+        assertEquals(131.0, polygons[2].getVertexX(2), 0.0)
+        assertTrue(polygons.all { it.isClosed() })
+    }
+
+    @Test
+    fun check_numbersSameAsJdk() {
+        val numbers = listOf("0", "-0.5", "1.1", "0.1", "123456.789", "3.141592653589793",
+            "1e-7", "12345678901234567890", "9.999999999999999e22", "-2.2250738585072014E-308")
+        val json = numbers.joinToString(",", "[{\"vertices\":[", "]}]") { "[$it,$it]" }
+        val polygon = MTPolygonMapReader.read(StringReader(json))[0]
+        for (i in numbers.indices) {
+            assertEquals(numbers[i].toDouble(), polygon.getVertexX(i), 0.0)
+        }
+    }
+
+    @Test
+    fun check_sampleMap() {
+        val polygons = File("../sample/assets/us_states.json").inputStream().use {
+            MTPolygonMapReader.read(it)
+        }
+        assertTrue(polygons.size >= 50)
+        assertEquals("Alabama", polygons[0].getPolygonId())
+        assertEquals(409.0, polygons[0].getVertexX(0), 0.0)
+        assertEquals(298.0, polygons[0].getVertexY(0), 0.0)
+        assertTrue(polygons[0].isPointInPolygon(MTPoint(430.0, 260.0)))
+    }
+
+    @Test
+    fun check_insufficientVertices() {
+        val exception = assertThrows(IOException::class.java) {
+            MTPolygonMapReader.read(StringReader("[{\"vertices\":[[0,0],[1,1]]}]"))
+        }
+        assertEquals("Polygon #0 must have at least three vertices.", exception.message)
+    }
+
+    @Test
+    fun check_missingVertices() {
+        val exception = assertThrows(IOException::class.java) {
+            MTPolygonMapReader.read(StringReader("[{\"id\":\"a\",\"vertices\":[[0,0],[1,1],[1,0]]},{\"id\":\"b\"}]"))
+        }
+        assertEquals("Polygon #1 has no vertices field.", exception.message)
+    }
+
+    @Test
+    fun check_malformedJson() {
+        val exception = assertThrows(IOException::class.java) {
+            MTPolygonMapReader.read(StringReader("[{\"vertices\":[[0,0],[1,1],[1,0]]"))
+        }
+        assertEquals("Malformed polygon map JSON at offset 32: unexpected end of stream.", exception.message)
+    }
+
+    @Test
+    fun check_multipolygon() {
+        val json = "[{\"holes\":[[[4,4],[6,4],[6,6],[4,6]]],\"id\":\"building\"," +
+                "\"vertices\":[[0,0],[10,0],[10,10],[0,10]]," +
+                "\"parts\":[{\"vertices\":[[20,0],[30,0],[25,8]],\"name\":\"annex\"}]}," +
+                "{\"vertices\":[[0,0],[1,0],[0,1]]}]"
+        val polygons = MTPolygonMapReader.read(StringReader(json))
+
+        val building = polygons[0]
+        assertEquals("building", building.getPolygonId())
+        assertEquals(3, building.getRingCount())
+        assertEquals(11, building.getVertexCount())
+        // rings are kept in the order of the fields
+        assertTrue(building.isHole(0))
+        assertEquals(4.0, building.getVertexX(0), 0.0)
+        assertTrue(building.isPointInPolygon(2.0, 2.0))
+        assertTrue(!building.isPointInPolygon(5.0, 5.0))
+        assertTrue(building.isPointInPolygon(25.0, 3.0))
+        assertEquals(1, polygons[1].getRingCount())
+    }
+
+    @Test
+    fun check_multipolygonWithoutOuterRing() {
+        var exception = assertThrows(IOException::class.java) {
+            MTPolygonMapReader.read(StringReader("[{\"holes\":[[[0,0],[1,1],[1,0]]]}]"))
+        }
+        assertEquals("Polygon #0 has no vertices field.", exception.message)
+        exception = assertThrows(IOException::class.java) {
+            MTPolygonMapReader.read(StringReader("[{\"parts\":[{\"holes\":[]}]}]"))
+        }
+        assertEquals("A part of polygon #0 has no vertices field.", exception.message)
+    }
+}
@@ -0,0 +1,89 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+class MTPolygonTrackerUnitTest {
+
+    private fun randomPolygons(count: Int, seed: Long): List<MTPolygon> {
+        return randomPolygons(count, seed, extent = 300.0, minRadius = 5.0, maxRadius = 45.0)
+    }
+
+    private fun current(tracker: MTPolygonTracker): Set<Int> {
+        return (0 until tracker.getCurrentCount()).map { tracker.getCurrent(it) }.toSet()
+    }
+
+    // walk a point like a dragging finger, and compare against a linear scan at every step
+    private fun walk(polygons: List<MTPolygon>, hitMap: MTPolygonHitMap?) {
+        val tracker = MTPolygonTracker(MTPolygonIndex(polygons))
+        val rnd = Random(7L)
+        var x = 150.0
+        var y = 150.0
+        var last = emptySet<Int>()
+        for (step in 0 until 20000) {
+            x = (x + rnd.nextGaussian() * 2.0).coerceIn(-20.0, 320.0)
+            y = (y + rnd.nextGaussian() * 2.0).coerceIn(-20.0, 320.0)
+            val changed = tracker.update(x, y, hitMap)
+
+            val expected = polygons.indices.filter { polygons[it].isPointInBBox(x, y) && polygons[it].isPointInPolygon(x, y) }.toSet()
+            assertEquals(expected, current(tracker))
+            val entered = (0 until tracker.getEnteredCount()).map { tracker.getEntered(it) }.toSet()
+            val exited = (0 until tracker.getExitedCount()).map { tracker.getExited(it) }.toSet()
+            assertEquals(expected - last, entered)
+            assertEquals(last - expected, exited)
+            assertEquals(expected != last, changed)
+            last = expected
+        }
+    }
+
+    @Test
+    fun check_dragSameAsLinearScan() {
+        walk(randomPolygons(200, 11L), null)
+    }
+
+    @Test
+    fun check_dragWithHitMapSameAsLinearScan() {
+        val polygons = randomPolygons(200, 13L)
+        walk(polygons, MTPolygonHitMap(polygons, 4.0))
+    }
+
+    @Test
+    fun check_clearLeavesEveryPolygon() {
+        val square = listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(10.0, 10.0), MTPoint(0.0, 10.0))
+        val polygons = listOf(MTPolygon("a", square), MTPolygon("b", square))
+        val tracker = MTPolygonTracker(MTPolygonIndex(polygons))
+
+        assertTrue(tracker.update(5.0, 5.0, null))
+        assertEquals(2, tracker.getEnteredCount())
+        assertFalse(tracker.update(6.0, 5.0, null))
+
+        assertTrue(tracker.clear())
+        assertEquals(2, tracker.getExitedCount())
+        assertEquals(0, tracker.getCurrentCount())
+        assertFalse(tracker.clear())
+    }
+
+    @Test
+    fun check_followsIndexUpdates() {
+        val square = listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(10.0, 10.0), MTPoint(0.0, 10.0))
+        val index = MTPolygonIndex(listOf(MTPolygon("a", square)))
+        val tracker = MTPolygonTracker(index)
+        assertTrue(tracker.update(5.0, 5.0, null))
+
+        // the polygon moves away from the point, and is forgotten without leaving it
+        index.set(0, MTPolygon("a", square.map { MTPoint(it.x + 20.0, it.y) }))
+        assertTrue(tracker.remove(0))
+        assertFalse(tracker.update(5.0, 5.0, null))
+        assertEquals(0, tracker.getCurrentCount())
+
+        // a polygon added under the point is entered
+        assertEquals(1, index.add(MTPolygon("b", square)))
+        assertTrue(tracker.update(5.0, 5.0, null))
+        assertEquals(1, tracker.getEntered(0))
+        assertTrue(tracker.update(25.0, 5.0, null))
+        assertEquals(setOf(0), current(tracker))
+    }
+}
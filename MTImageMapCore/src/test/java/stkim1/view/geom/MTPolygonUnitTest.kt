@@ -0,0 +1,759 @@
+package stkim1.view.geom
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import stkim1.view.geom.MTPoint
+import stkim1.view.geom.MTPolygon
+import java.io.File
+import java.io.InvalidObjectException
+import java.math.BigDecimal
+import java.security.InvalidParameterException
+import java.util.Random
+
+class MTPolygonUnitTest {
+
+    @Test(expected = NullPointerException::class)
+    fun check_invalidInstantiation() {
+        val vts : List<MTPoint> = null as List<MTPoint>
+        MTPolygon(null, vts)
+    }
+
+    @Test
+    fun check_insufficientInstantiation() {
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            val vts : List<MTPoint> = listOf(
+                MTPoint(),
+                MTPoint()
+            )
+            MTPolygon(null, vts)
+        }
+        assertEquals("MTPolygon must be instantiated with at least three vertices.", exception.message)
+    }
+
+    @Test
+    fun check_insufficientPointsOfClosing() {
+        val plg = MTPolygon()
+        plg.addVertex(MTPoint())
+        plg.addVertex(MTPoint())
+
+        val exception = assertThrows(InvalidObjectException::class.java) {
+            plg.close()
+        }
+        assertEquals("MTPolygon must have at least three vertices.", exception.message)
+    }
+
+    @Test
+    fun check_invalidStateOfAddition() {
+        val plg = MTPolygon()
+        plg.addVertex(MTPoint())
+        plg.addVertex(MTPoint())
+        plg.addVertex(MTPoint())
+        plg.close()
+
+        val exception = assertThrows(InvalidObjectException::class.java) {
+            plg.addVertex(MTPoint())
+        }
+        assertEquals("A closed MTPolygon cannot take a further vertex.", exception.message)
+    }
+
+    @Test
+    fun check_invalidStateOfVerticesAddition() {
+        val plg = MTPolygon()
+        plg.addVertex(MTPoint())
+        plg.addVertex(MTPoint())
+        plg.addVertex(MTPoint())
+        plg.close()
+
+        val exception = assertThrows(InvalidObjectException::class.java) {
+            plg.addVertices(arrayOf(
+                MTPoint(),
+                MTPoint()
+            ))
+        }
+        assertEquals("A closed MTPolygon cannot take a further vertex.", exception.message)
+    }
+
+    @Test
+    fun check_insufficientPackedInstantiation() {
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygon(null, doubleArrayOf(0.0, 1.0), doubleArrayOf(0.0, 1.0), 0, 2)
+        }
+        assertEquals("MTPolygon must be instantiated with at least three vertices.", exception.message)
+    }
+
+    @Test
+    fun check_outOfRangePackedInstantiation() {
+        val exception = assertThrows(IndexOutOfBoundsException::class.java) {
+            MTPolygon(null, DoubleArray(4), DoubleArray(4), 2, 3)
+        }
+        assertEquals("MTPolygon vertices range is out of the arrays.", exception.message)
+    }
+
+    @Test
+    fun check_packedVerticesShared() {
+        // two triangles sharing a pair of arrays
+        val xs = doubleArrayOf(2.0, 8.48, 4.0, 12.0, 18.48, 14.0)
+        val ys = doubleArrayOf(2.0, 1.28, 5.0, 2.0, 1.28, 5.0)
+        val first = MTPolygon("first", xs, ys, 0, 3)
+        val second = MTPolygon("second", xs, ys, 3, 3)
+        assertTrue(first.isClosed())
+        assertEquals(3, second.getVertexCount())
+        assertEquals(12.0, second.getVertexX(0), 0.0)
+        assertEquals(5.0, second.getVertexY(2), 0.0)
+        assertThrows(IndexOutOfBoundsException::class.java) {
+            second.getVertexX(3)
+        }
+
+        val pin0 = MTPoint(4.48704, 2.43366)
+        assertTrue(first.isPointInPolygon(pin0))
+        assertFalse(second.isPointInPolygon(pin0))
+
+        val pin1 = MTPoint(14.48704, 2.43366)
+        assertFalse(first.isPointInBBox(pin1))
+        assertTrue(second.isPointInBBox(pin1))
+        assertTrue(second.isPointInPolygon(pin1))
+    }
+
+    @Test
+    fun check_listAdapterPacksVertices() {
+        val vts = listOf(MTPoint(2.0, 2.0), MTPoint(8.48, 1.28), MTPoint(4.0, 5.0))
+        val plg = MTPolygon("triangle", vts)
+        assertEquals(3, plg.getVertexCount())
+        for (i in vts.indices) {
+            assertEquals(vts[i].x, plg.getVertexX(i), 0.0)
+            assertEquals(vts[i].y, plg.getVertexY(i), 0.0)
+        }
+    }
+
+    @Test
+    fun check_containedInTriangle() {
+        val plg = MTPolygon()
+        plg.addVertex(MTPoint(2.0, 2.0))
+        plg.addVertex(MTPoint(8.48, 1.28))
+        plg.addVertex(MTPoint(4.0, 5.0))
+        plg.close()
+
+        val pin0 = MTPoint(4.48704, 2.43366)
+        assertTrue(plg.isPointInBBox(pin0))
+        assertTrue(plg.isPointInPolygon(pin0))
+
+        val pout0 = MTPoint(0.74518, 5.73454)
+        assertFalse(plg.isPointInBBox(pout0))
+        assertFalse(plg.isPointInPolygon(pout0))
+
+        val pout1 =
+            MTPoint(2.6280081207657, 1.6544778832361)
+        assertTrue(plg.isPointInBBox(pout1))
+        assertFalse(plg.isPointInPolygon(pout1))
+
+        val pout2 =
+            MTPoint(2.2047619322035, 0.5504882657519)
+        assertFalse(plg.isPointInBBox(pout2))
+        assertFalse(plg.isPointInPolygon(pout2))
+    }
+
+    @Test
+    fun check_containedInPolygon() {
+        val plg = MTPolygon()
+        plg.addVertex(
+            MTPoint(
+                -3.9060685661704,
+                3.1409490204973
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                -4.1717568487084,
+                -1.4753848886004
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                1.606963296493,
+                -2.7706152659731
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                4.6291675103627,
+                0.2183779125794
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                2.8357716032312,
+                3.6723255855733
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                0.942742590148,
+                5.2996663161186
+            )
+        )
+        plg.close()
+
+        val pin0 = MTPoint(0.0, 0.0)
+        assertTrue(plg.isPointInBBox(pin0))
+        assertTrue(plg.isPointInPolygon(pin0))
+
+        val pout0 =
+            MTPoint(-2.5166132712889, 5.0510486438397)
+        assertTrue(plg.isPointInBBox(pout0))
+        assertFalse(plg.isPointInPolygon(pout0))
+
+        val pout1 =
+            MTPoint(-2.1452355241319, -2.422928517696)
+        assertTrue(plg.isPointInBBox(pout1))
+        assertFalse(plg.isPointInPolygon(pout1))
+
+        val pout2 =
+            MTPoint(3.8419772309624, -1.6032547323138)
+        assertTrue(plg.isPointInBBox(pout2))
+        assertFalse(plg.isPointInPolygon(pout2))
+
+        val pout3 =
+            MTPoint(-2.5423726942885, -4.62742048638)
+        assertFalse(plg.isPointInBBox(pout3))
+        assertFalse(plg.isPointInPolygon(pout3))
+    }
+
+
+    @Test
+    fun check_containedInPineApplePolygon() {
+        val plg = MTPolygon()
+        plg.addVertex(
+            MTPoint(
+                -36.7450621119697,
+                90.8717242738671
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                -7.0503074176843,
+                67.9257774646465
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                26.69373200764,
+                38.9059035588676
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                41.5411093547827,
+                7.1865064990627
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                37.4918246237437,
+                -44.1044334274302
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                5.7724275639389,
+                -73.7991881217157
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                -46.868273939567,
+                -79.873115218274
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                -72.5137439028134,
+                -47.4788373699627
+            )
+        )
+        plg.addVertex(MTPoint(-65.5137439028134, 0.0))
+        plg.addVertex(
+            MTPoint(
+                -15.8237576682686,
+                33.5068572508157
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                45.5903940858216,
+                65.2262543106206
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                88.1078837617301,
+                71.300181407179
+            )
+        )
+        plg.addVertex(
+            MTPoint(
+                33.4425398927048,
+                102.3446976784774
+            )
+        )
+        plg.close()
+
+        val pin0 = MTPoint(0.0, 0.0)
+        assertTrue(plg.isPointInBBox(pin0))
+        assertTrue(plg.isPointInPolygon(pin0))
+
+        val pin1 = MTPoint(
+            -13.7991153027492,
+            87.4973203313347
+        )
+        assertTrue(plg.isPointInBBox(pin1))
+        assertTrue(plg.isPointInPolygon(pin1))
+
+        val pin2 = MTPoint(
+            73.1160909482139,
+            74.1486399135347
+        )
+        assertTrue(plg.isPointInBBox(pin2))
+        assertTrue(plg.isPointInPolygon(pin2))
+
+        val pin3 = MTPoint(
+            11.6838771059102,
+            38.4269451978247
+        )
+        assertTrue(plg.isPointInBBox(pin3))
+        assertTrue(plg.isPointInPolygon(pin3))
+
+
+        val pout0 = MTPoint(
+            -54.2919626131383,
+            57.1276848485428
+        )
+        assertTrue(plg.isPointInBBox(pout0))
+        assertFalse(plg.isPointInPolygon(pout0))
+
+        val pout1 = MTPoint(
+            74.6102679916004,
+            14.6101951726341
+        )
+        assertTrue(plg.isPointInBBox(pout1))
+        assertFalse(plg.isPointInPolygon(pout1))
+
+        val pout2 = MTPoint(
+            -1.0576190984195,
+            46.8454337613997
+        )
+        assertTrue(plg.isPointInBBox(pout2))
+        assertFalse(plg.isPointInPolygon(pout2))
+
+        val pout3 = MTPoint(
+            35.5741824890283,
+            47.0729604793341
+        )
+        assertTrue(plg.isPointInBBox(pout3))
+        assertFalse(plg.isPointInPolygon(pout3))
+
+
+        val out0 = MTPoint(
+            -101.3159567336118,
+            86.212692141246
+        )
+        assertFalse(plg.isPointInBBox(out0))
+        assertFalse(plg.isPointInPolygon(out0))
+
+        val out1 = MTPoint(
+            18.4406237273981,
+            151.4386229418981
+        )
+        assertFalse(plg.isPointInBBox(out1))
+        assertFalse(plg.isPointInPolygon(out1))
+
+        val out2 = MTPoint(
+            27.3914914582772,
+            -107.2105894193644
+        )
+        assertFalse(plg.isPointInBBox(out2))
+        assertFalse(plg.isPointInPolygon(out2))
+    }
+
+    @Test
+    fun check_edgeBucketsSameAsFullWalk() {
+        // a coastline-like polygon with a lot of jagged vertices
+        val rnd = Random(3L)
+        val n = 50000
+        val xs = DoubleArray(n)
+        val ys = DoubleArray(n)
+        for (k in 0 until n) {
+            val a = Math.PI * 2.0 * k / n
+            val r = 400.0 + rnd.nextDouble() * 60.0 + Math.sin(a * 37.0) * 80.0
+            xs[k] = 500.0 + Math.cos(a) * r
+            ys[k] = 500.0 + Math.sin(a) * r
+        }
+
+        val walked = MTPolygon("walked", xs, ys, 0, n, MTPolygonOptions.DEFAULT.withEdgeBucketThreshold(Int.MAX_VALUE))
+        val bucketed = MTPolygon("bucketed", xs, ys, 0, n, MTPolygonOptions.DEFAULT.withEdgeBucketThreshold(1000))
+
+        assertTrue(walked.getEdgeBuckets() == null)
+        assertTrue(bucketed.getEdgeBuckets() != null)
+        // most edges should land in a single slab
+        assertTrue(bucketed.getEdgeBuckets()!!.getEntryCount() < n * 3)
+
+        for (i in 0 until 20000) {
+            val x = rnd.nextDouble() * 1100.0 - 50.0
+            val y = rnd.nextDouble() * 1100.0 - 50.0
+            assertEquals(walked.isPointInPolygon(x, y), bucketed.isPointInPolygon(x, y))
+        }
+        // vertices themselves, on the slab boundaries and the bounding box
+        for (k in 0 until n step 7) {
+            assertEquals(walked.isPointInPolygon(xs[k], ys[k]), bucketed.isPointInPolygon(xs[k], ys[k]))
+        }
+    }
+
+    @Test
+    fun check_optionsOfEachPolygon() {
+        val vts = listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(10.0, 10.0), MTPoint(0.0, 10.0))
+        val exact = MTPolygonOptions.DEFAULT.withFixedPointGeometry(true).withEdgeBucketThreshold(3)
+
+        // options are given to each polygon, and never change the default ones
+        val fixed = MTPolygon("fixed", vts, exact)
+        val plain = MTPolygon("plain", vts)
+        assertTrue(fixed.isFixedPoint())
+        assertTrue(fixed.getEdgeBuckets() != null)
+        assertFalse(plain.isFixedPoint())
+        assertTrue(plain.getEdgeBuckets() == null)
+        assertFalse(MTPolygonOptions.DEFAULT.isFixedPointGeometry())
+        assertEquals(128, MTPolygonOptions.DEFAULT.getEdgeBucketThreshold())
+        assertTrue(exact.isOctagonalBounds())
+
+        // an open polygon takes its options when it is closed
+        val open = MTPolygon()
+        open.addVertices(vts.toTypedArray())
+        open.close(exact)
+        assertTrue(open.isFixedPoint())
+        open.close()
+        assertTrue(open.isFixedPoint())
+    }
+
+    @Test
+    fun check_octagonalBoundsCutFalsePositives() {
+        val sample = File("../sample/assets/us_states.json")
+        val boxed = sample.inputStream().use { MTPolygonMapReader.read(it, MTPolygonOptions.DEFAULT.withOctagonalBounds(false)) }
+        val octagonal = sample.inputStream().use { MTPolygonMapReader.read(it) }
+
+        val rnd = Random(23L)
+        var boxPasses = 0
+        var octagonPasses = 0
+        var contained = 0
+        for (i in 0 until 100000) {
+            val x = rnd.nextDouble() * 600.0
+            val y = rnd.nextDouble() * 383.0
+            for (p in octagonal.indices) {
+                if (!boxed[p].isPointInBBox(x, y)) {
+                    continue
+                }
+                boxPasses++
+                val inside = octagonal[p].isPointInPolygon(x, y)
+                if (octagonal[p].isPointInBounds(x, y)) {
+                    octagonPasses++
+                    // the same winding number test as without the octagon
+                    assertEquals(boxed[p].isPointInPolygon(x, y), inside)
+                } else {
+                    assertFalse(inside)
+                }
+                if (inside) {
+                    contained++
+                }
+            }
+        }
+        // the octagons should reject more than a third of the points the boxes let through falsely
+        assertTrue((octagonPasses - contained) * 3 < (boxPasses - contained) * 2)
+    }
+
+    @Test
+    fun check_invalidEdgeBucketThreshold() {
+        val exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygonOptions.DEFAULT.withEdgeBucketThreshold(2)
+        }
+        assertEquals("MTPolygon edge bucket threshold must be at least three.", exception.message)
+    }
+
+    // winding number without truncation, and the smallest |isLeft| of the edges crossing the
+    // scanline. exact in double for small integer vertices and points on the 1/256 grid.
+    private fun referenceWinding(polygon: MTPolygon, px: Double, py: Double): Pair<Int, Double> {
+        var wn = 0
+        var nearest = Double.MAX_VALUE
+        val n = polygon.getVertexCount()
+        for (i in 0 until n) {
+            val j = (i + 1) % n
+            val x0 = polygon.getVertexX(i)
+            val y0 = polygon.getVertexY(i)
+            val x1 = polygon.getVertexX(j)
+            val y1 = polygon.getVertexY(j)
+            val up = y0 <= py && y1 > py
+            val down = y0 > py && y1 <= py
+            if (!up && !down) {
+                continue
+            }
+            val cross = (x1 - x0) * (py - y0) - (px - x0) * (y1 - y0)
+            nearest = Math.min(nearest, Math.abs(cross))
+            if (up && cross > 0.0) {
+                wn++
+            } else if (down && cross < 0.0) {
+                wn--
+            }
+        }
+        return Pair(wn, nearest)
+    }
+
+    private val fixedPoint = MTPolygonOptions.DEFAULT.withFixedPointGeometry(true)
+
+    @Test
+    fun check_fixedPointIsExactNearEdge() {
+        val vts = listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(0.0, 10.0))
+        val floating = MTPolygon(null, vts)
+        val fixed = MTPolygon(null, vts, fixedPoint)
+        assertTrue(fixed.isFixedPoint())
+        assertFalse(floating.isFixedPoint())
+
+        // x + y = 9.98 is inside, but the truncated cross product of the double path is zero.
+        assertFalse(floating.isPointInPolygon(4.99, 4.99))
+        assertTrue(fixed.isPointInPolygon(4.99, 4.99))
+        assertFalse(fixed.isPointInPolygon(5.01, 5.01))
+        // far out of the bounding box, where the cross product could overflow
+        assertFalse(fixed.isPointInPolygon(1.0e12, -1.0e12))
+    }
+
+    @Test
+    fun check_fixedPointDoesNotSnapPoint() {
+        val vts = listOf(MTPoint(0.0, 0.0), MTPoint(10.0, 0.0), MTPoint(0.0, 10.0))
+        val fixed = MTPolygon(null, vts, fixedPoint)
+        // both points snap onto (5, 5) on the hypotenuse, but only one of them is inside
+        assertTrue(fixed.isPointInPolygon(5.0 - 1.0e-6, 5.0))
+        assertFalse(fixed.isPointInPolygon(5.0 + 1.0e-6, 5.0))
+        assertTrue(fixed.isPointInPolygon(2.0, 8.0 - Math.ulp(8.0)))
+        assertFalse(fixed.isPointInPolygon(2.0, 8.0 + Math.ulp(8.0)))
+        // a point off the grid right above the bottom edge, and one right below it
+        assertTrue(fixed.isPointInPolygon(3.0, 1.0e-300))
+        assertFalse(fixed.isPointInPolygon(3.0, -1.0e-300))
+    }
+
+    // winding number with the exact cross product of the double coordinates
+    private fun exactWinding(polygon: MTPolygon, px: Double, py: Double): Int {
+        var wn = 0
+        val n = polygon.getVertexCount()
+        for (i in 0 until n) {
+            val j = (i + 1) % n
+            val x0 = polygon.getVertexX(i)
+            val y0 = polygon.getVertexY(i)
+            val x1 = polygon.getVertexX(j)
+            val y1 = polygon.getVertexY(j)
+            val up = y0 <= py && y1 > py
+            val down = y0 > py && y1 <= py
+            if (!up && !down) {
+                continue
+            }
+            val cross = BigDecimal(x1).subtract(BigDecimal(x0)).multiply(BigDecimal(py).subtract(BigDecimal(y0)))
+                    .subtract(BigDecimal(px).subtract(BigDecimal(x0)).multiply(BigDecimal(y1).subtract(BigDecimal(y0))))
+                    .signum()
+            if (up && cross > 0) {
+                wn++
+            } else if (down && cross < 0) {
+                wn--
+            }
+        }
+        return wn
+    }
+
+    @Test
+    fun check_fixedPointSameAsExactNearEdges() {
+        val rnd = Random(11L)
+        val offsets = doubleArrayOf(0.0, 1.0e-300, 1.0e-12, 1.0e-6, 1.0 / 1024.0, 1.0 / 512.0, 3.0 / 1024.0, 0.01)
+        var nearMisses = 0
+        for (p in 0 until 50) {
+            // a star of vertices on the 1/256 grid, with concave and slanted edges
+            val n = 5 + rnd.nextInt(200)
+            val cx = rnd.nextInt(2000) - 1000.0
+            val cy = rnd.nextInt(2000) - 1000.0
+            val vts = (0 until n).map {
+                val angle = 2.0 * Math.PI * it / n
+                val radius = 20.0 + rnd.nextDouble() * 300.0
+                MTPoint(Math.floor((cx + radius * Math.cos(angle)) * 256.0) / 256.0,
+                        Math.floor((cy + radius * Math.sin(angle)) * 256.0) / 256.0)
+            }
+            val fixed = MTPolygon(null, vts, fixedPoint)
+            val bucketed = MTPolygon(null, vts, fixedPoint.withEdgeBucketThreshold(3))
+            assertTrue(fixed.isFixedPoint())
+            assertTrue(bucketed.isFixedPoint())
+
+            // points on edges, and pushed off them by less than the grid and more
+            for (k in 0 until 400) {
+                val i = rnd.nextInt(n)
+                val j = (i + 1) % n
+                val t = rnd.nextDouble()
+                val ex = vts[i].x + t * (vts[j].x - vts[i].x)
+                val ey = vts[i].y + t * (vts[j].y - vts[i].y)
+                val d = offsets[rnd.nextInt(offsets.size)] * (if (rnd.nextBoolean()) 1.0 else -1.0)
+                val x = if (rnd.nextBoolean()) ex + d else ex
+                val y = if (rnd.nextBoolean()) ey + d else ey
+
+                val exact = exactWinding(fixed, x, y) != 0
+                assertEquals(exact, fixed.isPointInPolygon(x, y))
+                assertEquals(exact, bucketed.isPointInPolygon(x, y))
+                if (exact != fixed.isPointInPolygon(Math.rint(x * 256.0) / 256.0, Math.rint(y * 256.0) / 256.0)) {
+                    nearMisses++
+                }
+            }
+        }
+        // snapping the point onto the grid would have misclassified some of them
+        assertTrue(nearMisses > 0)
+    }
+
+    @Test
+    fun check_fixedPointNeedsGridVertices() {
+        val offGrid = MTPolygon(null, listOf(MTPoint(0.1, 0.0), MTPoint(10.0, 0.0), MTPoint(0.0, 10.0)), fixedPoint)
+        val tooFar = MTPolygon(null, listOf(MTPoint(0.0, 0.0), MTPoint(5.0e6, 0.0), MTPoint(0.0, 10.0)), fixedPoint)
+        assertFalse(offGrid.isFixedPoint())
+        assertFalse(tooFar.isFixedPoint())
+        assertTrue(offGrid.isPointInPolygon(2.0, 2.0))
+    }
+
+    @Test
+    fun check_fixedPointSameAsDoublePath() {
+        val json = File("../sample/assets/us_states.json")
+        val floating = json.inputStream().use { MTPolygonMapReader.read(it) }
+        val fixed = json.inputStream().use { MTPolygonMapReader.read(it, fixedPoint) }
+        val bucketed = json.inputStream().use { MTPolygonMapReader.read(it, fixedPoint.withEdgeBucketThreshold(3)) }
+
+        val rnd = Random(5L)
+        var agreed = 0
+        for (p in floating.indices) {
+            assertTrue(fixed[p].isFixedPoint())
+            val box = floating[p].getBoundingBox()
+            val points = ArrayList<Pair<Double, Double>>()
+            // random points on the 1/256 grid around the polygon
+            for (i in 0 until 400) {
+                val x = Math.floor((box.minVertex.x - 2.0 + rnd.nextDouble() * (box.maxVertex.x - box.minVertex.x + 4.0)) * 256.0) / 256.0
+                val y = Math.floor((box.minVertex.y - 2.0 + rnd.nextDouble() * (box.maxVertex.y - box.minVertex.y + 4.0)) * 256.0) / 256.0
+                points.add(Pair(x, y))
+            }
+            // vertices and midpoints of edges
+            val n = floating[p].getVertexCount()
+            for (i in 0 until n) {
+                val j = (i + 1) % n
+                points.add(Pair(floating[p].getVertexX(i), floating[p].getVertexY(i)))
+                points.add(Pair((floating[p].getVertexX(i) + floating[p].getVertexX(j)) / 2.0,
+                                (floating[p].getVertexY(i) + floating[p].getVertexY(j)) / 2.0))
+            }
+
+            for ((x, y) in points) {
+                val (wn, nearest) = referenceWinding(floating[p], x, y)
+                val exact = (wn != 0)
+                assertEquals(exact, fixed[p].isPointInPolygon(x, y))
+                assertEquals(exact, bucketed[p].isPointInPolygon(x, y))
+                // the double path agrees whenever truncation cannot flip a crossing
+                if (nearest >= 1.0) {
+                    assertEquals(floating[p].isPointInPolygon(x, y), fixed[p].isPointInPolygon(x, y))
+                    agreed++
+                }
+            }
+        }
+        assertTrue(agreed > floating.size * 300)
+    }
+
+    private fun segmentDistance(px: Double, py: Double, ax: Double, ay: Double, bx: Double, by: Double): Double {
+        val dx = bx - ax
+        val dy = by - ay
+        val len = dx * dx + dy * dy
+        val t = if (len > 0.0) (((px - ax) * dx + (py - ay) * dy) / len).coerceIn(0.0, 1.0) else 0.0
+        return Math.hypot(ax + t * dx - px, ay + t * dy - py)
+    }
+
+    @Test
+    fun check_detailLevelsWithinTolerance() {
+        val polygons = File("../sample/assets/us_states.json").inputStream().use { MTPolygonMapReader.read(it) }
+        val total = polygons.sumOf { it.getVertexCount() }
+        var thumbnail = 0
+
+        for (polygon in polygons) {
+            val n = polygon.getVertexCount()
+            assertTrue(polygon.getDetailIndices(0) == null)
+            for (level in 1 until MTPolygon.DETAIL_LEVELS) {
+                val tolerance = MTPolygon.getDetailTolerance(level)
+                val kept = polygon.getDetailIndices(level) ?: IntArray(n) { it }
+                assertEquals(0, kept[0])
+                // every dropped vertex is within the tolerance of the segment replacing it
+                for (k in kept.indices) {
+                    val a = kept[k]
+                    val b = if (k + 1 < kept.size) kept[k + 1] else n
+                    for (i in a + 1 until b) {
+                        val d = segmentDistance(polygon.getVertexX(i), polygon.getVertexY(i),
+                            polygon.getVertexX(a), polygon.getVertexY(a),
+                            polygon.getVertexX(b % n), polygon.getVertexY(b % n))
+                        assertTrue(d <= tolerance)
+                    }
+                }
+                if (level == 5) {
+                    thumbnail += kept.size
+                }
+            }
+        }
+
+        assertEquals(1, MTPolygon.findDetailLevel(0.3))
+        assertEquals(5, MTPolygon.findDetailLevel(5.0))
+        assertEquals(MTPolygon.DETAIL_LEVELS - 1, MTPolygon.findDetailLevel(1.0e9))
+        // a map drawn at a tenth of its size keeps far fewer vertices
+        assertTrue(thumbnail * 3 < total)
+    }
+
+    @Test
+    fun check_multipolygonWithHolesAndParts() {
+        // a square with a courtyard running the same way, and a triangle as another part
+        val xs = doubleArrayOf(0.0, 10.0, 10.0, 0.0, 4.0, 6.0, 6.0, 4.0, 20.0, 30.0, 25.0)
+        val ys = doubleArrayOf(0.0, 0.0, 10.0, 10.0, 4.0, 4.0, 6.0, 6.0, 0.0, 0.0, 8.0)
+        val plg = MTPolygon("building", xs, ys, 0, intArrayOf(4, 4, 3), booleanArrayOf(false, true, false))
+
+        assertEquals(3, plg.getRingCount())
+        assertEquals(4, plg.getRingStart(1))
+        assertEquals(8, plg.getRingEnd(1))
+        assertTrue(plg.isHole(1))
+        assertFalse(plg.isHole(2))
+        assertEquals(100.0 - 4.0 + 40.0, plg.getArea(), 1e-9)
+
+        assertTrue(plg.isPointInPolygon(2.0, 2.0))
+        assertFalse(plg.isPointInPolygon(5.0, 5.0))
+        assertTrue(plg.isPointInPolygon(25.0, 3.0))
+        assertFalse(plg.isPointInPolygon(15.0, 5.0))
+        // multipolygons are not simplified
+        assertTrue(plg.getDetailIndices(MTPolygon.DETAIL_LEVELS - 1) == null)
+
+        val single = MTPolygon(null, xs, ys, 0, 4)
+        assertEquals(1, single.getRingCount())
+        assertEquals(4, single.getRingEnd(0))
+        assertFalse(single.isHole(0))
+        assertThrows(IndexOutOfBoundsException::class.java) {
+            single.getRingStart(1)
+        }
+    }
+
+    @Test
+    fun check_invalidMultipolygon() {
+        val xs = DoubleArray(8)
+        val ys = DoubleArray(8)
+        var exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygon(null, xs, ys, 0, intArrayOf(4, 4), booleanArrayOf(true, true))
+        }
+        assertEquals("MTPolygon must have an outer ring.", exception.message)
+        exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygon(null, xs, ys, 0, intArrayOf(6, 2), booleanArrayOf(false, true))
+        }
+        assertEquals("MTPolygon ring must have at least three vertices.", exception.message)
+        exception = assertThrows(InvalidParameterException::class.java) {
+            MTPolygon(null, xs, ys, 0, intArrayOf(4, 4), booleanArrayOf(false))
+        }
+        assertEquals("MTPolygon needs a hole flag for every ring.", exception.message)
+        assertThrows(IndexOutOfBoundsException::class.java) {
+            MTPolygon(null, xs, ys, 0, intArrayOf(4, 5), booleanArrayOf(false, true))
+        }
+    }
+}
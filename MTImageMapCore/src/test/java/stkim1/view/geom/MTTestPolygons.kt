@@ -0,0 +1,22 @@
+package stkim1.view.geom
+
+import java.util.Random
+
+// Random star-shaped polygons of 3 to 10 vertices, centered in [0, extent) on both axes, whose
+// vertices are 0.5 to 1 of a radius in [minRadius, maxRadius) away from the center. Polygon ids
+// are their positions in the list.
+fun randomPolygons(count: Int, seed: Long, extent: Double, minRadius: Double, maxRadius: Double): List<MTPolygon> {
+    val rnd = Random(seed)
+    return (0 until count).map { i ->
+        val cx = rnd.nextDouble() * extent
+        val cy = rnd.nextDouble() * extent
+        val r = minRadius + rnd.nextDouble() * (maxRadius - minRadius)
+        val n = 3 + rnd.nextInt(8)
+        val vts = (0 until n).map { k ->
+            val a = Math.PI * 2.0 * k / n
+            val d = r * (0.5 + rnd.nextDouble() * 0.5)
+            MTPoint(cx + Math.cos(a) * d, cy + Math.sin(a) * d)
+        }
+        MTPolygon(i, vts)
+    }
+}
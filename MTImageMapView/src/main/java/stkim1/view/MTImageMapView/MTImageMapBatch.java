@@ -0,0 +1,241 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTImageMapBatch holds the polygons under every pointer of a touch event, for each of its
+ * historical samples and the current one. Samples of a pointer are numbered from the oldest
+ * historical sample, so that the current sample is <code>getSampleCount() - 1</code>.
+ * <p>
+ * All samples are converted into the logical space of <code>dp</code> unit with a single matrix
+ * mapping, and the polygon indices found for them are packed into one array. A batch is reused
+ * for every event, and is valid only during the callback.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTImageMapBatch {
+
+    private MTPreparedMap map = null;
+    private int pointerCount = 0;
+    private int sampleCount = 0;
+
+    private int[] pointerIds = new int[0];
+    // (x, y) of each sample, pointer by pointer
+    private float[] points = new float[0];
+    private boolean[] inside = new boolean[0];
+    // polygons found for sample i are hits[offsets[i]] ... hits[offsets[i + 1] - 1]
+    private int[] offsets = new int[1];
+    private int[] hits = new int[0];
+    // scratch buffer to find polygons under a single sample
+    private int[] found = new int[0];
+
+    MTImageMapBatch() {
+        super();
+    }
+
+    /**
+     * @return the number of pointers in the touch event.
+     */
+    public int getPointerCount() {
+        return this.pointerCount;
+    }
+
+    /**
+     * @param pointer the position of a pointer in the touch event.
+     * @return the pointer identifier as <code>MotionEvent.getPointerId</code> returns.
+     */
+    public int getPointerId(int pointer) {
+        checkPointer(pointer);
+        return this.pointerIds[pointer];
+    }
+
+    /**
+     * @return the number of samples of each pointer, the historical ones and the current one.
+     */
+    public int getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * @param pointer the position of a pointer in the touch event.
+     * @param sample the position of a sample, from the oldest historical sample.
+     * @return <code>true</code> if the sample is in the valid view area.
+     */
+    public boolean isInside(int pointer, int sample) {
+        return this.inside[sampleAt(pointer, sample)];
+    }
+
+    /**
+     * @param pointer the position of a pointer in the touch event.
+     * @param sample the position of a sample, from the oldest historical sample.
+     * @return x part of the sample in the logical space of <code>dp</code> unit, or zero if the
+     *      sample is out of the valid view area.
+     */
+    public double getX(int pointer, int sample) {
+        return this.points[sampleAt(pointer, sample) * 2];
+    }
+
+    /**
+     * @param pointer the position of a pointer in the touch event.
+     * @param sample the position of a sample, from the oldest historical sample.
+     * @return y part of the sample in the logical space of <code>dp</code> unit, or zero if the
+     *      sample is out of the valid view area.
+     */
+    public double getY(int pointer, int sample) {
+        return this.points[sampleAt(pointer, sample) * 2 + 1];
+    }
+
+    /**
+     * @param pointer the position of a pointer in the touch event.
+     * @param sample the position of a sample, from the oldest historical sample.
+     * @return the number of polygons which contain the sample.
+     */
+    public int getPolygonCount(int pointer, int sample) {
+        final int at = sampleAt(pointer, sample);
+        return this.offsets[at + 1] - this.offsets[at];
+    }
+
+    /**
+     * @param pointer the position of a pointer in the touch event.
+     * @param sample the position of a sample, from the oldest historical sample.
+     * @param i the position in the polygons which contain the sample, in the order of the list
+     *      of polygons.
+     * @return a polygon which contains the sample.
+     */
+    @NonNull
+    public MTPolygon getPolygon(int pointer, int sample, int i) {
+        final int at = sampleAt(pointer, sample);
+        if (i < 0 || this.offsets[at] + i >= this.offsets[at + 1]) {
+            throw new IndexOutOfBoundsException("Polygon index " + i + " is out of " + (this.offsets[at + 1] - this.offsets[at]) + " polygons.");
+        }
+        return this.map.polygons.get(this.hits[this.offsets[at] + i]);
+    }
+
+    /**
+     * Convert every sample of an event, and find polygons under them.
+     *
+     * @param event a touch event.
+     * @param touchArea the touchable area of the image in the view space.
+     * @param touchConvMat the matrix from the touch area to the logical space of <code>dp</code> unit.
+     * @param pMap the polygon maps to find polygons from.
+     */
+    void resolve(@NonNull MotionEvent event, @NonNull Rect touchArea, @NonNull Matrix touchConvMat,
+                 @NonNull MTPreparedMap pMap) {
+        final int pcnt = event.getPointerCount();
+        final int hsz = event.getHistorySize();
+        begin(pcnt, hsz + 1);
+
+        // pack every sample, then convert them at once
+        for (int p = 0; p < pcnt; p++) {
+            setPointer(p, event.getPointerId(p));
+            for (int h = 0; h < hsz; h++) {
+                setSample(p, h, event.getHistoricalX(p, h), event.getHistoricalY(p, h));
+            }
+            setSample(p, hsz, event.getX(p), event.getY(p));
+        }
+        finish(touchArea, touchConvMat, pMap);
+    }
+
+    /**
+     * Start a batch of pointers, each of which has the same number of samples.
+     *
+     * @param pcnt the number of pointers.
+     * @param scnt the number of samples of each pointer.
+     */
+    void begin(int pcnt, int scnt) {
+        ensureCapacity(pcnt, pcnt * scnt);
+        this.pointerCount = pcnt;
+        this.sampleCount = scnt;
+    }
+
+    void setPointer(int pointer, int pointerId) {
+        this.pointerIds[pointer] = pointerId;
+    }
+
+    /**
+     * Pack a sample in the view space.
+     */
+    void setSample(int pointer, int sample, float tX, float tY) {
+        final int at = pointer * this.sampleCount + sample;
+        this.points[at * 2] = tX;
+        this.points[at * 2 + 1] = tY;
+    }
+
+    /**
+     * Convert every packed sample at once, and find polygons under them.
+     */
+    void finish(@NonNull Rect touchArea, @NonNull Matrix touchConvMat, @NonNull MTPreparedMap pMap) {
+        final int total = this.pointerCount * this.sampleCount;
+        this.map = pMap;
+
+        for (int at = 0; at < total; at++) {
+            final float tX = this.points[at * 2];
+            final float tY = this.points[at * 2 + 1];
+            this.inside[at] = !pMap.isEmpty() && MTTouchResolver.contains(touchArea, tX, tY);
+            this.points[at * 2] = tX - touchArea.left;
+            this.points[at * 2 + 1] = tY - touchArea.top;
+        }
+        if (!touchConvMat.isIdentity()) {
+            touchConvMat.mapPoints(this.points, 0, this.points, 0, total);
+        }
+
+        // A sample is hit tested into the scratch buffer, which is as large as the polygon maps,
+        // and only the polygons found are packed. The packed hits grow with the polygons found.
+        final int psz = pMap.polygons.size();
+        if (this.found.length < psz) {
+            this.found = new int[psz];
+        }
+        int used = 0;
+        for (int at = 0; at < total; at++) {
+            this.offsets[at] = used;
+            if (!this.inside[at]) {
+                this.points[at * 2] = 0.0f;
+                this.points[at * 2 + 1] = 0.0f;
+                continue;
+            }
+            final int n = pMap.findPolygonIndices(this.points[at * 2], this.points[at * 2 + 1], this.found, 0);
+            if (this.hits.length - used < n) {
+                int[] grown = new int[Math.max(this.hits.length * 2, used + n)];
+                System.arraycopy(this.hits, 0, grown, 0, used);
+                this.hits = grown;
+            }
+            System.arraycopy(this.found, 0, this.hits, used, n);
+            used += n;
+        }
+        this.offsets[total] = used;
+    }
+
+    // buffers grow and are kept, so that a steady stream of events does not allocate
+    private void ensureCapacity(int pcnt, int total) {
+        if (this.pointerIds.length < pcnt) {
+            this.pointerIds = new int[pcnt];
+        }
+        if (this.inside.length < total) {
+            this.inside = new boolean[total];
+            this.points = new float[total * 2];
+            this.offsets = new int[total + 1];
+        }
+    }
+
+    private int sampleAt(int pointer, int sample) {
+        checkPointer(pointer);
+        if (sample < 0 || sample >= this.sampleCount) {
+            throw new IndexOutOfBoundsException("Sample index " + sample + " is out of " + this.sampleCount + " samples.");
+        }
+        return pointer * this.sampleCount + sample;
+    }
+
+    private void checkPointer(int pointer) {
+        if (pointer < 0 || pointer >= this.pointerCount) {
+            throw new IndexOutOfBoundsException("Pointer index " + pointer + " is out of " + this.pointerCount + " pointers.");
+        }
+    }
+}
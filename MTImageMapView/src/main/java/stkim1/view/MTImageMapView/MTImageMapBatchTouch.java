@@ -0,0 +1,27 @@
+package stkim1.view.MTImageMapView;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTImageMapBatchTouch interface delivers the polygon maps under every pointer of a touch event,
+ * including the historical samples batched into it.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public interface MTImageMapBatchTouch {
+    /**
+     * Passes a touch event on <code>MTImageMapView</code> and the polygons under each of its
+     * pointers and samples. It is called for every touch event, not only when a pointer is lifted.
+     *
+     * @param event unaltered <code>android.view.MotionEvent</code> from
+     *      <code>android.view.View</code>.
+     * @param batch the points and polygons of every sample. It is reused for every event, and is
+     *      valid only during this call.
+     * @see MTImageMapBatch
+     */
+    void onImageMapTouched(@NonNull MotionEvent event, @NonNull MTImageMapBatch batch);
+}
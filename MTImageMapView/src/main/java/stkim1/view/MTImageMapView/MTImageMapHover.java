@@ -0,0 +1,41 @@
+package stkim1.view.MTImageMapView;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+import stkim1.view.geom.MTPoint;
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTImageMapHover interface delivers polygon maps a moving pointer enters and leaves, while a
+ * finger drags on <code>MTImageMapView</code>, or a stylus or a mouse hovers over it.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public interface MTImageMapHover {
+    /**
+     * Passes a polygon the pointer has just entered.
+     *
+     * @param event unaltered <code>android.view.MotionEvent</code> from
+     *      <code>android.view.View</code>.
+     * @param point a <code>MTPoint</code> in the logical space of <code>dp</code> unit.
+     * @param polygon the polygon the pointer has entered.
+     */
+    void onImageMapEntered(@NonNull MotionEvent event, @NonNull MTPoint point, @NonNull MTPolygon polygon);
+
+    /**
+     * Passes a polygon the pointer has just left. A pointer leaves every polygon it is in when
+     * the finger is lifted, the gesture is canceled, the hover ends, the pointer moves out of the
+     * valid view area, or the polygon maps are replaced.
+     *
+     * @param event unaltered <code>android.view.MotionEvent</code> from
+     *      <code>android.view.View</code>.
+     * @param point a <code>MTPoint</code> in the logical space of <code>dp</code> unit. A zero
+     *      point is delivered if the pointer is out of the valid view area.
+     * @param polygon the polygon the pointer has left.
+     */
+    void onImageMapExited(@NonNull MotionEvent event, @NonNull MTPoint point, @NonNull MTPolygon polygon);
+}
@@ -0,0 +1,31 @@
+package stkim1.view.MTImageMapView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTImageMapLoad interface is notified when polygon maps set asynchronously are ready.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public interface MTImageMapLoad {
+    /**
+     * Called on the UI thread once polygon maps passed to
+     * <code>MTImageMapView.setPolygons(List, Executor, MTImageMapLoad)</code> are prepared and
+     * published to the view, or their preparation has failed. It is not called for a load
+     * superseded by another <code>setPolygons</code> call.
+     *
+     * @param polygons the <code>List{@literal <}{@link MTPolygon}{@literal >}</code> passed to
+     *      <code>setPolygons</code>. It is an empty list if <code>null</code> is passed.
+     *
+     * @param error <code>null</code> if the polygon maps are published. Otherwise, the exception
+     *      thrown while they are prepared, and the view keeps the previous polygon maps.
+     */
+    void onImageMapLoaded(@NonNull List<MTPolygon> polygons, @Nullable Exception error);
+}
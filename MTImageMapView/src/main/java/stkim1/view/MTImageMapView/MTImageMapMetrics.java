@@ -0,0 +1,26 @@
+package stkim1.view.MTImageMapView;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTImageMapMetrics interface delivers how much time and work it took to resolve a touch.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public interface MTImageMapMetrics {
+    /**
+     * Passes the metrics of a touch resolved for <code>MTImageMapTouch</code>, right after the
+     * touch receiver is called.
+     *
+     * @param event unaltered <code>android.view.MotionEvent</code> from
+     *      <code>android.view.View</code>.
+     * @param metrics the metrics of the touch and the latency histogram. It is reused for every
+     *      touch. Read what you need during this call.
+     * @see MTTouchMetrics
+     */
+    void onImageMapMeasured(@NonNull MotionEvent event, @NonNull MTTouchMetrics metrics);
+}
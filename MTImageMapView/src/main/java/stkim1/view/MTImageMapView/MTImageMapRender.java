@@ -0,0 +1,22 @@
+package stkim1.view.MTImageMapView;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTImageMapRender interface delivers how <code>MTImageMapView</code> drew outlines and
+ * highlights of polygon maps in each frame.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public interface MTImageMapRender {
+    /**
+     * Passes the render metrics at the end of each <code>onDraw</code>. The frame just drawn is
+     * <code>metrics.getRecentFrame(0)</code>. Keep this call short, as it is made in every frame.
+     *
+     * @param metrics the recent frames. It is reused for every frame.
+     * @see MTRenderMetrics
+     */
+    void onImageMapRendered(@NonNull MTRenderMetrics metrics);
+}
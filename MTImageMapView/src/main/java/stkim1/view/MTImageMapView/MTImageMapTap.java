@@ -0,0 +1,38 @@
+package stkim1.view.MTImageMapView;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTImageMapTap interface delivers a selected polygon map without allocation. It resolves the
+ * same touches as {@link MTImageMapTouch}, but passes the point as primitives and the polygons in
+ * a list <code>MTImageMapView</code> reuses for every touch.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public interface MTImageMapTap {
+    /**
+     * Passes a touch event on <code>MTImageMapView</code>, a point in the logical space of
+     * <code>dp</code> unit, and the selected polygons.
+     * <p>
+     * The list is valid only during this call. It is cleared and refilled by the next touch, so
+     * copy it if you need to keep it.
+     *
+     * @param event unaltered <code>android.view.MotionEvent</code> from
+     *      <code>android.view.View</code>.
+     * @param x x part of the point in the logical space of <code>dp</code> unit. Zero if
+     *      <code>MTImageMapView</code> does not have a polygon map, or the touch event happens
+     *      out of the valid view area.
+     * @param y y part of the point, in the same way as <code>x</code>.
+     * @param polygons an unmodifiable <code>List{@literal <}{@link MTPolygon}{@literal >}</code>
+     *      of selected polygons. It is empty if no polygon is selected.
+     */
+    void onImageMapTapped(@NonNull MotionEvent event, double x, double y, @NonNull List<MTPolygon> polygons);
+}
@@ -20,7 +20,8 @@ public interface MTImageMapTouch {
     /**
      * Passes a touch event on <code>MTImageMapView</code>, a point in the logical space of
      * <code>dp</code> unit, and a <code>List{@literal <}{@link MTPolygon}{@literal >}</code> of
-     * selected polygons.
+     * selected polygons. The point and the list are not changed after this call, so they can be
+     * kept. Use {@link MTImageMapTap} to receive touches without allocation.
      *
      * @param event unaltered <code>android.view.MotionEvent</code> from
      *      <code>android.view.View</code>.<p>
@@ -34,7 +35,7 @@ public interface MTImageMapTouch {
      * @param polygons a <code>List{@literal <}{@link MTPolygon}{@literal >}</code> of selected polygons.
      *      If (1) no polygon is selected, (2) <code>MTImageMapView</code> does not contains a polygon
      *      map, (3) the touch event happens out of the valid view area, the polygon list will be
-     *      an empty list.
+     *      an empty list. The list is unmodifiable.
      */
     void onImageMapClicked(@NonNull MotionEvent event, @NonNull MTPoint point, @NonNull List<MTPolygon> polygons);
 }
@@ -6,24 +6,35 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
+import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.ViewTreeObserver;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.widget.AppCompatImageView;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidParameterException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import stkim1.view.geom.MTPoint;
 import stkim1.view.geom.MTPolygon;
+import stkim1.view.geom.MTPolygonHitMap;
+import stkim1.view.geom.MTPolygonIndex;
+import stkim1.view.geom.MTPolygonTracker;
 
 /**
  * MTImageMapView lets a user to select a polygon map on an image.
@@ -36,23 +47,86 @@ public class MTImageMapView extends AppCompatImageView
                             implements ViewTreeObserver.OnGlobalLayoutListener {
 
     private Paint pathColor;
+    private Paint selectionColor;
     private boolean pathVisible;
     private Matrix touchConvMat;
     private Matrix pathMatrix;
     private Rect touchArea;
     private MTImageMapTouch touchedMapReceiver;
-    private final List<MTPolygon> polygons = new ArrayList<>();
+    private MTImageMapTap tappedMapReceiver;
+    private MTImageMapHover hoveredMapReceiver;
+    private MTImageMapBatchTouch batchedMapReceiver;
+    private MTImageMapMetrics touchMetricsReceiver;
+    // allocated when a metrics receiver is set for the first time
+    private MTTouchMetrics touchMetrics;
+    private MTImageMapRender renderMetricsReceiver;
+    // allocated when a render metrics receiver is set for the first time
+    private MTRenderMetrics renderMetrics;
+    // polygons, their index, and cached paths are swapped at once with this reference.
+    private MTPreparedMap preparedMap;
+    // a replaced map whose polygons a pointer is still in. they are left at the next move.
+    private MTPreparedMap leftMap;
+    // removed or replaced polygons a pointer was in. they are left at the next move, too.
+    private final ArrayList<MTPolygon> leftPolygons = new ArrayList<>();
+    // bumped by every setPolygons to supersede loads in flight
+    private final AtomicInteger mapGeneration = new AtomicInteger();
+    private double hitMapCellSize;
+    private Executor hitMapExecutor;
+    // packs the spatial index again as in-place updates pile up. null to pack on the UI thread.
+    private Executor indexExecutor;
+    private boolean hierarchyEnabled;
+
+    // a large image decoded by visible tiles, and the gestures to zoom and pan it
+    private MTTiledImage tiledImage;
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector panDetector;
+    // true once the current gesture has zoomed or panned the tiled image
+    private boolean gestureMoved;
+
+    // scratch buffers to cull outlines without allocation
+    private final Rect clipBounds = new Rect();
+    private final RectF clipArea = new RectF();
+    private final Matrix pathInverse = new Matrix();
+
+    // scratch buffers to invalidate the bounds of changed selection without allocation
+    private final RectF selectionBounds = new RectF();
+    private final Rect dirtyArea = new Rect();
+    // outlines recorded for hardware accelerated frames from API 29, null below
+    private MTOutlineLayer outlineLayer;
+
+    // scratch buffers to resolve a touch without allocation
+    private final MTTouchResolver touchResolver = new MTTouchResolver();
+    private final MTImageMapBatch touchedBatch = new MTImageMapBatch();
 
     // Instance initialization block
     {
         pathColor = new Paint();
         pathColor.setColor(Color.BLUE);
         pathColor.setStyle(Paint.Style.STROKE);
+        selectionColor = new Paint();
+        selectionColor.setColor(Color.BLUE);
+        selectionColor.setAlpha(96);
+        selectionColor.setStyle(Paint.Style.FILL);
         pathVisible = false;
         touchConvMat = new Matrix(); // starts with an identity matrix
         pathMatrix = new Matrix();   // starts with an identity matrix
         touchArea = new Rect();
         touchedMapReceiver = null;
+        tappedMapReceiver = null;
+        hoveredMapReceiver = null;
+        batchedMapReceiver = null;
+        touchMetricsReceiver = null;
+        touchMetrics = null;
+        renderMetricsReceiver = null;
+        renderMetrics = null;
+        preparedMap = new MTPreparedMap(null);
+        hitMapCellSize = 0.0;
+        hitMapExecutor = null;
+        indexExecutor = null;
+        hierarchyEnabled = false;
+        tiledImage = null;
+        gestureMoved = false;
+        outlineLayer = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) ? new MTOutlineLayer() : null;
     }
 
     public MTImageMapView(Context context) {
@@ -78,6 +152,9 @@ public class MTImageMapView extends AppCompatImageView
     protected void onDetachedFromWindow() {
         MTImageMapView view = this;
         view.getViewTreeObserver().addOnGlobalLayoutListener(this);
+        if (this.outlineLayer != null) {
+            this.outlineLayer.release();
+        }
         super.onDetachedFromWindow();
     }
 
@@ -97,6 +174,13 @@ public class MTImageMapView extends AppCompatImageView
         int left = this.getPaddingLeft();
         this.touchArea = new Rect(left, top, width - right, height - bottom);
 
+        // a tiled image has its own image matrix, which is fit into the content area.
+        Matrix imageMatrix = this.getImageMatrix();
+        if (this.tiledImage != null) {
+            this.tiledImage.fit(this.touchArea.width(), this.touchArea.height());
+            imageMatrix = this.tiledImage.matrix;
+        }
+
         // convert px -> dp by density factor / dpi
         DisplayMetrics metrics = Resources.getSystem().getDisplayMetrics();
         float scaleX = DisplayMetrics.DENSITY_DEFAULT / metrics.xdpi;
@@ -104,31 +188,135 @@ public class MTImageMapView extends AppCompatImageView
         // If the image matrix cannot be inverted, its inversion will be saved anyway
         // as it will be an identity matrix.
         Matrix invImgMat = new Matrix();
-        this.getImageMatrix().invert(invImgMat);
+        imageMatrix.invert(invImgMat);
         invImgMat.postScale(scaleX, scaleY);
         this.touchConvMat = invImgMat;
 
         // covert dp -> px by dpi / density factor
         float pScaleX = metrics.xdpi / DisplayMetrics.DENSITY_DEFAULT;
         float pScaleY = metrics.ydpi / DisplayMetrics.DENSITY_DEFAULT;
-        Matrix pathMat = new Matrix(this.getImageMatrix());
+        Matrix pathMat = new Matrix(imageMatrix);
         pathMat.preScale(pScaleX, pScaleY);
         this.pathMatrix = pathMat;
     }
 
+    /**
+     * An image matrix can be changed without a layout pass. The touch and path matrices are
+     * updated together so that touches and outlines follow the image.
+     */
+    @Override
+    public void setImageMatrix(Matrix matrix) {
+        super.setImageMatrix(matrix);
+        // ImageView can call this before our fields are initialized.
+        if (this.preparedMap != null) {
+            onGlobalLayout();
+        }
+    }
+
     @Override
     protected void onDraw (Canvas canvas) {
         super.onDraw(canvas);
 
-        if (this.pathVisible && !this.polygons.isEmpty()) {
-            this.polygons.forEach(polygon -> {
-                Path path = polygon.getVerticesPath();
-                path.transform(this.pathMatrix);
-                canvas.drawPath(path, this.pathColor);
-            });
+        // tiles are drawn into the content area, as ImageView draws its drawable.
+        if (this.tiledImage != null) {
+            canvas.save();
+            canvas.translate(this.getPaddingLeft(), this.getPaddingTop());
+            this.tiledImage.draw(canvas);
+            canvas.restore();
+        }
+
+        final MTPreparedMap map = this.preparedMap;
+        if (this.renderMetricsReceiver == null) {
+            drawPolygons(canvas, map);
+            return;
+        }
+
+        // measure the frame. the path cache counts built and reused paths into it.
+        final MTRenderFrame frame = this.renderMetrics.beginFrame(map.getPolygonCount(), this.pathVisible);
+        map.pathCache.setFrame(frame);
+        final long start = System.nanoTime();
+        frame.outlinesReplayed = drawPolygons(canvas, map);
+        frame.drawNanos = System.nanoTime() - start - frame.buildNanos;
+        map.pathCache.setFrame(null);
+        this.renderMetricsReceiver.onImageMapRendered(this.renderMetrics);
+    }
+
+    // draw highlights of selected polygons and outlines. returns true if the outlines are replayed
+    // from the layer as they were recorded.
+    private boolean drawPolygons(@NonNull Canvas canvas, @NonNull MTPreparedMap map) {
+        if (map.isEmpty() || (!this.pathVisible && map.getSelectedCount() == 0)) {
+            return false;
+        }
+
+        // outlines are rebuilt only when polygons or the path matrix have been changed.
+        map.pathCache.update(map.polygons, this.pathMatrix);
+
+        // selected polygons are filled from the same cached paths, under the outlines.
+        final int ssz = map.getSelectedCount();
+        for (int i = 0; i < ssz; i++) {
+            canvas.drawPath(map.pathCache.getPath(map.getSelected(i)), this.selectionColor);
+        }
+
+        if (!this.pathVisible) {
+            return false;
+        }
+        if (this.outlineLayer == null || !this.outlineLayer.accepts(canvas)) {
+            drawOutlines(canvas, map);
+            return false;
+        }
+
+        // a hardware accelerated frame draws the view as a whole. Outlines are recorded into the
+        // layer only when they are changed, and a frame which changes the selection replays them.
+        boolean replayed = true;
+        if (this.outlineLayer.update(map, map.pathCache.getGeneration(), this.pathColor, this.getWidth(), this.getHeight())) {
+            final Canvas recording = this.outlineLayer.beginRecording();
+            try {
+                drawOutlines(recording, map);
+            } finally {
+                this.outlineLayer.endRecording();
+            }
+            replayed = false;
+        }
+        this.outlineLayer.draw(canvas);
+        return replayed;
+    }
+
+    // draw outlines within the clip bounds
+    private void drawOutlines(@NonNull Canvas canvas, @NonNull MTPreparedMap map) {
+        // Cull outlines out of the clip bounds. The clip bounds, widened by the stroke, are
+        // mapped back into the logical space of dp unit and the spatial index picks polygons
+        // whose bounding box intersects them.
+        if (canvas.getClipBounds(this.clipBounds) && this.pathMatrix.invert(this.pathInverse)) {
+            float stroke = this.pathColor.getStrokeWidth() + 1.0f;
+            this.clipArea.set(this.clipBounds);
+            this.clipArea.inset(-stroke, -stroke);
+            this.pathInverse.mapRect(this.clipArea);
+
+            int vsz = map.index.search(this.clipArea.left, this.clipArea.top,
+                    this.clipArea.right, this.clipArea.bottom, map.visiblePolygons);
+            for (int i = 0; i < vsz; i++) {
+                canvas.drawPath(map.pathCache.getPath(map.visiblePolygons[i]), this.pathColor);
+            }
+        }
+
+        // open polygons are not in the index, and have no bounding box to cull with.
+        for (int i = 0; i < map.openCount; i++) {
+            canvas.drawPath(map.pathCache.getPath(map.openPolygons[i]), this.pathColor);
         }
     }
 
+    /**
+     * Besides redrawing the view, drop the outlines recorded for hardware accelerated frames.
+     */
+    @Override
+    public void invalidate() {
+        // ImageView can call this before our fields are initialized.
+        if (this.outlineLayer != null) {
+            this.outlineLayer.invalidate();
+        }
+        super.invalidate();
+    }
+
     @Override
     public boolean performClick () {
         super.performClick();
@@ -137,68 +325,268 @@ public class MTImageMapView extends AppCompatImageView
 
     /**
      * @see MTImageMapTouch
+     * @see MTImageMapBatchTouch
      */
     @Override
     public boolean onTouchEvent (MotionEvent tEvent) {
+        // every pointer and historical sample is resolved at once for the batch receiver.
+        if (this.batchedMapReceiver != null) {
+            this.touchedBatch.resolve(tEvent, this.touchArea, this.touchConvMat, this.preparedMap);
+            this.batchedMapReceiver.onImageMapTouched(tEvent, this.touchedBatch);
+        }
+
+        // a tiled image zooms and pans with gestures. a gesture which moved the image is not a click.
+        if (this.tiledImage != null) {
+            if ((tEvent.getAction() & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+                this.gestureMoved = false;
+            }
+            this.scaleDetector.onTouchEvent(tEvent);
+            this.panDetector.onTouchEvent(tEvent);
+        }
 
-        // find polygons only when click action happens.
-        // when action is 'MotionEvent.ACTION_CANCEL' we'll ignore.
+        // find polygons only when click action happens. a drag is tracked for the hover receiver.
         switch (tEvent.getAction() & MotionEvent.ACTION_MASK) {
-            case MotionEvent.ACTION_POINTER_UP:
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_MOVE: {
+                trackPolygons(tEvent, false);
+                return true;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                trackPolygons(tEvent, true);
+                return true;
+            }
+            case MotionEvent.ACTION_POINTER_UP: {
+                if (!this.gestureMoved) {
+                    // https://developer.android.com/reference/android/view/View#performClick()
+                    this.performClick();
+                    findClickedPolygons(tEvent);
+                }
+                return true;
+            }
             case MotionEvent.ACTION_UP: {
-                // https://developer.android.com/reference/android/view/View#performClick()
-                this.performClick();
-                break;
+                if (!this.gestureMoved) {
+                    this.performClick();
+                    findClickedPolygons(tEvent);
+                }
+                trackPolygons(tEvent, true);
+                return true;
             }
             default: {
                 return true;
             }
         }
+    }
+
+    /**
+     * @see MTImageMapHover
+     */
+    @Override
+    public boolean onHoverEvent (MotionEvent hEvent) {
+        switch (hEvent.getAction() & MotionEvent.ACTION_MASK) {
+            case MotionEvent.ACTION_HOVER_ENTER:
+            case MotionEvent.ACTION_HOVER_MOVE: {
+                trackPolygons(hEvent, false);
+                break;
+            }
+            case MotionEvent.ACTION_HOVER_EXIT: {
+                trackPolygons(hEvent, true);
+                break;
+            }
+            default: {
+                break;
+            }
+        }
+        return super.onHoverEvent(hEvent);
+    }
 
+    // resolve polygons at a lifted pointer for the touch receiver
+    private void findClickedPolygons(@NonNull MotionEvent tEvent) {
         // when there's no receiver, we don't need to go through point-in-polygons calculations.
-        if (this.touchedMapReceiver == null) {
-            return true;
+        if (this.touchedMapReceiver == null && this.tappedMapReceiver == null) {
+            return;
+        }
+        // an instrumented copy of the steps below, so that they cost nothing without metrics.
+        if (this.touchMetricsReceiver != null) {
+            measureClickedPolygons(tEvent);
+            return;
         }
 
-        // If there's no polygon, return fast with the zero point to avoid expensive calculations.
-        if (this.polygons.isEmpty()) {
-            MTPoint tPoint = new MTPoint();
-            this.touchedMapReceiver.onImageMapClicked(tEvent, tPoint, Collections.emptyList());
-            return true;
+        // The scratch point and list are reused for every touch so that a tap does not allocate.
+        // If there's no polygon, or the event isn't contained in the touchable area of image,
+        // it returns fast with the zero point to avoid expensive calculations.
+        this.touchResolver.resolve(tEvent.getX(), tEvent.getY(), this.touchArea, this.touchConvMat, this.preparedMap);
+        deliverClickedPolygons(tEvent);
+    }
+
+    // resolve polygons at a lifted pointer, and measure the time and the work it takes
+    private void measureClickedPolygons(@NonNull MotionEvent tEvent) {
+        final MTTouchMetrics metrics = this.touchMetrics;
+        metrics.counters.reset();
+        this.touchResolver.clear();
+
+        final long start = System.nanoTime();
+        final MTPreparedMap map = this.preparedMap;
+        final boolean inside = convertTouchPoint(map, tEvent);
+        final long converted = System.nanoTime();
+        if (inside) {
+            this.touchResolver.find(map, metrics.counters);
+        }
+        final long resolved = System.nanoTime();
+        metrics.record(converted - start, resolved - start);
+
+        deliverClickedPolygons(tEvent);
+        this.touchMetricsReceiver.onImageMapMeasured(tEvent, metrics);
+    }
+
+    // The tap receiver gets the scratch list itself. The touch receiver gets its own point and
+    // list which stay unchanged after the call.
+    private void deliverClickedPolygons(@NonNull MotionEvent tEvent) {
+        final MTTouchResolver resolver = this.touchResolver;
+        if (this.tappedMapReceiver != null) {
+            this.tappedMapReceiver.onImageMapTapped(tEvent, resolver.x, resolver.y, resolver.getPolygons());
+        }
+        if (this.touchedMapReceiver != null) {
+            final List<MTPolygon> polygons = resolver.getPolygons();
+            this.touchedMapReceiver.onImageMapClicked(tEvent, new MTPoint(resolver.x, resolver.y),
+                    polygons.isEmpty() ? Collections.<MTPolygon>emptyList() :
+                            Collections.unmodifiableList(new ArrayList<>(polygons)));
+        }
+    }
+
+    // follow a moving pointer, and tell the hover receiver which polygons it entered and left.
+    private void trackPolygons(@NonNull MotionEvent event, boolean leave) {
+        if (this.hoveredMapReceiver == null) {
+            return;
+        }
+
+        final MTPreparedMap map = this.preparedMap;
+        final boolean inside = convertTouchPoint(map, event);
+
+        // polygons of a replaced map, and removed polygons are left first
+        if (this.leftMap != null) {
+            if (this.leftMap.tracker.clear()) {
+                notifyHover(event, this.leftMap);
+            }
+            this.leftMap = null;
+        }
+        final int lsz = this.leftPolygons.size();
+        if (lsz > 0) {
+            final MTPoint point = new MTPoint(this.touchResolver.x, this.touchResolver.y);
+            for (int i = 0; i < lsz; i++) {
+                this.hoveredMapReceiver.onImageMapExited(event, point, this.leftPolygons.get(i));
+            }
+            this.leftPolygons.clear();
         }
 
-        // Convert the touch point for the polygons' DP coordinates.
-        double tX = tEvent.getX();
-        double tY = tEvent.getY();
+        final boolean changed = (leave || !inside) ? map.tracker.clear() :
+                map.tracker.update(this.touchResolver.x, this.touchResolver.y, map.hitMap);
+        if (changed) {
+            notifyHover(event, map);
+        }
+    }
 
-       // if the event isn't contained in the touchable area of image, reject and stop
-        if (!this.touchArea.contains((int)tX, (int)tY)) {
-            MTPoint tPoint = new MTPoint();
-            this.touchedMapReceiver.onImageMapClicked(tEvent, tPoint, Collections.emptyList());
-            return true;
+    // a point is allocated only when the pointer enters or leaves a polygon
+    private void notifyHover(@NonNull MotionEvent event, @NonNull MTPreparedMap map) {
+        final MTPolygonTracker tracker = map.tracker;
+        final MTPoint point = new MTPoint(this.touchResolver.x, this.touchResolver.y);
+        for (int i = 0; i < tracker.getExitedCount(); i++) {
+            this.hoveredMapReceiver.onImageMapExited(event, point, map.polygons.get(tracker.getExited(i)));
+        }
+        for (int i = 0; i < tracker.getEnteredCount(); i++) {
+            this.hoveredMapReceiver.onImageMapEntered(event, point, map.polygons.get(tracker.getEntered(i)));
         }
+    }
+
+    // Convert an event point for the polygons' DP coordinates into the touched point. If there's
+    // no polygon, or the event isn't contained in the touchable area of image, it is the zero point.
+    private boolean convertTouchPoint(@NonNull MTPreparedMap map, @NonNull MotionEvent event) {
+        return this.touchResolver.convert(event.getX(), event.getY(), this.touchArea, this.touchConvMat, map);
+    }
+
+    /**
+     * Show a large image decoded by tiles instead of the drawable. Only the tiles visible at the
+     * current zoom are decoded with <code>BitmapRegionDecoder</code> on the <code>executor</code>,
+     * and kept in an LRU cache, so that an image far larger than the memory allows can be shown
+     * at full resolution. The image can be zoomed with a pinch and panned with a drag. Polygon
+     * maps, touches, and outlines follow the image at every zoom.
+     * <p>
+     * The drawable is cleared. A gesture which zoomed or panned the image does not click polygons.
+     *
+     * @param stream an encoded JPEG or PNG image. It is read fully, and can be closed afterwards.
+     * @param executor an <code>Executor</code> to decode tiles off the UI thread.
+     * @throws IOException if the image cannot be decoded.
+     * @throws NullPointerException if the stream or the executor is <code>null</code>.
+     */
+    public void setTiledImage(@NonNull InputStream stream, @NonNull Executor executor) throws IOException {
+        MTTiledImage image = new MTTiledImage(this, stream, executor);
+        clearTiledImage();
+        this.setImageDrawable(null);
+        this.tiledImage = image;
 
-        // converting the matrix;
-        float[] tPoint = {(float)tX - this.touchArea.left, (float)tY - this.touchArea.top};
-        if (!this.touchConvMat.isIdentity()) {
-            float[] sPoint = Arrays.copyOf(tPoint, tPoint.length);
-            this.touchConvMat.mapPoints(tPoint, sPoint);
+        if (this.scaleDetector == null) {
+            this.scaleDetector = new ScaleGestureDetector(getContext(),
+                    new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                        @Override
+                        public boolean onScale(ScaleGestureDetector detector) {
+                            return zoomTiledImage(detector.getScaleFactor(),
+                                    detector.getFocusX(), detector.getFocusY());
+                        }
+                    });
+            this.panDetector = new GestureDetector(getContext(),
+                    new GestureDetector.SimpleOnGestureListener() {
+                        @Override
+                        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+                            return panTiledImage(-distanceX, -distanceY);
+                        }
+                    });
         }
 
-        // check first check if a point is contained in bounding box.
-        // Then see if the point is in polygon.
-        MTPoint cPoint = new MTPoint(tPoint);
-        List<MTPolygon> tPolygons = this.polygons.stream()
-                        .filter(plg -> plg.isPointInBBox(cPoint))
-                        .filter(plg -> plg.isPointInPolygon(cPoint))
-                        .collect(Collectors.toList());
+        onGlobalLayout();
+        invalidate();
+    }
 
-        this.touchedMapReceiver.onImageMapClicked(tEvent, cPoint, tPolygons);
+    /**
+     * Stop showing the tiled image, and release its tiles and decoder.
+     */
+    public void clearTiledImage() {
+        if (this.tiledImage == null) {
+            return;
+        }
+        this.tiledImage.release();
+        this.tiledImage = null;
+        onGlobalLayout();
+        invalidate();
+    }
+
+    private boolean zoomTiledImage(float factor, float focusX, float focusY) {
+        if (this.tiledImage == null) {
+            return false;
+        }
+        this.gestureMoved = true;
+        this.tiledImage.zoom(factor, focusX - this.getPaddingLeft(), focusY - this.getPaddingTop());
+        onGlobalLayout();
+        invalidate();
+        return true;
+    }
+
+    private boolean panTiledImage(float dx, float dy) {
+        // a pinch also scrolls. the focus already moves the image.
+        if (this.tiledImage == null || this.scaleDetector.isInProgress()) {
+            return false;
+        }
+        this.gestureMoved = true;
+        this.tiledImage.pan(dx, dy);
+        onGlobalLayout();
+        invalidate();
         return true;
     }
 
     /**
      * Get the color and style of <code>vertices</code> line for debugging purpose.
+     * <p>
+     * The paint can be changed in place. Outlines recorded for hardware accelerated frames are
+     * compared with the state of the paint, so the change is drawn in the next frame. Call
+     * <code>invalidate()</code> to draw it right away.
      *
      * @return non-null <code>vertices</code> line color in <code>android.graphics.Paint</code>.
      */
@@ -215,6 +603,286 @@ public class MTImageMapView extends AppCompatImageView
      */
     public void setPathColor(@NonNull Paint pColor) {
         this.pathColor = pColor;
+        invalidate();
+    }
+
+    /**
+     * Get the color and style of the highlight of selected polygons.
+     *
+     * @return non-null highlight color in <code>android.graphics.Paint</code>.
+     */
+    @NonNull
+    public Paint getSelectionColor() {
+        return this.selectionColor;
+    }
+
+    /**
+     * Set the color and style of the highlight of selected polygons. Selected polygons are filled
+     * with it by default.
+     *
+     * @param sColor non-null highlight color in <code>android.graphics.Paint</code>.
+     * @throws NullPointerException if <code>sColor</code> is <code>null</code>.
+     */
+    public void setSelectionColor(@NonNull Paint sColor) {
+        this.selectionColor = sColor;
+        invalidate();
+    }
+
+    /**
+     * Select or deselect a polygon, and highlight it. Only the area of the polygon is redrawn.
+     * A selection belongs to the polygon maps, and is cleared when the polygons are set again.
+     * <p>
+     * The area is honored by software rendering only. A hardware accelerated view redraws as a
+     * whole since API 28. From API 29, it replays the outlines recorded in a layer, and draws only
+     * the highlights again; below, it draws the outlines again, too. Render metrics tell which
+     * frames replayed the outlines with {@link MTRenderFrame#isOutlinesReplayed()}.
+     *
+     * @param polygon a polygon of the polygon maps set to this view.
+     * @param select <code>true</code> to select the polygon, <code>false</code> to deselect it.
+     * @return <code>true</code> if the selection is changed. <code>false</code> if it stays the
+     *      same, or the polygon is not in the polygon maps.
+     * @throws NullPointerException if the polygon is <code>null</code>.
+     */
+    public boolean setPolygonSelected(@NonNull MTPolygon polygon, boolean select) {
+        final MTPreparedMap map = this.preparedMap;
+        final int index = map.indexOf(polygon);
+        if (index < 0 || !map.setSelected(index, select)) {
+            return false;
+        }
+
+        this.dirtyArea.setEmpty();
+        addDirtyArea(map, index);
+        invalidateDirtyArea();
+        return true;
+    }
+
+    /**
+     * @param polygon a polygon of the polygon maps set to this view.
+     * @return <code>true</code> if the polygon is selected.
+     * @throws NullPointerException if the polygon is <code>null</code>.
+     */
+    public boolean isPolygonSelected(@NonNull MTPolygon polygon) {
+        final MTPreparedMap map = this.preparedMap;
+        final int index = map.indexOf(polygon);
+        return index >= 0 && map.isSelected(index);
+    }
+
+    /**
+     * @return a new list of the selected polygons in the order of the polygon maps.
+     */
+    @NonNull
+    public List<MTPolygon> getSelectedPolygons() {
+        final MTPreparedMap map = this.preparedMap;
+        final ArrayList<MTPolygon> selection = new ArrayList<>(map.getSelectedCount());
+        final int psz = map.polygons.size();
+        for (int i = 0; i < psz && selection.size() < map.getSelectedCount(); i++) {
+            if (map.isSelected(i)) {
+                selection.add(map.polygons.get(i));
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Deselect every polygon. Only the area of the deselected polygons is redrawn, with the same
+     * limitation as {@link #setPolygonSelected(MTPolygon, boolean)}.
+     */
+    public void clearSelection() {
+        final MTPreparedMap map = this.preparedMap;
+        if (map.getSelectedCount() == 0) {
+            return;
+        }
+
+        this.dirtyArea.setEmpty();
+        while (map.getSelectedCount() > 0) {
+            final int index = map.getSelected(map.getSelectedCount() - 1);
+            addDirtyArea(map, index);
+            map.setSelected(index, false);
+        }
+        invalidateDirtyArea();
+    }
+
+    // add the transformed bounds of a polygon's cached path, widened by the outline stroke.
+    private void addDirtyArea(@NonNull MTPreparedMap map, int index) {
+        map.pathCache.update(map.polygons, this.pathMatrix);
+        map.pathCache.getPath(index).computeBounds(this.selectionBounds, true);
+        final float stroke = this.pathColor.getStrokeWidth() + 1.0f;
+        this.selectionBounds.inset(-stroke, -stroke);
+        this.dirtyArea.union((int)Math.floor(this.selectionBounds.left), (int)Math.floor(this.selectionBounds.top),
+                (int)Math.ceil(this.selectionBounds.right), (int)Math.ceil(this.selectionBounds.bottom));
+    }
+
+    // Software rendering redraws only the dirty area. A hardware accelerated view ignores it since
+    // API 28 and redraws as a whole, so it is invalidated without dropping the recorded outlines;
+    // changed polygons change the generation of the path cache, which records them again.
+    @SuppressWarnings("deprecation")
+    private void invalidateDirtyArea() {
+        if (this.dirtyArea.isEmpty()) {
+            return;
+        }
+        if (this.isHardwareAccelerated()) {
+            super.invalidate();
+        } else {
+            invalidate(this.dirtyArea);
+        }
+    }
+
+    /**
+     * Add a polygon to the polygon maps in place, without preparing the whole maps again. Only
+     * the spatial index, the outline, and the hit map cells of the polygon are updated, and only
+     * its area is redrawn by software rendering, so that the cost is proportional to the change
+     * and not to the size of the maps. A hardware accelerated view records its visible outlines
+     * again. An added polygon is found after the polygons set before it, unless it takes the
+     * place of a removed one.
+     * <p>
+     * Polygons are keyed by <code>getPolygonId()</code>, which should be unique in the maps, and
+     * must not be changed while the polygon is in the maps. Polygons without an id can be set
+     * with <code>setPolygons</code>, but not updated in place. A later <code>setPolygons</code>
+     * call replaces the updated maps. Please call this on the UI thread.
+     *
+     * @param polygon a polygon to add.
+     * @return <code>true</code> if the polygon is added. <code>false</code> if a polygon with
+     *      the same id is already in the polygon maps.
+     * @throws NullPointerException if the polygon is <code>null</code>.
+     * @throws InvalidParameterException if the polygon id is <code>null</code>.
+     * @see #replacePolygon(MTPolygon)
+     * @see #removePolygon(Object)
+     */
+    public boolean addPolygon(@NonNull MTPolygon polygon) {
+        final MTPreparedMap map = this.preparedMap;
+        if (map.indexOfId(polygon.getPolygonId()) >= 0) {
+            return false;
+        }
+
+        final int index = map.add(polygon);
+        this.touchResolver.ensureCapacity(map.polygons.size());
+        this.dirtyArea.setEmpty();
+        if (this.pathVisible) {
+            addDirtyArea(map, index);
+        }
+        invalidateDirtyArea();
+        packIndex(map);
+        return true;
+    }
+
+    /**
+     * Replace the polygon which has the same polygon id as a new polygon, e.g. to reshape it,
+     * in place the same way as {@link #addPolygon(MTPolygon)}. The new polygon keeps the place
+     * and the selection of the old one. Both the old and the new area are redrawn.
+     *
+     * @param polygon a polygon to replace the one with the same id.
+     * @return <code>true</code> if the polygon is replaced. <code>false</code> if there is no
+     *      polygon with the id in the polygon maps.
+     * @throws NullPointerException if the polygon is <code>null</code>.
+     * @throws InvalidParameterException if the polygon id is <code>null</code>.
+     */
+    public boolean replacePolygon(@NonNull MTPolygon polygon) {
+        final MTPreparedMap map = this.preparedMap;
+        final int index = map.indexOfId(polygon.getPolygonId());
+        if (index < 0) {
+            return false;
+        }
+
+        final boolean drawn = this.pathVisible || map.isSelected(index);
+        this.dirtyArea.setEmpty();
+        if (drawn) {
+            addDirtyArea(map, index);
+        }
+        leavePolygon(map, index);
+        map.set(index, polygon);
+        if (drawn) {
+            addDirtyArea(map, index);
+        }
+        invalidateDirtyArea();
+        packIndex(map);
+        return true;
+    }
+
+    /**
+     * Remove a polygon by its polygon id in place the same way as {@link #addPolygon(MTPolygon)}.
+     * A selected polygon is deselected, and a hovering pointer leaves it at the next move.
+     *
+     * @param polygonId the id of a polygon to remove.
+     * @return <code>true</code> if the polygon is removed. <code>false</code> if there is no
+     *      polygon with the id in the polygon maps.
+     * @throws InvalidParameterException if the polygon id is <code>null</code>.
+     */
+    public boolean removePolygon(Object polygonId) {
+        final MTPreparedMap map = this.preparedMap;
+        final int index = map.indexOfId(polygonId);
+        if (index < 0) {
+            return false;
+        }
+
+        this.dirtyArea.setEmpty();
+        if (this.pathVisible || map.isSelected(index)) {
+            addDirtyArea(map, index);
+        }
+        leavePolygon(map, index);
+        map.set(index, null);
+        invalidateDirtyArea();
+        packIndex(map);
+        return true;
+    }
+
+    /**
+     * Set the executor to pack the spatial index again on, as the updates of
+     * {@link #addPolygon(MTPolygon)}, {@link #replacePolygon(MTPolygon)}, and
+     * {@link #removePolygon(Object)} pile up. Touches are resolved with the current index and the
+     * updated polygons until the packed index is adopted on the UI thread. If the executor is a
+     * <code>ForkJoinPool</code>, the polygons are sorted across its threads. Without an executor,
+     * the index is packed on the UI thread. There is none by default.
+     *
+     * @param executor an <code>Executor</code> to pack the index off the UI thread, or
+     *      <code>null</code> to pack it on the UI thread.
+     */
+    public void setIndexExecutor(Executor executor) {
+        this.indexExecutor = executor;
+    }
+
+    // pack the spatial index again on the index executor once the updates pile up. The packed
+    // tree is adopted on the UI thread, and updates made in the meantime stay in the overflow
+    // list. A failed packing is abandoned, so that the index is packed again at a later update.
+    private void packIndex(@NonNull MTPreparedMap map) {
+        if (!map.index.isPackingDue()) {
+            return;
+        }
+
+        final Executor executor = this.indexExecutor;
+        if (executor == null) {
+            map.index.pack();
+            return;
+        }
+
+        final MTPolygonIndex.Packing packing = map.index.beginPacking();
+        try {
+            executor.execute(() -> {
+                boolean packed = false;
+                try {
+                    packing.pack((executor instanceof ForkJoinPool) ? (ForkJoinPool)executor : null);
+                    packed = true;
+                } finally {
+                    final boolean adopt = packed;
+                    post(() -> {
+                        // the map might have been replaced while the tree was packed.
+                        if (adopt && this.preparedMap == map) {
+                            map.index.finishPacking(packing);
+                        } else {
+                            map.index.cancelPacking(packing);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            map.index.cancelPacking(packing);
+        }
+    }
+
+    // a pointer in a polygon about to be removed or replaced leaves it at the next move
+    private void leavePolygon(@NonNull MTPreparedMap map, int index) {
+        if (map.tracker.remove(index) && this.hoveredMapReceiver != null) {
+            this.leftPolygons.add(map.polygons.get(index));
+        }
     }
 
     /**
@@ -247,23 +915,295 @@ public class MTImageMapView extends AppCompatImageView
         this.touchedMapReceiver = tReceiver;
     }
 
+    /**
+     * Set the instance of <code>MTImageMapTap</code> interface. It receives the same touches as
+     * <code>MTImageMapTouch</code>, in a list which is reused for every touch, so that a tap does
+     * not allocate.
+     *
+     * @param tReceiver to receive touch map event. Pass <code>null</code> to set it free.
+     * @see MTImageMapTap
+     */
+    public void setTappedMapReceiver(MTImageMapTap tReceiver) {
+        this.tappedMapReceiver = tReceiver;
+    }
+
+    /**
+     * Set the instance of <code>MTImageMapMetrics</code> interface. Each touch resolved for
+     * <code>MTImageMapTouch</code> or <code>MTImageMapTap</code> is measured only when there is a metrics receiver, so that
+     * touches cost nothing extra without it. The latency histogram is kept while receivers are
+     * replaced.
+     *
+     * @param mReceiver to receive the metrics of every resolved touch. Pass <code>null</code>
+     *      to set it free.
+     * @see MTImageMapMetrics
+     */
+    public void setTouchMetricsReceiver(MTImageMapMetrics mReceiver) {
+        if (mReceiver != null && this.touchMetrics == null) {
+            this.touchMetrics = new MTTouchMetrics();
+        }
+        this.touchMetricsReceiver = mReceiver;
+    }
+
+    /**
+     * Set the instance of <code>MTImageMapRender</code> interface. Each frame is measured only
+     * when there is a render metrics receiver, and the recent frames are kept in a ring buffer
+     * while receivers are replaced.
+     *
+     * @param rReceiver to receive the render metrics of every frame. Pass <code>null</code> to
+     *      set it free.
+     * @see MTImageMapRender
+     */
+    public void setRenderMetricsReceiver(MTImageMapRender rReceiver) {
+        if (rReceiver != null && this.renderMetrics == null) {
+            this.renderMetrics = new MTRenderMetrics();
+        }
+        this.renderMetricsReceiver = rReceiver;
+    }
+
+    /**
+     * Set the instance of <code>MTImageMapBatchTouch</code> interface. Every touch event is
+     * resolved for all of its pointers and historical samples only when there is a receiver.
+     *
+     * @param bReceiver to receive the polygon maps under every pointer. Pass <code>null</code>
+     *      to set it free.
+     * @see MTImageMapBatchTouch
+     */
+    public void setBatchedMapReceiver(MTImageMapBatchTouch bReceiver) {
+        this.batchedMapReceiver = bReceiver;
+    }
+
+    /**
+     * Set the instance of <code>MTImageMapHover</code> interface. Polygons are tracked while
+     * a finger drags, or a stylus or a mouse hovers, only when there is a receiver.
+     *
+     * @param hReceiver to receive polygon maps a pointer enters and leaves. Pass <code>null</code>
+     *      to set it free.
+     * @see MTImageMapHover
+     */
+    public void setHoveredMapReceiver(MTImageMapHover hReceiver) {
+        this.hoveredMapReceiver = hReceiver;
+    }
+
     /**
      * Set A list of <code>MTPolygon</code>. Everytime you pass a <code>List{@literal <}{@link MTPolygon}{@literal >}</code>,
-     * the existing list will be wiped clean, and the new list is set to be used.
+     * the existing list will be wiped clean, and the new list is set to be used. A spatial index
+     * over the bounding boxes of the polygons is built at the same time to speed up finding
+     * a touched polygon. It also supersedes any asynchronous load in flight.
      *
      * @param pList Pass a <code>List{@literal <}{@link MTPolygon}{@literal >}</code> of polygon maps
      *      for the image of this view. Send <code>null</code> if you want to empty the list.
+     * @see #setPolygons(List, Executor, MTImageMapLoad)
+     * @see #addPolygon(MTPolygon)
      */
     public void setPolygons(List<MTPolygon> pList) {
-        this.polygons.clear();
-        if (pList == null || pList.isEmpty()) {
+        this.mapGeneration.incrementAndGet();
+        MTPreparedMap map = new MTPreparedMap(pList);
+        if (this.hierarchyEnabled) {
+            map.setNested(true);
+        }
+        publishMap(map);
+        buildHitMap(map);
+    }
+
+    /**
+     * Set A list of <code>MTPolygon</code> asynchronously. The list is copied, indexed, and its
+     * outline paths and hit map are prepared on the <code>executor</code>, then the prepared map
+     * replaces the existing one at once on the UI thread. Until then, the view keeps working with
+     * the existing polygon maps.
+     * <p>
+     * A later <code>setPolygons</code> call supersedes this load. A superseded load stops
+     * preparing at the next step, is never published, and its callback is not called.
+     * If the executor is a <code>ForkJoinPool</code>, the spatial index is bulk-loaded across
+     * its threads. For a raw map of open polygons, see {@link stkim1.view.geom.MTPolygonMapPreparer}.
+     * Please call this on the UI thread, and do not modify the list until the callback is called.
+     *
+     * @param pList Pass a <code>List{@literal <}{@link MTPolygon}{@literal >}</code> of polygon maps
+     *      for the image of this view. Send <code>null</code> if you want to empty the list.
+     * @param executor an <code>Executor</code> to prepare the polygon maps off the UI thread.
+     * @param callback to be notified on the UI thread when the polygon maps are published.
+     *      Pass <code>null</code> if you do not need it.
+     * @throws NullPointerException if the executor is <code>null</code>.
+     * @see MTImageMapLoad
+     */
+    public void setPolygons(List<MTPolygon> pList, @NonNull Executor executor, MTImageMapLoad callback) {
+        final int generation = this.mapGeneration.incrementAndGet();
+        final Matrix pathMat = this.pathVisible ? new Matrix(this.pathMatrix) : null;
+        final double cellSize = (this.hitMapExecutor != null) ? this.hitMapCellSize : 0.0;
+        final boolean nested = this.hierarchyEnabled;
+
+        executor.execute(() -> {
+            MTPreparedMap map = null;
+            Exception error = null;
+            try {
+                map = prepareMap(pList, generation, pathMat, cellSize, nested,
+                        (executor instanceof ForkJoinPool) ? (ForkJoinPool)executor : null);
+            } catch (Exception e) {
+                error = e;
+            }
+            if (map == null && error == null) {
+                // superseded
+                return;
+            }
+
+            final MTPreparedMap prepared = map;
+            final Exception failure = error;
+            post(() -> {
+                if (generation != this.mapGeneration.get()) {
+                    return;
+                }
+                if (prepared != null) {
+                    // the containment tree might have been enabled or disabled during the load.
+                    if (prepared.isNested() != this.hierarchyEnabled) {
+                        prepared.setNested(this.hierarchyEnabled);
+                    }
+                    publishMap(prepared);
+                    // the hit map might have been enabled or changed during the load.
+                    if (prepared.hitMap == null || this.hitMapCellSize != cellSize) {
+                        buildHitMap(prepared);
+                    }
+                }
+                if (callback != null) {
+                    callback.onImageMapLoaded((pList != null) ? pList : Collections.emptyList(), failure);
+                }
+            });
+        });
+    }
+
+    /**
+     * Enable the hit map mode for a static polygon map. The polygons are rasterized into a grid of
+     * polygon indices in the logical space of <code>dp</code> unit, so that most touches are
+     * resolved with a single lookup. Points on the polygon edges still go through the exact
+     * winding number test.
+     * <p>
+     * The grid is built on the <code>executor</code> now and whenever the polygons are set again.
+     * Until it is ready, touches are resolved with the spatial index. The smaller the cell size is,
+     * the more touches are resolved by the grid, and the more memory it takes. Check
+     * {@link #getHitMapMemoryFootprint()} to find the balance.
+     *
+     * @param cellSize the width and height of a grid cell in the logical space of <code>dp</code> unit.
+     * @param executor an <code>Executor</code> to build the grid off the UI thread.
+     * @throws NullPointerException if the executor is <code>null</code>.
+     * @throws InvalidParameterException if the cell size is not positive.
+     */
+    public void enableHitMap(double cellSize, @NonNull Executor executor) {
+        if (!(cellSize > 0.0)) {
+            throw new InvalidParameterException("MTPolygonHitMap cell size must be positive.");
+        }
+        this.hitMapCellSize = cellSize;
+        this.hitMapExecutor = executor;
+        buildHitMap(this.preparedMap);
+    }
+
+    /**
+     * Disable the hit map mode and release the grid.
+     */
+    public void disableHitMap() {
+        this.hitMapCellSize = 0.0;
+        this.hitMapExecutor = null;
+        this.preparedMap.hitMap = null;
+    }
+
+    /**
+     * Enable or disable the containment tree for a map of nested polygons, such as country,
+     * state, and county. A touch then tests the polygons nested in another only when the point
+     * is in that polygon, so that a tap on a county tests the counties of a single state. Taps,
+     * measured taps, and the hover receiver find the same polygons as they do without the tree,
+     * except that a point right on a border shared by nested polygons is resolved by the outer
+     * one. It is disabled by default.
+     * <p>
+     * Building the tree tests the polygons whose bounding boxes nest against each other. It is
+     * built for the current polygon maps on the calling thread now, and whenever the polygons are
+     * set again; off the UI thread by {@link #setPolygons(List, Executor, MTImageMapLoad)}.
+     *
+     * @param enabled <code>true</code> to build the containment tree.
+     */
+    public void setHierarchyEnabled(boolean enabled) {
+        if (this.hierarchyEnabled == enabled) {
             return;
         }
+        this.hierarchyEnabled = enabled;
+        this.preparedMap.setNested(enabled);
+    }
 
-        this.polygons.addAll(pList);
+    /**
+     * @return <code>true</code> if the containment tree is enabled.
+     */
+    public boolean isHierarchyEnabled() {
+        return this.hierarchyEnabled;
+    }
 
-        if (this.pathVisible) {
+    /**
+     * The memory the hit map grid occupies.
+     *
+     * @return the size of the grid in bytes, or <code>0</code> if the hit map is disabled or
+     *      not yet built.
+     */
+    public long getHitMapMemoryFootprint() {
+        MTPolygonHitMap grid = this.preparedMap.hitMap;
+        return (grid != null) ? grid.getMemoryFootprint() : 0L;
+    }
+
+    // Prepare a map on a worker thread. Returns null if a newer setPolygons supersedes it.
+    private MTPreparedMap prepareMap(List<MTPolygon> pList, int generation, Matrix pathMat, double cellSize,
+                                     boolean nested, ForkJoinPool pool) {
+        MTPreparedMap map = new MTPreparedMap(pList, pool);
+        if (generation != this.mapGeneration.get()) {
+            return null;
+        }
+        if (nested) {
+            map.setNested(true);
+            if (generation != this.mapGeneration.get()) {
+                return null;
+            }
+        }
+        if (cellSize > 0.0 && !map.isEmpty()) {
+            map.hitMap = new MTPolygonHitMap(map.polygons, cellSize);
+            if (generation != this.mapGeneration.get()) {
+                return null;
+            }
+        }
+        if (pathMat != null) {
+            map.preparePaths(pathMat);
+            if (generation != this.mapGeneration.get()) {
+                return null;
+            }
+        }
+        return map;
+    }
+
+    // swap the prepared map on the UI thread
+    private void publishMap(@NonNull MTPreparedMap map) {
+        // highlights of the outgoing map are drawn even when outlines are hidden
+        final boolean selected = this.preparedMap.getSelectedCount() > 0;
+        if (this.preparedMap.tracker.getCurrentCount() > 0) {
+            this.leftMap = this.preparedMap;
+        }
+        this.preparedMap = map;
+        this.touchResolver.ensureCapacity(map.polygons.size());
+        if (this.pathVisible || selected) {
             invalidate();
         }
     }
-}
\ No newline at end of file
+
+    // rasterize a map on the hit map executor, and attach the grid on the UI thread.
+    private void buildHitMap(@NonNull MTPreparedMap map) {
+        map.hitMap = null;
+        if (this.hitMapExecutor == null || map.isEmpty()) {
+            return;
+        }
+
+        final double cellSize = this.hitMapCellSize;
+        // polygons can be updated while the grid is built. It is built from a copy, and the
+        // polygons updated in the meantime are patched into it when it is attached.
+        final List<MTPolygon> pList = new ArrayList<>(map.polygons);
+        final int changes = map.beginHitMap();
+        this.hitMapExecutor.execute(() -> {
+            final MTPolygonHitMap grid = new MTPolygonHitMap(pList, cellSize);
+            post(() -> {
+                // the map or the cell size might have been changed while the grid was built.
+                final boolean current = this.preparedMap == map && this.hitMapCellSize == cellSize;
+                map.endHitMap(current ? grid : null, changes);
+            });
+        });
+    }
+}
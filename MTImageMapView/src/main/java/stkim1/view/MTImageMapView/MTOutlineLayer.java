@@ -0,0 +1,166 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.MaskFilter;
+import android.graphics.Paint;
+import android.graphics.PathEffect;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.graphics.Shader;
+import android.graphics.Xfermode;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * MTOutlineLayer keeps the outlines of polygon maps recorded in a <code>RenderNode</code>, so
+ * that a hardware accelerated frame replays them instead of drawing every path again.
+ * <p>
+ * A hardware accelerated view ignores the dirty rectangle of <code>invalidate(Rect)</code> since
+ * API 28, and draws itself as a whole. With the layer, a frame which only changes the selection
+ * draws the few highlights, and replays the outlines as they are. The outlines are recorded again
+ * when the map, its paths, the outline paint or its state, or the size of the view is changed, or
+ * when the layer is invalidated. The state of the paint is kept apart from the paint, since the
+ * view hands out its outline paint to be changed in place.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+final class MTOutlineLayer {
+
+    private final RenderNode node = new RenderNode("MTImageMapView outlines");
+    private boolean valid = false;
+    // what the recorded outlines were drawn from
+    private MTPreparedMap map = null;
+    private int generation = 0;
+    private Paint paint = null;
+    // the state of the paint the outlines were recorded with
+    private int color = 0;
+    private int flags = 0;
+    private float strokeWidth = 0.0f;
+    private float strokeMiter = 0.0f;
+    private Paint.Style style = null;
+    private Paint.Cap cap = null;
+    private Paint.Join join = null;
+    private PathEffect pathEffect = null;
+    private Shader shader = null;
+    private ColorFilter colorFilter = null;
+    private MaskFilter maskFilter = null;
+    private Xfermode xfermode = null;
+    private int width = 0;
+    private int height = 0;
+
+    MTOutlineLayer() {
+        super();
+    }
+
+    /**
+     * @param canvas the canvas of a frame.
+     * @return <code>true</code> if the canvas is hardware accelerated, and can replay the layer.
+     */
+    boolean accepts(@NonNull Canvas canvas) {
+        return canvas instanceof RecordingCanvas;
+    }
+
+    /**
+     * Drop the recorded outlines. They will be recorded again in the next frame.
+     */
+    void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * See if the recorded outlines are out of date for a frame, and remember what they will be
+     * recorded from if they are.
+     *
+     * @param pMap the prepared map of the frame.
+     * @param pGeneration the generation of the path cache of the map.
+     * @param pPaint the outline paint. It is compared with the state it had when the outlines
+     *      were recorded, as well as by its identity.
+     * @param pWidth the width of the view.
+     * @param pHeight the height of the view.
+     * @return <code>true</code> if the outlines must be recorded again.
+     */
+    boolean update(@NonNull MTPreparedMap pMap, int pGeneration, @NonNull Paint pPaint, int pWidth, int pHeight) {
+        if (this.valid && this.map == pMap && this.generation == pGeneration && this.paint == pPaint
+                && isPaintRecorded(pPaint) && this.width == pWidth && this.height == pHeight) {
+            return false;
+        }
+        this.map = pMap;
+        this.generation = pGeneration;
+        this.paint = pPaint;
+        recordPaint(pPaint);
+        this.width = pWidth;
+        this.height = pHeight;
+        this.valid = true;
+        return true;
+    }
+
+    // whether the paint is in the state the outlines were recorded with
+    private boolean isPaintRecorded(@NonNull Paint pPaint) {
+        return this.color == pPaint.getColor() && this.flags == pPaint.getFlags()
+                && this.strokeWidth == pPaint.getStrokeWidth() && this.strokeMiter == pPaint.getStrokeMiter()
+                && this.style == pPaint.getStyle() && this.cap == pPaint.getStrokeCap()
+                && this.join == pPaint.getStrokeJoin() && this.pathEffect == pPaint.getPathEffect()
+                && this.shader == pPaint.getShader() && this.colorFilter == pPaint.getColorFilter()
+                && this.maskFilter == pPaint.getMaskFilter() && this.xfermode == pPaint.getXfermode();
+    }
+
+    private void recordPaint(@NonNull Paint pPaint) {
+        this.color = pPaint.getColor();
+        this.flags = pPaint.getFlags();
+        this.strokeWidth = pPaint.getStrokeWidth();
+        this.strokeMiter = pPaint.getStrokeMiter();
+        this.style = pPaint.getStyle();
+        this.cap = pPaint.getStrokeCap();
+        this.join = pPaint.getStrokeJoin();
+        this.pathEffect = pPaint.getPathEffect();
+        this.shader = pPaint.getShader();
+        this.colorFilter = pPaint.getColorFilter();
+        this.maskFilter = pPaint.getMaskFilter();
+        this.xfermode = pPaint.getXfermode();
+    }
+
+    /**
+     * Start recording the outlines over the size given to {@link #update}.
+     *
+     * @return the canvas to draw the outlines on, until {@link #endRecording()}.
+     */
+    @NonNull
+    RecordingCanvas beginRecording() {
+        this.node.setPosition(0, 0, this.width, this.height);
+        return this.node.beginRecording(this.width, this.height);
+    }
+
+    void endRecording() {
+        this.node.endRecording();
+    }
+
+    /**
+     * Replay the recorded outlines on a hardware accelerated canvas.
+     *
+     * @param canvas the canvas of a frame, which the layer {@link #accepts(Canvas)}.
+     */
+    void draw(@NonNull Canvas canvas) {
+        ((RecordingCanvas)canvas).drawRenderNode(this.node);
+    }
+
+    /**
+     * Release the recorded outlines, and the map and the paint they were drawn from.
+     */
+    void release() {
+        this.node.discardDisplayList();
+        this.map = null;
+        this.paint = null;
+        this.pathEffect = null;
+        this.shader = null;
+        this.colorFilter = null;
+        this.maskFilter = null;
+        this.xfermode = null;
+        this.valid = false;
+    }
+}
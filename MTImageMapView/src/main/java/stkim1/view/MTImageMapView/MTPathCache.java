@@ -0,0 +1,206 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Matrix;
+import android.graphics.Path;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTPathCache keeps the outline <code>android.graphics.Path</code> of polygon maps, already
+ * transformed into the view space. A path is built the first time it is drawn, and rebuilt only
+ * when its polygon is changed, or the path matrix is changed by a layout or an image matrix
+ * update. Otherwise, every frame reuses the same paths, and outlines which are never drawn are
+ * never built.
+ * <p>
+ * When the path matrix scales the polygons down, paths are built from their simplified outlines
+ * at the level of detail matching the scale, so that no dropped vertex is off by more than half
+ * a pixel.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+class MTPathCache {
+
+    private List<MTPolygon> polygons = Collections.emptyList();
+    private Path[] paths = new Path[0];
+    // a path is up to date when its version is the same as the cache version
+    private int[] versions = new int[0];
+    // the number of vertices in each path
+    private int[] sizes = new int[0];
+    private int version = 1;
+    private final Matrix matrix = new Matrix();
+    private boolean valid = false;
+    // bumped whenever any path is dropped, so that recorded outlines know they are out of date
+    private int generation = 0;
+    // the level of detail for the current path matrix
+    private int level = 0;
+    // scratch buffer to transform vertices in a batch
+    private float[] points = new float[0];
+    // the frame paths are counted in while render metrics are on
+    private MTRenderFrame frame = null;
+
+    MTPathCache() {
+        super();
+    }
+
+    /**
+     * Drop the cached paths. They will be rebuilt when they are drawn next time.
+     */
+    void invalidate() {
+        this.valid = false;
+        this.generation++;
+    }
+
+    /**
+     * Drop the cached path of a polygon which is changed or removed. It will be rebuilt when it is
+     * drawn next time.
+     *
+     * @param index the position of a polygon in the list bound by {@link #update(List, Matrix)}.
+     */
+    void invalidate(int index) {
+        if (index < this.versions.length) {
+            // the cache version is never 0
+            this.versions[index] = 0;
+        }
+        this.generation++;
+    }
+
+    /**
+     * Bind the cache to polygons and a path matrix before getting paths in a frame. Cached paths
+     * are kept only if the cache is valid, the list is the same one, and the matrix is the same
+     * as the last one. Polygons added to the end of the list keep the other paths.
+     *
+     * @param pList polygon maps the paths are built from.
+     * @param pathMatrix the matrix from the logical space of <code>dp</code> unit to the view space.
+     */
+    void update(@NonNull List<MTPolygon> pList, @NonNull Matrix pathMatrix) {
+        final int psz = pList.size();
+        if (this.paths.length < psz) {
+            final int capacity = Math.max(psz, this.paths.length + (this.paths.length >> 1));
+            this.paths = Arrays.copyOf(this.paths, capacity);
+            this.versions = Arrays.copyOf(this.versions, capacity);
+            this.sizes = Arrays.copyOf(this.sizes, capacity);
+        }
+        if (this.valid && this.polygons == pList && this.matrix.equals(pathMatrix)) {
+            return;
+        }
+
+        this.polygons = pList;
+        this.matrix.set(pathMatrix);
+        this.level = detailLevelOf(pathMatrix);
+        this.version++;
+        this.valid = true;
+        this.generation++;
+    }
+
+    /**
+     * @return a number which changes whenever a path is dropped, or the cache is bound to other
+     *      polygons or another path matrix.
+     */
+    int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Get the transformed outline path of a polygon. It is built only when it is out of date.
+     *
+     * @param index the position of a polygon in the list bound by {@link #update(List, Matrix)}.
+     * @return a cached path. Do not modify it.
+     */
+    @NonNull
+    Path getPath(int index) {
+        Path path = this.paths[index];
+        if (path == null) {
+            path = new Path();
+            this.paths[index] = path;
+        }
+        if (this.frame != null) {
+            return countPath(index, path);
+        }
+        if (this.versions[index] != this.version) {
+            this.sizes[index] = buildPath(this.polygons.get(index), path);
+            this.versions[index] = this.version;
+        }
+        return path;
+    }
+
+    /**
+     * Count every path got, built, and reused into a frame until it is set to <code>null</code>.
+     *
+     * @param pFrame a frame of render metrics, or <code>null</code> to stop counting.
+     */
+    void setFrame(MTRenderFrame pFrame) {
+        this.frame = pFrame;
+    }
+
+    // getPath() with render metrics
+    @NonNull
+    private Path countPath(int index, @NonNull Path path) {
+        if (this.versions[index] != this.version) {
+            final long start = System.nanoTime();
+            this.sizes[index] = buildPath(this.polygons.get(index), path);
+            this.frame.buildNanos += System.nanoTime() - start;
+            this.versions[index] = this.version;
+            this.frame.pathsRebuilt++;
+        } else {
+            this.frame.pathsReused++;
+        }
+        this.frame.pathsDrawn++;
+        this.frame.verticesSubmitted += this.sizes[index];
+        return path;
+    }
+
+    // the coarsest level whose tolerance is within half a pixel at the scale of the matrix
+    private static int detailLevelOf(@NonNull Matrix pathMatrix) {
+        final float scale = pathMatrix.mapRadius(1.0f);
+        if (!(scale > 0.0f)) {
+            return 0;
+        }
+        return MTPolygon.findDetailLevel(0.5 / scale);
+    }
+
+    // transform vertices in one batch, then draw lines into the reused path. returns the vertex count.
+    private int buildPath(@NonNull MTPolygon polygon, @NonNull Path path) {
+        path.rewind();
+
+        // a simplified outline at the level of detail, or every vertex
+        final int[] indices = polygon.getDetailIndices(this.level);
+        final int vsz = (indices != null) ? indices.length : polygon.getVertexCount();
+        if (vsz == 0) {
+            return 0;
+        }
+        if (this.points.length < vsz * 2) {
+            this.points = new float[vsz * 2];
+        }
+        for (int i = 0; i < vsz; i++) {
+            final int v = (indices != null) ? indices[i] : i;
+            this.points[i * 2] = (float)polygon.getVertexX(v);
+            this.points[i * 2 + 1] = (float)polygon.getVertexY(v);
+        }
+        this.matrix.mapPoints(this.points, 0, this.points, 0, vsz);
+
+        // a multipolygon draws each ring as a contour. Its parts and holes do not overlap, so
+        // the even-odd rule leaves the holes out of a fill whichever direction the rings run.
+        final int rsz = (indices != null) ? 1 : polygon.getRingCount();
+        path.setFillType((rsz > 1) ? Path.FillType.EVEN_ODD : Path.FillType.WINDING);
+        for (int r = 0; r < rsz; r++) {
+            final int start = (rsz > 1) ? polygon.getRingStart(r) : 0;
+            final int end = (rsz > 1) ? polygon.getRingEnd(r) : vsz;
+            path.moveTo(this.points[start * 2], this.points[start * 2 + 1]);
+            for (int i = start + 1; i < end; i++) {
+                path.lineTo(this.points[i * 2], this.points[i * 2 + 1]);
+            }
+            if (polygon.isClosed()) {
+                path.close();
+            }
+        }
+        return vsz;
+    }
+}
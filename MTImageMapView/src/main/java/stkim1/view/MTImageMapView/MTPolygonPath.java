@@ -0,0 +1,62 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Path;
+
+import androidx.annotation.NonNull;
+
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTPolygonPath draws <code>MTPolygon</code> with <code>android.graphics.Path</code>. Polygons
+ * live in the <code>MTImageMapCore</code> module, which runs on any JVM, so the Android graphics
+ * part is adapted here in the view module.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTPolygonPath {
+
+    private MTPolygonPath() {
+        super();
+    }
+
+    /**
+     * The vertices of a polygon can be drawn on the screen in a line with
+     * <code>android.graphics.Path</code> for debugging purpose. The polygon line will be closed
+     * if the polygon is closed, otherwise the line is open. Each ring of a multipolygon is a
+     * contour of the path, filled with the even-odd rule.
+     * <p>
+     * This is expensive function as it spawns <code>android.graphics.Path</code> object. It becomes
+     * as much expensive as the number of polygons and vertices increases.
+     * Please use it with caution at your discretion.
+     *
+     * @param polygon a polygon to draw.
+     * @return <code>android.graphics.Path</code> of <code>vertices</code>
+     * @throws NullPointerException if the polygon is null.
+     */
+    @NonNull
+    public static Path getVerticesPath(@NonNull MTPolygon polygon) {
+        Path path = new Path();
+
+        final int rsz = polygon.getRingCount();
+        if (rsz > 1) {
+            path.setFillType(Path.FillType.EVEN_ODD);
+        }
+        for (int r = 0; r < rsz; r++) {
+            final int start = polygon.getRingStart(r), end = polygon.getRingEnd(r);
+            for (int i = start; i < end; i++) {
+                if (i == start) {
+                    path.moveTo((float)polygon.getVertexX(i), (float)polygon.getVertexY(i));
+                } else {
+                    path.lineTo((float)polygon.getVertexX(i), (float)polygon.getVertexY(i));
+                }
+            }
+            if (polygon.isClosed()) {
+                path.close();
+            }
+        }
+
+        return path;
+    }
+}
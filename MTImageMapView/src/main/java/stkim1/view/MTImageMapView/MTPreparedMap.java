@@ -0,0 +1,475 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Matrix;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import stkim1.view.geom.MTHitTestCounters;
+import stkim1.view.geom.MTPolygon;
+import stkim1.view.geom.MTPolygonHierarchy;
+import stkim1.view.geom.MTPolygonHitMap;
+import stkim1.view.geom.MTPolygonIndex;
+import stkim1.view.geom.MTPolygonTracker;
+
+/**
+ * MTPreparedMap holds a polygon map together with everything derived from it; the spatial index,
+ * the outline path cache, the pointer tracker, the selection, and the optional hit map.
+ * <code>MTImageMapView</code> swaps a whole prepared map with a single reference, so that
+ * <code>onDraw</code> and <code>onTouchEvent</code> never see polygons and their index from
+ * different maps.
+ * <p>
+ * A few polygons can be added, removed, or replaced in place by their polygon id. Each update
+ * patches the index, the containment tree, the paths, the selection, and the hit map for the
+ * changed polygon only. Once the updates pile up, the index is packed again off the UI thread.
+ * A removed polygon leaves <code>null</code> at its index number, which a later polygon reuses,
+ * so that index numbers of the other polygons never change.
+ * <p>
+ * A prepared map can be built on any thread. Once it is published to a view, only the UI thread
+ * touches it.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+final class MTPreparedMap {
+
+    // polygons by index number, null for a removed one
+    final List<MTPolygon> polygons;
+    final MTPolygonIndex index;
+    // the containment tree for nested polygons, if it is enabled. Updates patch it in place.
+    MTPolygonHierarchy hierarchy = null;
+    private boolean nested = false;
+    // indices of open polygons, which the spatial index does not keep
+    int[] openPolygons;
+    int openCount;
+    final MTPathCache pathCache = new MTPathCache();
+    // polygons a dragging or hovering pointer is in
+    final MTPolygonTracker tracker;
+    // scratch buffer to cull outlines without allocation
+    int[] visiblePolygons;
+    // attached after the grid is built, if the hit map is enabled
+    MTPolygonHitMap hitMap = null;
+
+    private int polygonCount;
+    // selected polygons, as flags and as a compact list of their indices
+    private boolean[] selected;
+    private int[] selectedIndices;
+    private int selectedCount = 0;
+    // positions of polygons, built when a polygon is selected for the first time
+    private IdentityHashMap<MTPolygon, Integer> positions = null;
+    // positions of polygons by their id, built for the first update
+    private HashMap<Object, Integer> identifiers = null;
+    // index numbers of removed polygons, to be reused
+    private int[] freeIndices = new int[0];
+    private int freeCount = 0;
+    // polygons changed while hit maps are built, to be patched into them when they are attached
+    private final ArrayList<MTPolygon> changedPolygons = new ArrayList<>();
+    private int pendingGrids = 0;
+
+    /**
+     * Copy a list of polygons and build the spatial index over them.
+     *
+     * @param pList polygon maps. Pass <code>null</code> for an empty map.
+     */
+    MTPreparedMap(List<MTPolygon> pList) {
+        this(pList, null);
+    }
+
+    /**
+     * Copy a list of polygons and bulk-load the spatial index over them on a pool of threads.
+     *
+     * @param pList polygon maps. Pass <code>null</code> for an empty map.
+     * @param pool a pool to build the index on, or <code>null</code> for the calling thread.
+     */
+    MTPreparedMap(List<MTPolygon> pList, @Nullable ForkJoinPool pool) {
+        super();
+
+        this.polygons = (pList == null) ? new ArrayList<>() : new ArrayList<>(pList);
+        this.index = new MTPolygonIndex(this.polygons, pool);
+        this.openPolygons = findOpenPolygons(this.polygons);
+        this.openCount = this.openPolygons.length;
+        this.tracker = new MTPolygonTracker(this.index);
+        this.polygonCount = this.polygons.size();
+        this.visiblePolygons = new int[this.polygons.size()];
+        this.selected = new boolean[this.polygons.size()];
+        this.selectedIndices = new int[this.polygons.size()];
+    }
+
+    /**
+     * @return <code>true</code> if there is no polygon in this map.
+     */
+    boolean isEmpty() {
+        return this.polygonCount == 0;
+    }
+
+    /**
+     * @return the number of polygons in this map, not counting removed ones.
+     */
+    int getPolygonCount() {
+        return this.polygonCount;
+    }
+
+    /**
+     * Build or drop the containment tree of nested polygons. Queries, instrumented queries, and
+     * the tracker find the same polygons with it.
+     *
+     * @param enabled <code>true</code> to build the tree.
+     */
+    void setNested(boolean enabled) {
+        this.nested = enabled;
+        this.hierarchy = enabled ? new MTPolygonHierarchy(this.index) : null;
+        this.tracker.setHierarchy(this.hierarchy);
+    }
+
+    /**
+     * @return <code>true</code> if the containment tree is enabled.
+     */
+    boolean isNested() {
+        return this.nested;
+    }
+
+    /**
+     * Build every outline path ahead of drawing for a path matrix.
+     *
+     * @param pathMatrix the matrix from the logical space of <code>dp</code> unit to the view space.
+     */
+    void preparePaths(@NonNull Matrix pathMatrix) {
+        this.pathCache.update(this.polygons, pathMatrix);
+        final int psz = this.polygons.size();
+        for (int i = 0; i < psz; i++) {
+            if (this.polygons.get(i) != null) {
+                this.pathCache.getPath(i);
+            }
+        }
+    }
+
+    /**
+     * Find polygons which contain a point (x, y) without allocation. The hit map resolves most
+     * points with a single lookup. Otherwise, the spatial index picks polygons whose bounding box
+     * contains the point, then see if the point is in polygon. With the containment tree, nested
+     * polygons are only checked when the point is in their parent.
+     *
+     * @param x x part of a point in the logical space of <code>dp</code> unit.
+     * @param y y part of a point in the logical space of <code>dp</code> unit.
+     * @param result a list to which polygons containing the point are appended.
+     */
+    void findPolygons(double x, double y, @NonNull List<MTPolygon> result) {
+        final MTPolygonHitMap grid = this.hitMap;
+        final int hit = (grid != null) ? grid.lookup(x, y) : MTPolygonHitMap.MIXED;
+        if (hit >= 0) {
+            result.add(this.polygons.get(hit));
+        } else if (hit == MTPolygonHitMap.MIXED) {
+            if (this.hierarchy != null) {
+                this.hierarchy.findPolygons(x, y, result);
+            } else {
+                this.index.findPolygons(x, y, result);
+            }
+        }
+    }
+
+    /**
+     * Find polygons which contain a point (x, y) the same way as
+     * {@link #findPolygons(double, double, List)}, and count the work done for it.
+     *
+     * @param x x part of a point in the logical space of <code>dp</code> unit.
+     * @param y y part of a point in the logical space of <code>dp</code> unit.
+     * @param result a list to which polygons containing the point are appended.
+     * @param counters the counters to which the work is added.
+     */
+    void findPolygons(double x, double y, @NonNull List<MTPolygon> result,
+                      @NonNull MTHitTestCounters counters) {
+        final MTPolygonHitMap grid = this.hitMap;
+        final int hit = (grid != null) ? grid.lookup(x, y) : MTPolygonHitMap.MIXED;
+        if (hit >= 0) {
+            result.add(this.polygons.get(hit));
+        } else if (hit == MTPolygonHitMap.MIXED) {
+            if (this.hierarchy != null) {
+                this.hierarchy.findPolygons(x, y, result, counters);
+            } else {
+                this.index.findPolygons(x, y, result, counters);
+            }
+        }
+    }
+
+    /**
+     * Find the indices of polygons which contain a point (x, y) without allocation, the same way
+     * {@link #findPolygons(double, double, List)} does.
+     *
+     * @param x x part of a point in the logical space of <code>dp</code> unit.
+     * @param y y part of a point in the logical space of <code>dp</code> unit.
+     * @param result an array with room for every polygon index from the offset.
+     * @param offset the position of the result array to start writing at.
+     * @return the number of polygons found.
+     */
+    int findPolygonIndices(double x, double y, @NonNull int[] result, int offset) {
+        final MTPolygonHitMap grid = this.hitMap;
+        final int hit = (grid != null) ? grid.lookup(x, y) : MTPolygonHitMap.MIXED;
+        if (hit >= 0) {
+            result[offset] = hit;
+            return 1;
+        } else if (hit == MTPolygonHitMap.MIXED) {
+            return (this.hierarchy != null) ? this.hierarchy.findPolygonIndices(x, y, result, offset) :
+                    this.index.findPolygonIndices(x, y, result, offset);
+        }
+        return 0;
+    }
+
+    /**
+     * Find the position of a polygon in this map by its identity.
+     *
+     * @param polygon a polygon.
+     * @return the index of the polygon, or <code>-1</code> if it is not in this map.
+     */
+    int indexOf(@NonNull MTPolygon polygon) {
+        if (this.positions == null) {
+            final int psz = this.polygons.size();
+            this.positions = new IdentityHashMap<>(psz);
+            for (int i = 0; i < psz; i++) {
+                if (this.polygons.get(i) != null) {
+                    this.positions.put(this.polygons.get(i), i);
+                }
+            }
+        }
+        Integer index = this.positions.get(polygon);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Find the position of a polygon in this map by its polygon id. Polygon ids are expected to be
+     * unique. If they are not, the first polygon with the id is found. Polygons without an id are
+     * never found, and ids are expected not to change while the polygons are in this map.
+     *
+     * @param polygonId the id of a polygon.
+     * @return the index of the polygon, or <code>-1</code> if there is no polygon with the id.
+     * @throws InvalidParameterException if the id is <code>null</code>.
+     */
+    int indexOfId(Object polygonId) {
+        if (polygonId == null) {
+            throw new InvalidParameterException("MTPolygon id must not be null to find it.");
+        }
+        if (this.identifiers == null) {
+            final int psz = this.polygons.size();
+            this.identifiers = new HashMap<>(psz * 2);
+            for (int i = psz - 1; i >= 0; i--) {
+                final MTPolygon polygon = this.polygons.get(i);
+                if (polygon != null && polygon.getPolygonId() != null) {
+                    this.identifiers.put(polygon.getPolygonId(), i);
+                }
+            }
+        }
+        Integer index = this.identifiers.get(polygonId);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Add a polygon at the index number of a removed polygon, or at the end.
+     *
+     * @param polygon a polygon whose id is not in this map.
+     * @return the index of the polygon.
+     */
+    int add(@NonNull MTPolygon polygon) {
+        if (this.freeCount > 0) {
+            final int index = this.freeIndices[--this.freeCount];
+            this.polygonCount++;
+            set(index, polygon);
+            return index;
+        }
+
+        final int index = this.index.add(polygon);
+        this.polygons.add(polygon);
+        this.polygonCount++;
+        if (this.selected.length <= index) {
+            final int capacity = Math.max(index + 1, this.selected.length + (this.selected.length >> 1));
+            this.selected = Arrays.copyOf(this.selected, capacity);
+            this.selectedIndices = Arrays.copyOf(this.selectedIndices, capacity);
+            this.visiblePolygons = new int[capacity];
+        }
+        changed(index, null, polygon);
+        return index;
+    }
+
+    /**
+     * Replace the polygon at an index, or remove it. A replaced polygon stays selected, and
+     * a removed one is deselected.
+     *
+     * @param index the index of a polygon.
+     * @param polygon a polygon to put at the index, or <code>null</code> to remove the polygon.
+     */
+    void set(int index, MTPolygon polygon) {
+        final MTPolygon old = this.polygons.get(index);
+        if (polygon == null) {
+            setSelected(index, false);
+            if (this.freeIndices.length == this.freeCount) {
+                this.freeIndices = Arrays.copyOf(this.freeIndices, Math.max(8, this.freeCount * 2));
+            }
+            this.freeIndices[this.freeCount++] = index;
+            this.polygonCount--;
+        }
+        this.polygons.set(index, polygon);
+        this.index.set(index, polygon);
+        changed(index, old, polygon);
+    }
+
+    // patch everything derived from the polygons for a change at an index
+    private void changed(int index, MTPolygon old, MTPolygon polygon) {
+        if (old != null) {
+            if (this.positions != null) {
+                this.positions.remove(old);
+            }
+            if (this.identifiers != null && old.getPolygonId() != null) {
+                this.identifiers.remove(old.getPolygonId(), index);
+            }
+            if (!old.isClosed()) {
+                for (int i = 0; i < this.openCount; i++) {
+                    if (this.openPolygons[i] == index) {
+                        this.openPolygons[i] = this.openPolygons[--this.openCount];
+                        break;
+                    }
+                }
+            }
+        }
+        if (polygon != null) {
+            if (this.positions != null) {
+                this.positions.put(polygon, index);
+            }
+            if (this.identifiers != null && polygon.getPolygonId() != null) {
+                this.identifiers.putIfAbsent(polygon.getPolygonId(), index);
+            }
+            if (!polygon.isClosed()) {
+                if (this.openPolygons.length == this.openCount) {
+                    this.openPolygons = Arrays.copyOf(this.openPolygons, Math.max(8, this.openCount * 2));
+                }
+                this.openPolygons[this.openCount++] = index;
+            }
+        }
+
+        this.pathCache.invalidate(index);
+        patchHitMap(this.hitMap, old);
+        patchHitMap(this.hitMap, polygon);
+        if (this.pendingGrids > 0) {
+            if (old != null) {
+                this.changedPolygons.add(old);
+            }
+            if (polygon != null) {
+                this.changedPolygons.add(polygon);
+            }
+        }
+
+        // only polygons whose bounding box meets the change are moved in the tree
+        if (this.hierarchy != null) {
+            this.hierarchy.update(index);
+        }
+    }
+
+    private static void patchHitMap(MTPolygonHitMap grid, MTPolygon polygon) {
+        if (grid != null && polygon != null) {
+            grid.markMixed(polygon);
+        }
+    }
+
+    /**
+     * Start building a hit map off the UI thread from a copy of the polygons. Polygons changed
+     * until it is attached are patched into it.
+     *
+     * @return the number of changed polygons to pass to {@link #endHitMap(MTPolygonHitMap, int)}.
+     */
+    int beginHitMap() {
+        this.pendingGrids++;
+        return this.changedPolygons.size();
+    }
+
+    /**
+     * Finish building a hit map started by {@link #beginHitMap()}.
+     *
+     * @param grid the hit map to attach after patching, or <code>null</code> if it is superseded.
+     * @param changes the number of changed polygons when the build began.
+     */
+    void endHitMap(MTPolygonHitMap grid, int changes) {
+        if (grid != null) {
+            final int csz = this.changedPolygons.size();
+            for (int i = changes; i < csz; i++) {
+                grid.markMixed(this.changedPolygons.get(i));
+            }
+            this.hitMap = grid;
+        }
+        if (--this.pendingGrids == 0) {
+            this.changedPolygons.clear();
+        }
+    }
+
+    /**
+     * Select or deselect a polygon.
+     *
+     * @param index the index of a polygon.
+     * @param select <code>true</code> to select the polygon.
+     * @return <code>true</code> if the selection is changed.
+     */
+    boolean setSelected(int index, boolean select) {
+        if (this.selected[index] == select) {
+            return false;
+        }
+        this.selected[index] = select;
+        if (select) {
+            this.selectedIndices[this.selectedCount++] = index;
+        } else {
+            for (int i = 0; i < this.selectedCount; i++) {
+                if (this.selectedIndices[i] == index) {
+                    this.selectedIndices[i] = this.selectedIndices[--this.selectedCount];
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param index the index of a polygon.
+     * @return <code>true</code> if the polygon is selected.
+     */
+    boolean isSelected(int index) {
+        return this.selected[index];
+    }
+
+    /**
+     * @return the number of selected polygons.
+     */
+    int getSelectedCount() {
+        return this.selectedCount;
+    }
+
+    /**
+     * @param i the position in the selected polygons, in the order they were selected, except
+     *      that a deselection moves the last one into its place.
+     * @return the index of a selected polygon.
+     */
+    int getSelected(int i) {
+        return this.selectedIndices[i];
+    }
+
+    @NonNull
+    private static int[] findOpenPolygons(@NonNull List<MTPolygon> pList) {
+        int count = 0;
+        final int psz = pList.size();
+        for (int i = 0; i < psz; i++) {
+            if (!pList.get(i).isClosed()) {
+                count++;
+            }
+        }
+        int[] open = new int[count];
+        for (int i = 0, k = 0; i < psz; i++) {
+            if (!pList.get(i).isClosed()) {
+                open[k++] = i;
+            }
+        }
+        return open;
+    }
+}
@@ -0,0 +1,116 @@
+package stkim1.view.MTImageMapView;
+
+/**
+ * MTRenderFrame describes the outlines and highlights <code>MTImageMapView</code> drew in a frame,
+ * and how long it took. Frames are preallocated in the ring buffer of <code>MTRenderMetrics</code>
+ * and reused, so read what you need while a frame is reported.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTRenderFrame {
+
+    long frameTime = 0;
+    int polygonCount = 0;
+    boolean pathVisible = false;
+    int pathsDrawn = 0;
+    long verticesSubmitted = 0;
+    int pathsRebuilt = 0;
+    int pathsReused = 0;
+    long buildNanos = 0;
+    long drawNanos = 0;
+    boolean outlinesReplayed = false;
+
+    MTRenderFrame() {
+        super();
+    }
+
+    // start over for a new frame
+    void reset(long time, int polygons, boolean visible) {
+        this.frameTime = time;
+        this.polygonCount = polygons;
+        this.pathVisible = visible;
+        this.pathsDrawn = 0;
+        this.verticesSubmitted = 0;
+        this.pathsRebuilt = 0;
+        this.pathsReused = 0;
+        this.buildNanos = 0;
+        this.drawNanos = 0;
+        this.outlinesReplayed = false;
+    }
+
+    /**
+     * @return the time the frame was drawn at, in <code>System.nanoTime()</code>.
+     */
+    public long getFrameTime() {
+        return this.frameTime;
+    }
+
+    /**
+     * @return the number of polygons in the polygon maps.
+     */
+    public int getPolygonCount() {
+        return this.polygonCount;
+    }
+
+    /**
+     * @return <code>true</code> if outlines were visible in the frame.
+     */
+    public boolean isPathVisible() {
+        return this.pathVisible;
+    }
+
+    /**
+     * @return the number of outline and highlight paths drawn.
+     */
+    public int getPathsDrawn() {
+        return this.pathsDrawn;
+    }
+
+    /**
+     * @return the number of vertices in the paths drawn.
+     */
+    public long getVerticesSubmitted() {
+        return this.verticesSubmitted;
+    }
+
+    /**
+     * @return the number of paths built, or rebuilt for a new path matrix, in the frame.
+     */
+    public int getPathsRebuilt() {
+        return this.pathsRebuilt;
+    }
+
+    /**
+     * @return the number of cached paths drawn as they were.
+     */
+    public int getPathsReused() {
+        return this.pathsReused;
+    }
+
+    /**
+     * @return the nanoseconds spent to build paths, including the transformation of vertices.
+     */
+    public long getBuildNanos() {
+        return this.buildNanos;
+    }
+
+    /**
+     * @return the nanoseconds spent to draw paths with <code>Canvas.drawPath</code>, including
+     *      culling them, apart from building them.
+     */
+    public long getDrawNanos() {
+        return this.drawNanos;
+    }
+
+    /**
+     * Outlines are recorded into a layer on hardware accelerated canvases from API 29. A frame
+     * which changes only the selection replays them, and draws and counts the highlights only.
+     *
+     * @return <code>true</code> if the outlines were replayed from the layer without being drawn.
+     */
+    public boolean isOutlinesReplayed() {
+        return this.outlinesReplayed;
+    }
+}
@@ -0,0 +1,71 @@
+package stkim1.view.MTImageMapView;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MTRenderMetrics keeps the recent frames of <code>MTImageMapView</code> in a ring buffer, so
+ * that a jank report can be correlated with the map size and the outline visibility of the
+ * frames before it. The ring buffer is preallocated, and recording a frame does not allocate.
+ * It is only touched on the UI thread.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTRenderMetrics {
+
+    // the number of recent frames kept; two seconds at 60 fps
+    public static final int RECENT_FRAMES = 120;
+
+    private final MTRenderFrame[] frames = new MTRenderFrame[RECENT_FRAMES];
+    // the position of the last frame, and the number of frames kept
+    private int last = -1;
+    private int count = 0;
+
+    MTRenderMetrics() {
+        super();
+        for (int i = 0; i < RECENT_FRAMES; i++) {
+            this.frames[i] = new MTRenderFrame();
+        }
+    }
+
+    // take over the oldest frame for a new one
+    @NonNull
+    MTRenderFrame beginFrame(int polygons, boolean visible) {
+        this.last = (this.last + 1) % RECENT_FRAMES;
+        this.count = Math.min(this.count + 1, RECENT_FRAMES);
+        MTRenderFrame frame = this.frames[this.last];
+        frame.reset(System.nanoTime(), polygons, visible);
+        return frame;
+    }
+
+    /**
+     * @return the number of recent frames kept, up to {@link #RECENT_FRAMES}.
+     */
+    public int getRecentFrameCount() {
+        return this.count;
+    }
+
+    /**
+     * Get a recent frame.
+     *
+     * @param age <code>0</code> for the last frame, <code>1</code> for the one before it, and so on.
+     * @return a recent frame. It is reused for a later frame.
+     * @throws IndexOutOfBoundsException if there are not as many frames kept.
+     */
+    @NonNull
+    public MTRenderFrame getRecentFrame(int age) {
+        if (age < 0 || age >= this.count) {
+            throw new IndexOutOfBoundsException("Frame age " + age + " is out of " + this.count + " frames.");
+        }
+        return this.frames[(this.last - age + RECENT_FRAMES) % RECENT_FRAMES];
+    }
+
+    /**
+     * Forget every recent frame.
+     */
+    public void clear() {
+        this.last = -1;
+        this.count = 0;
+    }
+}
@@ -0,0 +1,265 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.LruCache;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+
+/**
+ * MTTiledImage draws an image too large to decode at once, e.g. a floor plan of 12k by 9k pixels.
+ * Only the tiles visible at the current zoom are decoded with <code>BitmapRegionDecoder</code>,
+ * at the coarsest sample size that still has a pixel for each screen pixel. Decoded tiles are
+ * kept in an LRU cache bounded by bytes, and decoding happens off the UI thread. Until a tile is
+ * decoded, a coarser tile covering it is drawn in its place if there is one.
+ * <p>
+ * The image matrix maps image pixels into the content area of the view. It plays the role of the
+ * image matrix of <code>ImageView</code>, so that touches and outlines follow the image the same
+ * way. Except decoding, everything happens on the UI thread.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+final class MTTiledImage {
+
+    // the width and height of a tile in decoded pixels
+    private static final int TILE_SIZE = 512;
+    private static final int MAX_SAMPLE_SIZE = 64;
+    // zooming in stops at this many screen pixels for an image pixel
+    private static final float MAX_SCALE = 4.0f;
+
+    private final View view;
+    private final BitmapRegionDecoder decoder;
+    private final Executor executor;
+    private final int imageWidth, imageHeight;
+    private final LruCache<Long, Bitmap> tiles;
+    // tiles being decoded
+    private final HashSet<Long> pending = new HashSet<>();
+    private boolean released = false;
+
+    // image pixels -> content area of the view
+    final Matrix matrix = new Matrix();
+    private int contentWidth = 0, contentHeight = 0;
+    private float minScale = 1.0f;
+
+    // scratch buffers to draw without allocation
+    private final Matrix inverse = new Matrix();
+    private final RectF visible = new RectF();
+    private final Rect source = new Rect();
+    private final RectF target = new RectF();
+    private final float[] values = new float[9];
+    private final Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * Open an image for tiled decoding.
+     *
+     * @param view the view to invalidate when tiles are decoded.
+     * @param stream an encoded JPEG or PNG image.
+     * @param executor an <code>Executor</code> to decode tiles off the UI thread.
+     * @throws IOException if the image cannot be decoded.
+     */
+    MTTiledImage(@NonNull View view, @NonNull InputStream stream, @NonNull Executor executor) throws IOException {
+        super();
+        this.view = view;
+        this.decoder = BitmapRegionDecoder.newInstance(stream, false);
+        this.executor = executor;
+        this.imageWidth = this.decoder.getWidth();
+        this.imageHeight = this.decoder.getHeight();
+
+        // an eighth of the heap for tiles
+        final int cacheBytes = (int)Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+        this.tiles = new LruCache<Long, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap tile) {
+                return tile.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Fit the image into the content area of the view when its size is changed.
+     *
+     * @param width the width of the content area.
+     * @param height the height of the content area.
+     * @return <code>true</code> if the image matrix is changed.
+     */
+    boolean fit(int width, int height) {
+        if (width == this.contentWidth && height == this.contentHeight) {
+            return false;
+        }
+        this.contentWidth = width;
+        this.contentHeight = height;
+        this.minScale = Math.min((float)width / this.imageWidth, (float)height / this.imageHeight);
+        this.matrix.setScale(this.minScale, this.minScale);
+        clamp();
+        return true;
+    }
+
+    /**
+     * Zoom the image around a focus point.
+     *
+     * @param factor the scale factor of a pinch.
+     * @param focusX x part of the focus in the content area.
+     * @param focusY y part of the focus in the content area.
+     */
+    void zoom(float factor, float focusX, float focusY) {
+        final float scale = currentScale();
+        final float next = Math.max(this.minScale, Math.min(scale * factor, MAX_SCALE));
+        this.matrix.postScale(next / scale, next / scale, focusX, focusY);
+        clamp();
+    }
+
+    /**
+     * Pan the image.
+     *
+     * @param dx the distance to move along x in the content area.
+     * @param dy the distance to move along y in the content area.
+     */
+    void pan(float dx, float dy) {
+        this.matrix.postTranslate(dx, dy);
+        clamp();
+    }
+
+    /**
+     * Draw the visible tiles into a canvas translated onto the content area. Missing tiles are
+     * requested to be decoded.
+     *
+     * @param canvas the canvas of the view.
+     */
+    void draw(@NonNull Canvas canvas) {
+        if (this.released || !this.matrix.invert(this.inverse)) {
+            return;
+        }
+
+        // the coarsest sample size that keeps a decoded pixel for each screen pixel
+        final float scale = currentScale();
+        int sample = 1;
+        while (sample * 2 <= MAX_SAMPLE_SIZE && sample * 2 * scale <= 1.0f) {
+            sample *= 2;
+        }
+
+        // the visible part of the image in image pixels
+        this.visible.set(0, 0, this.contentWidth, this.contentHeight);
+        this.inverse.mapRect(this.visible);
+        if (!this.visible.intersect(0, 0, this.imageWidth, this.imageHeight)) {
+            return;
+        }
+
+        final int span = TILE_SIZE * sample;
+        final int col0 = (int)(this.visible.left / span), col1 = (int)((this.visible.right - 1) / span);
+        final int row0 = (int)(this.visible.top / span), row1 = (int)((this.visible.bottom - 1) / span);
+
+        canvas.save();
+        canvas.concat(this.matrix);
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                final int left = col * span, top = row * span;
+                this.target.set(left, top, Math.min(left + span, this.imageWidth),
+                        Math.min(top + span, this.imageHeight));
+
+                final Bitmap tile = this.tiles.get(keyOf(sample, row, col));
+                if (tile != null) {
+                    canvas.drawBitmap(tile, null, this.target, this.tilePaint);
+                    continue;
+                }
+                request(sample, row, col);
+                drawCoarser(canvas, sample, left, top);
+            }
+        }
+        canvas.restore();
+    }
+
+    /**
+     * Drop every tile and close the decoder. Tiles being decoded are dropped when they are done.
+     */
+    void release() {
+        this.released = true;
+        this.tiles.evictAll();
+        this.pending.clear();
+        this.decoder.recycle();
+    }
+
+    // the scale of the uniformly scaled image matrix
+    private float currentScale() {
+        this.matrix.getValues(this.values);
+        return this.values[Matrix.MSCALE_X];
+    }
+
+    // keep the scale in range, and the image over the content area, or centered if smaller.
+    private void clamp() {
+        this.matrix.getValues(this.values);
+        final float scale = Math.max(this.minScale, Math.min(this.values[Matrix.MSCALE_X], MAX_SCALE));
+        final float width = this.imageWidth * scale, height = this.imageHeight * scale;
+        float tx = this.values[Matrix.MTRANS_X], ty = this.values[Matrix.MTRANS_Y];
+        tx = (width <= this.contentWidth) ? (this.contentWidth - width) / 2.0f :
+                Math.max(this.contentWidth - width, Math.min(tx, 0.0f));
+        ty = (height <= this.contentHeight) ? (this.contentHeight - height) / 2.0f :
+                Math.max(this.contentHeight - height, Math.min(ty, 0.0f));
+        this.matrix.setScale(scale, scale);
+        this.matrix.postTranslate(tx, ty);
+    }
+
+    // draw the part of a coarser tile covering a missing tile, if there is one
+    private void drawCoarser(@NonNull Canvas canvas, int sample, int left, int top) {
+        for (int coarse = sample * 2; coarse <= MAX_SAMPLE_SIZE; coarse *= 2) {
+            final int span = TILE_SIZE * coarse;
+            final int row = top / span, col = left / span;
+            final Bitmap tile = this.tiles.get(keyOf(coarse, row, col));
+            if (tile == null) {
+                continue;
+            }
+            final int ox = col * span, oy = row * span;
+            this.source.set((int)((this.target.left - ox) / coarse), (int)((this.target.top - oy) / coarse),
+                    (int)Math.ceil((this.target.right - ox) / coarse), (int)Math.ceil((this.target.bottom - oy) / coarse));
+            canvas.drawBitmap(tile, this.source, this.target, this.tilePaint);
+            return;
+        }
+    }
+
+    // decode a tile on the executor, and cache it on the UI thread
+    private void request(int sample, int row, int col) {
+        final long key = keyOf(sample, row, col);
+        if (!this.pending.add(key)) {
+            return;
+        }
+
+        final int span = TILE_SIZE * sample;
+        final Rect region = new Rect(col * span, row * span,
+                Math.min((col + 1) * span, this.imageWidth), Math.min((row + 1) * span, this.imageHeight));
+        this.executor.execute(() -> {
+            Bitmap tile = null;
+            try {
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inSampleSize = sample;
+                tile = this.decoder.decodeRegion(region, options);
+            } catch (RuntimeException e) {
+                // the decoder might have been released. the tile is requested again if needed.
+            }
+            final Bitmap decoded = tile;
+            this.view.post(() -> {
+                this.pending.remove(key);
+                if (!this.released && decoded != null) {
+                    this.tiles.put(key, decoded);
+                    this.view.invalidate();
+                }
+            });
+        });
+    }
+
+    private static long keyOf(int sample, int row, int col) {
+        return ((long)sample << 42) | ((long)row << 21) | col;
+    }
+}
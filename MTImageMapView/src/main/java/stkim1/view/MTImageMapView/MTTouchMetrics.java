@@ -0,0 +1,160 @@
+package stkim1.view.MTImageMapView;
+
+import stkim1.view.geom.MTHitTestCounters;
+
+/**
+ * MTTouchMetrics describes how much time and work <code>MTImageMapView</code> spent to resolve the
+ * last touch, and keeps the latency of every touch since it was reset in a histogram for
+ * percentiles.
+ * <p>
+ * The percentiles are cumulative since the last {@link #resetHistogram()}. The caller sets the
+ * window of rolling percentiles by resetting the histogram, e.g. sample the percentiles and reset
+ * it every minute, or every thousand touches.
+ * <p>
+ * The histogram is preallocated with logarithmic buckets, 8 per power of two, so that recording
+ * a touch does not allocate and a percentile is off by less than 12.5%. A metrics object is
+ * reused for every touch, and is only touched on the UI thread.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+public final class MTTouchMetrics {
+
+    // 8 linear buckets below 8ns, then 8 sub-buckets for each power of two up to 2^62
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] histogram = new long[BUCKETS];
+    private long touchCount = 0;
+
+    // the work of the last touch
+    final MTHitTestCounters counters = new MTHitTestCounters();
+    private long conversionNanos = 0;
+    private long latencyNanos = 0;
+
+    MTTouchMetrics() {
+        super();
+    }
+
+    /**
+     * Record the time of a resolved touch. The counters hold the work of the touch.
+     *
+     * @param conversion the nanoseconds spent to convert the touch point.
+     * @param latency the nanoseconds spent to resolve the touch in total.
+     */
+    void record(long conversion, long latency) {
+        this.conversionNanos = conversion;
+        this.latencyNanos = latency;
+        this.histogram[bucketOf(Math.max(0L, latency))]++;
+        this.touchCount++;
+    }
+
+    /**
+     * @return the nanoseconds spent to convert the last touch point into the logical space of
+     *      <code>dp</code> unit.
+     */
+    public long getConversionNanos() {
+        return this.conversionNanos;
+    }
+
+    /**
+     * @return the nanoseconds spent to resolve the last touch in total, from the conversion to the
+     *      last winding number test.
+     */
+    public long getLatencyNanos() {
+        return this.latencyNanos;
+    }
+
+    /**
+     * @return the number of polygons whose bounding box is checked against the last touch. A touch
+     *      resolved by the hit map considers no polygon.
+     */
+    public long getPolygonsConsidered() {
+        return this.counters.getCandidates();
+    }
+
+    /**
+     * @return the number of polygons whose bounding box contains the last touch.
+     */
+    public long getBoxPasses() {
+        return this.counters.getBoxPasses();
+    }
+
+    /**
+     * @return the number of winding number tests for the last touch.
+     */
+    public long getWindingTests() {
+        return this.counters.getWindingTests();
+    }
+
+    /**
+     * @return the number of polygon edges examined for the last touch.
+     */
+    public long getEdgesVisited() {
+        return this.counters.getEdgesVisited();
+    }
+
+    /**
+     * @return the number of touches recorded in the histogram since it was reset.
+     */
+    public long getTouchCount() {
+        return this.touchCount;
+    }
+
+    /**
+     * Estimate a percentile of the latency of the touches recorded since the histogram was reset,
+     * e.g. <code>0.5</code>, <code>0.95</code>, and <code>0.99</code> for p50, p95, and p99.
+     *
+     * @param fraction the fraction of touches from <code>0</code> to <code>1</code>.
+     * @return the upper bound of the histogram bucket the percentile falls in, in nanoseconds.
+     *      <code>0</code> if no touch is recorded.
+     */
+    public long getLatencyPercentile(double fraction) {
+        if (this.touchCount == 0) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long)Math.ceil(Math.min(1.0, Math.max(0.0, fraction)) * this.touchCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.histogram[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    /**
+     * Forget every recorded touch, e.g. after the percentiles are sampled for telemetry. This
+     * starts the next window of percentiles.
+     */
+    public void resetHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.histogram[i] = 0L;
+        }
+        this.touchCount = 0;
+    }
+
+    // the histogram bucket of a non-negative value
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // the largest value in a histogram bucket
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        final long lower = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,106 @@
+package stkim1.view.MTImageMapView;
+
+import android.graphics.Matrix;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import stkim1.view.geom.MTHitTestCounters;
+import stkim1.view.geom.MTPolygon;
+
+/**
+ * MTTouchResolver converts a touch point into the logical space of <code>dp</code> unit, and finds
+ * the polygons under it into scratch buffers, so that resolving a touch does not allocate. The
+ * point and the polygons are overwritten by the next touch.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+final class MTTouchResolver {
+
+    // scratch buffer to convert a point with the matrix in place
+    private final float[] touchPoint = new float[2];
+    private final ArrayList<MTPolygon> polygons = new ArrayList<>();
+    private final List<MTPolygon> result = Collections.unmodifiableList(polygons);
+
+    // the last touch point in the logical space of dp unit. the zero point if it was outside.
+    double x = 0.0;
+    double y = 0.0;
+
+    MTTouchResolver() {
+        super();
+    }
+
+    /**
+     * Convert a touch point. If there's no polygon, or the point isn't contained in the touchable
+     * area of image, it is the zero point.
+     *
+     * @return <code>true</code> if the point is in the touchable area of a non-empty map.
+     */
+    boolean convert(float tX, float tY, @NonNull Rect touchArea, @NonNull Matrix touchConvMat,
+                    @NonNull MTPreparedMap map) {
+        if (map.isEmpty() || !contains(touchArea, tX, tY)) {
+            this.x = 0.0;
+            this.y = 0.0;
+            return false;
+        }
+
+        // converting the matrix in place;
+        this.touchPoint[0] = tX - touchArea.left;
+        this.touchPoint[1] = tY - touchArea.top;
+        if (!touchConvMat.isIdentity()) {
+            touchConvMat.mapPoints(this.touchPoint);
+        }
+        this.x = this.touchPoint[0];
+        this.y = this.touchPoint[1];
+        return true;
+    }
+
+    /**
+     * Convert a touch point, and find the polygons under it.
+     */
+    void resolve(float tX, float tY, @NonNull Rect touchArea, @NonNull Matrix touchConvMat,
+                 @NonNull MTPreparedMap map) {
+        this.polygons.clear();
+        if (convert(tX, tY, touchArea, touchConvMat, map)) {
+            // the hit map, or the spatial index and the winding number test find touched polygons.
+            map.findPolygons(this.x, this.y, this.polygons);
+        }
+    }
+
+    /**
+     * Find the polygons under the converted point, and count the work into the counters.
+     */
+    void find(@NonNull MTPreparedMap map, @NonNull MTHitTestCounters counters) {
+        map.findPolygons(this.x, this.y, this.polygons, counters);
+    }
+
+    // the same test as Rect.contains(int, int) of a touch point, on the fields of the rectangle
+    static boolean contains(@NonNull Rect area, float tX, float tY) {
+        final int ix = (int)tX;
+        final int iy = (int)tY;
+        return area.left < area.right && area.top < area.bottom
+                && area.left <= ix && ix < area.right && area.top <= iy && iy < area.bottom;
+    }
+
+    void clear() {
+        this.polygons.clear();
+    }
+
+    void ensureCapacity(int capacity) {
+        this.polygons.ensureCapacity(capacity);
+    }
+
+    /**
+     * @return the polygons of the last touch in an unmodifiable view of the scratch list.
+     */
+    @NonNull
+    List<MTPolygon> getPolygons() {
+        return this.result;
+    }
+}
@@ -0,0 +1,115 @@
+package stkim1.view.MTImageMapView
+
+import android.graphics.Matrix
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import stkim1.view.geom.MTPolygon
+
+class MTImageMapBatchUnitTest {
+
+    // a 50 x 50 grid of squares, and a large square over the top left quarter of the grid
+    private fun gridMap(): List<MTPolygon> {
+        val polygons = gridMap(50, 50)
+        polygons.add(square("quarter", 0.0, 0.0, 500.0))
+        return polygons
+    }
+
+    private fun hitCapacity(batch: MTImageMapBatch): Int {
+        val field = MTImageMapBatch::class.java.getDeclaredField("hits")
+        field.isAccessible = true
+        return (field.get(batch) as IntArray).size
+    }
+
+    @Test
+    fun check_samplesArePackedByPointer() {
+        val polygons = gridMap()
+        val map = MTPreparedMap(polygons)
+        val batch = MTImageMapBatch()
+
+        // two pointers of three samples each, in a touch area offset by (100, 50)
+        batch.begin(2, 3)
+        batch.setPointer(0, 7)
+        batch.setPointer(1, 3)
+        batch.setSample(0, 0, 105.0f, 55.0f)   // square 0 and the quarter
+        batch.setSample(0, 1, 119.0f, 55.0f)   // the quarter only
+        batch.setSample(0, 2, 99.0f, 55.0f)    // out of the touch area
+        batch.setSample(1, 0, 1085.0f, 1035.0f) // the last square
+        batch.setSample(1, 1, 1099.0f, 1049.0f) // between squares
+        batch.setSample(1, 2, 1100.0f, 1050.0f) // out of the touch area
+        batch.finish(area(100, 50, 1100, 1050), Matrix(), map)
+
+        assertEquals(2, batch.pointerCount)
+        assertEquals(3, batch.sampleCount)
+        assertEquals(7, batch.getPointerId(0))
+        assertEquals(3, batch.getPointerId(1))
+
+        assertTrue(batch.isInside(0, 0))
+        assertEquals(5.0, batch.getX(0, 0), 0.0)
+        assertEquals(5.0, batch.getY(0, 0), 0.0)
+        assertEquals(2, batch.getPolygonCount(0, 0))
+        assertSame(polygons[0], batch.getPolygon(0, 0, 0))
+        assertSame(polygons[2500], batch.getPolygon(0, 0, 1))
+
+        assertEquals(1, batch.getPolygonCount(0, 1))
+        assertSame(polygons[2500], batch.getPolygon(0, 1, 0))
+
+        // an out-of-area sample is the zero point without polygons
+        assertFalse(batch.isInside(0, 2))
+        assertEquals(0.0, batch.getX(0, 2), 0.0)
+        assertEquals(0.0, batch.getY(0, 2), 0.0)
+        assertEquals(0, batch.getPolygonCount(0, 2))
+
+        assertEquals(1, batch.getPolygonCount(1, 0))
+        assertSame(polygons[2499], batch.getPolygon(1, 0, 0))
+        assertTrue(batch.isInside(1, 1))
+        assertEquals(0, batch.getPolygonCount(1, 1))
+        assertFalse(batch.isInside(1, 2))
+        assertEquals(0, batch.getPolygonCount(1, 2))
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun check_polygonOutOfSample() {
+        val batch = MTImageMapBatch()
+        batch.begin(1, 1)
+        batch.setSample(0, 0, 119.0f, 5.0f)
+        batch.finish(area(0, 0, 1000, 1000), Matrix(), MTPreparedMap(gridMap()))
+        assertEquals(1, batch.getPolygonCount(0, 0))
+        batch.getPolygon(0, 0, 1)
+    }
+
+    @Test
+    fun check_hitsGrowWithPolygonsFound() {
+        val map = MTPreparedMap(gridMap())
+        val batch = MTImageMapBatch()
+
+        // 5 pointers of 10 samples, each in two polygons
+        batch.begin(5, 10)
+        for (p in 0 until 5) {
+            for (s in 0 until 10) {
+                batch.setSample(p, s, 5.0f + p * 20.0f, 5.0f + s * 20.0f)
+            }
+        }
+        batch.finish(area(0, 0, 1000, 1000), Matrix(), map)
+
+        var found = 0
+        for (p in 0 until 5) {
+            for (s in 0 until 10) {
+                assertEquals(2, batch.getPolygonCount(p, s))
+                assertEquals(p + s * 50, batch.getPolygon(p, s, 0).getPolygonId())
+                found += batch.getPolygonCount(p, s)
+            }
+        }
+        // the packed hits are not as large as samples x polygons
+        assertTrue(hitCapacity(batch) < found * 2)
+
+        // a batch is reused for the next event
+        batch.begin(1, 1)
+        batch.setSample(0, 0, 990.0f, 990.0f)
+        batch.finish(area(0, 0, 1000, 1000), Matrix(), map)
+        assertEquals(1, batch.getPolygonCount(0, 0))
+        assertEquals(2499, batch.getPolygon(0, 0, 0).getPolygonId())
+    }
+}
@@ -0,0 +1,59 @@
+package stkim1.view.MTImageMapView
+
+import android.graphics.Paint
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MTOutlineLayerUnitTest {
+
+    @Test
+    fun check_selectionReplaysOutlines() {
+        val map = MTPreparedMap(gridMap(10, 10))
+        val layer = MTOutlineLayer()
+        val paint = Paint()
+
+        // the first frame records the outlines, and the next one replays them
+        assertTrue(layer.update(map, map.pathCache.generation, paint, 400, 300))
+        assertFalse(layer.update(map, map.pathCache.generation, paint, 400, 300))
+
+        // a selection does not touch the outlines
+        map.setSelected(3, true)
+        map.setSelected(7, true)
+        map.setSelected(3, false)
+        assertFalse(layer.update(map, map.pathCache.generation, paint, 400, 300))
+    }
+
+    @Test
+    fun check_changesRecordOutlinesAgain() {
+        val map = MTPreparedMap(gridMap(10, 10))
+        val layer = MTOutlineLayer()
+        val paint = Paint()
+        assertTrue(layer.update(map, map.pathCache.generation, paint, 400, 300))
+
+        // a replaced polygon drops its path
+        val generation = map.pathCache.generation
+        map.set(5, square("reshaped", 100.0, 0.0, 30.0))
+        assertNotEquals(generation, map.pathCache.generation)
+        assertTrue(layer.update(map, map.pathCache.generation, paint, 400, 300))
+        assertFalse(layer.update(map, map.pathCache.generation, paint, 400, 300))
+
+        // so does an added one
+        map.add(square("added", 300.0, 0.0, 30.0))
+        assertTrue(layer.update(map, map.pathCache.generation, paint, 400, 300))
+
+        // another size, paint, or map
+        assertTrue(layer.update(map, map.pathCache.generation, paint, 400, 200))
+        assertTrue(layer.update(map, map.pathCache.generation, Paint(), 400, 200))
+        val other = MTPreparedMap(gridMap(10, 10))
+        assertTrue(layer.update(other, other.pathCache.generation, paint, 400, 200))
+        assertFalse(layer.update(other, other.pathCache.generation, paint, 400, 200))
+
+        // an invalidated or released layer
+        layer.invalidate()
+        assertTrue(layer.update(other, other.pathCache.generation, paint, 400, 200))
+        layer.release()
+        assertTrue(layer.update(other, other.pathCache.generation, paint, 400, 200))
+    }
+}
@@ -0,0 +1,38 @@
+package stkim1.view.MTImageMapView
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.security.InvalidParameterException
+
+class MTPreparedMapUnitTest {
+
+    @Test
+    fun check_polygonsWithoutIdAreNotKeyed() {
+        val map = MTPreparedMap(listOf(square(null, 0.0, 0.0, 10.0), square("a", 20.0, 0.0, 10.0), square(null, 40.0, 0.0, 10.0)))
+        assertEquals(1, map.indexOfId("a"))
+        assertEquals(-1, map.indexOfId("b"))
+
+        // an id-less polygon is added at the end, and never found by id
+        assertEquals(3, map.add(square(null, 60.0, 0.0, 10.0)))
+        assertEquals(4, map.add(square("b", 80.0, 0.0, 10.0)))
+        assertEquals(4, map.indexOfId("b"))
+
+        // removing an id-less polygon does not touch the others
+        map.set(0, null)
+        assertNull(map.polygons[0])
+        assertEquals(1, map.indexOfId("a"))
+        assertEquals(4, map.indexOfId("b"))
+        assertEquals(4, map.getPolygonCount())
+
+        // the removed place is reused
+        assertEquals(0, map.add(square("c", 0.0, 0.0, 10.0)))
+        assertEquals(0, map.indexOfId("c"))
+    }
+
+    @Test(expected = InvalidParameterException::class)
+    fun check_nullIdIsRejected() {
+        val map = MTPreparedMap(listOf(square(null, 0.0, 0.0, 10.0)))
+        map.indexOfId(null)
+    }
+}
@@ -0,0 +1,29 @@
+package stkim1.view.MTImageMapView
+
+import android.graphics.Rect
+import stkim1.view.geom.MTPoint
+import stkim1.view.geom.MTPolygon
+
+// an axis-aligned square polygon from (x, y)
+fun square(id: Any?, x: Double, y: Double, size: Double): MTPolygon {
+    return MTPolygon(id, listOf(MTPoint(x, y), MTPoint(x + size, y), MTPoint(x + size, y + size), MTPoint(x, y + size)))
+}
+
+// a grid of 18 x 18 squares, 20 apart, row by row. Polygon ids are their positions in the list.
+fun gridMap(columns: Int, rows: Int): MutableList<MTPolygon> {
+    val polygons = ArrayList<MTPolygon>()
+    for (i in 0 until columns * rows) {
+        polygons.add(square(i, (i % columns) * 20.0, (i / columns) * 20.0, 18.0))
+    }
+    return polygons
+}
+
+// Rect does nothing in JVM tests, but its fields are plain fields
+fun area(left: Int, top: Int, right: Int, bottom: Int): Rect {
+    val rect = Rect()
+    rect.left = left
+    rect.top = top
+    rect.right = right
+    rect.bottom = bottom
+    return rect
+}
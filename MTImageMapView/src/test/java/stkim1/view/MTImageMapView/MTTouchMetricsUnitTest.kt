@@ -0,0 +1,75 @@
+package stkim1.view.MTImageMapView
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+class MTTouchMetricsUnitTest {
+
+    @Test
+    fun check_bucketBounds() {
+        // a bucket per value below 8, and the first logarithmic bucket from 8
+        for (v in 0L until 8L) {
+            assertEquals(v.toInt(), MTTouchMetrics.bucketOf(v))
+            assertEquals(v, MTTouchMetrics.upperBoundOf(v.toInt()))
+        }
+        assertEquals(8, MTTouchMetrics.bucketOf(8L))
+        assertEquals(8L, MTTouchMetrics.upperBoundOf(8))
+        assertEquals(9, MTTouchMetrics.bucketOf(9L))
+        assertEquals(17L, MTTouchMetrics.upperBoundOf(MTTouchMetrics.bucketOf(16L)))
+
+        // a power of two starts a bucket, right after the one of the value below it
+        for (k in 3 until 63) {
+            val power = 1L shl k
+            val bucket = MTTouchMetrics.bucketOf(power)
+            assertEquals(bucket - 1, MTTouchMetrics.bucketOf(power - 1))
+            assertEquals(power - 1, MTTouchMetrics.upperBoundOf(bucket - 1))
+            assertEquals(power + (power shr 3) - 1, MTTouchMetrics.upperBoundOf(bucket))
+        }
+
+        // the last bucket ends at Long.MAX_VALUE
+        val last = MTTouchMetrics.bucketOf(Long.MAX_VALUE)
+        assertEquals(last, MTTouchMetrics.bucketOf((1L shl 62) + (7L shl 59)))
+        assertEquals(Long.MAX_VALUE, MTTouchMetrics.upperBoundOf(last))
+
+        // any value is in its bucket, which is less than 12.5% wide
+        val rnd = Random(9L)
+        for (i in 0 until 100000) {
+            val v = rnd.nextLong() ushr (1 + rnd.nextInt(63))
+            val bucket = MTTouchMetrics.bucketOf(v)
+            assertTrue(v <= MTTouchMetrics.upperBoundOf(bucket))
+            assertTrue(bucket == 0 || MTTouchMetrics.upperBoundOf(bucket - 1) < v)
+            assertTrue(MTTouchMetrics.upperBoundOf(bucket) - v <= v / 8)
+        }
+    }
+
+    @Test
+    fun check_latencyPercentiles() {
+        val metrics = MTTouchMetrics()
+        assertEquals(0L, metrics.getLatencyPercentile(0.5))
+
+        // 1000 touches of 1ns to 1000ns
+        for (latency in 1L..1000L) {
+            metrics.record(0L, latency)
+        }
+        assertEquals(1000L, metrics.getTouchCount())
+        assertEquals(511L, metrics.getLatencyPercentile(0.5))
+        assertEquals(959L, metrics.getLatencyPercentile(0.95))
+        assertEquals(1023L, metrics.getLatencyPercentile(0.99))
+        assertEquals(1L, metrics.getLatencyPercentile(0.0))
+        assertEquals(1023L, metrics.getLatencyPercentile(1.0))
+
+        // the percentiles are cumulative until the histogram is reset
+        for (i in 0 until 9000) {
+            metrics.record(0L, 5L)
+        }
+        assertEquals(5L, metrics.getLatencyPercentile(0.9))
+        assertEquals(959L, metrics.getLatencyPercentile(0.995))
+        metrics.resetHistogram()
+        assertEquals(0L, metrics.getTouchCount())
+        assertEquals(0L, metrics.getLatencyPercentile(0.99))
+        metrics.record(0L, 3000L)
+        assertEquals(3071L, metrics.getLatencyPercentile(0.5))
+    }
+}
@@ -0,0 +1,88 @@
+package stkim1.view.MTImageMapView
+
+import android.graphics.Matrix
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.util.Random
+
+class MTTouchResolverUnitTest {
+
+    @Test
+    fun check_pointIsConvertedFromTouchArea() {
+        val polygons = gridMap(50, 50)
+        val map = MTPreparedMap(polygons)
+        val resolver = MTTouchResolver()
+        // Matrix does nothing in JVM tests, so it works as the identity matrix here.
+        val matrix = Matrix()
+        val touchArea = area(100, 50, 1100, 1050)
+
+        resolver.resolve(105.0f, 55.0f, touchArea, matrix, map)
+        assertEquals(5.0, resolver.x, 0.0)
+        assertEquals(5.0, resolver.y, 0.0)
+        assertEquals(listOf(polygons[0]), resolver.getPolygons())
+
+        // between the squares
+        resolver.resolve(119.0f, 55.0f, touchArea, matrix, map)
+        assertEquals(19.0, resolver.x, 0.0)
+        assertTrue(resolver.getPolygons().isEmpty())
+
+        // out of the touch area is the zero point
+        resolver.resolve(99.0f, 55.0f, touchArea, matrix, map)
+        assertEquals(0.0, resolver.x, 0.0)
+        assertEquals(0.0, resolver.y, 0.0)
+        assertTrue(resolver.getPolygons().isEmpty())
+        resolver.resolve(500.0f, 1050.0f, touchArea, matrix, map)
+        assertTrue(resolver.getPolygons().isEmpty())
+
+        // so is any point of an empty map
+        assertFalse(resolver.convert(105.0f, 55.0f, touchArea, matrix, MTPreparedMap(null)))
+        assertEquals(0.0, resolver.x, 0.0)
+    }
+
+    @Test(expected = UnsupportedOperationException::class)
+    fun check_polygonsAreReadOnly() {
+        val resolver = MTTouchResolver()
+        resolver.resolve(5.0f, 5.0f, area(0, 0, 1000, 1000), Matrix(), MTPreparedMap(gridMap(50, 50)))
+        resolver.getPolygons().clear()
+    }
+
+    @Test
+    fun check_steadyStateTapAllocatesNothing() {
+        val map = MTPreparedMap(gridMap(50, 50))
+        val resolver = MTTouchResolver()
+        resolver.ensureCapacity(map.polygons.size)
+        val matrix = Matrix()
+        val touchArea = area(0, 0, 1000, 1000)
+        val xs = FloatArray(4096)
+        val ys = FloatArray(4096)
+        val rnd = Random(5)
+        for (i in xs.indices) {
+            // some taps fall out of the touch area
+            xs[i] = rnd.nextFloat() * 1100.0f
+            ys[i] = rnd.nextFloat() * 1100.0f
+        }
+
+        // warm up
+        for (i in xs.indices) {
+            resolver.resolve(xs[i], ys[i], touchArea, matrix, map)
+        }
+
+        val mxBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val tid = Thread.currentThread().id
+        mxBean.getThreadAllocatedBytes(tid)
+        // the JIT can still be compiling during a round. a single clean round proves the
+        // steady state does not allocate.
+        var least = Long.MAX_VALUE
+        for (round in 0 until 5) {
+            val before = mxBean.getThreadAllocatedBytes(tid)
+            for (i in xs.indices) {
+                resolver.resolve(xs[i], ys[i], touchArea, matrix, map)
+            }
+            least = Math.min(least, mxBean.getThreadAllocatedBytes(tid) - before)
+        }
+        assertEquals(0L, least)
+    }
+}
@@ -0,0 +1,108 @@
+package stkim1.view.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTPolygonBenchmark measures the queries and the preparation of a single polygon as its vertex
+ * count grows.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MTPolygonBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"16", "1000", "100000"})
+    public int vertexCount;
+
+    // whether a polygon buckets its edges by y-slab when it is closed, in setUp and closePolygon
+    @Param({"false", "true"})
+    public boolean edgeBuckets;
+
+    private MTPolygonOptions options;
+    private MTPolygon polygon;
+    private double[] xs, ys;
+    private double[] points;
+    private int next = 0;
+    private float[] pathPoints;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.options = MTPolygonOptions.DEFAULT.withEdgeBucketThreshold(this.edgeBuckets ? 3 : Integer.MAX_VALUE);
+
+        // one jagged polygon of the radius up to PITCH around (PITCH / 2, PITCH / 2)
+        this.polygon = MTSyntheticMaps.grid(1, this.vertexCount, 17L, this.options).get(0);
+
+        this.xs = new double[this.vertexCount];
+        this.ys = new double[this.vertexCount];
+        for (int i = 0; i < this.vertexCount; i++) {
+            this.xs[i] = this.polygon.getVertexX(i);
+            this.ys[i] = this.polygon.getVertexY(i);
+        }
+        this.points = MTSyntheticMaps.points(Collections.singletonList(this.polygon), POINTS, 23L);
+        this.pathPoints = new float[this.vertexCount * 2];
+    }
+
+    private int nextPoint() {
+        final int i = this.next;
+        this.next = (i + 2) % this.points.length;
+        return i;
+    }
+
+    @Benchmark
+    public boolean isPointInBBox() {
+        final int i = nextPoint();
+        return this.polygon.isPointInBBox(this.points[i], this.points[i + 1]);
+    }
+
+    @Benchmark
+    public boolean isPointInPolygon() {
+        final int i = nextPoint();
+        return this.polygon.isPointInPolygon(this.points[i], this.points[i + 1]);
+    }
+
+    @Benchmark
+    public MTPolygonBoundingBox boundingBox() {
+        MTPolygonBoundingBox box = new MTPolygonBoundingBox();
+        box.findBox(this.xs, this.ys, 0, this.vertexCount);
+        return box;
+    }
+
+    // the same packing MTPathCache does before Matrix.mapPoints, as a JVM stand-in for Path
+    @Benchmark
+    public float[] pathPoints() {
+        final int vsz = this.polygon.getVertexCount();
+        for (int i = 0; i < vsz; i++) {
+            this.pathPoints[i * 2] = (float)this.polygon.getVertexX(i);
+            this.pathPoints[i * 2 + 1] = (float)this.polygon.getVertexY(i);
+        }
+        return this.pathPoints;
+    }
+
+    @Benchmark
+    public MTPolygon closePolygon() throws Exception {
+        return new MTPolygon(null, this.xs, this.ys, 0, this.vertexCount, this.options);
+    }
+}
@@ -0,0 +1,78 @@
+package stkim1.view.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTPolygonClassifierBenchmark measures classifying a batch of a million points, on the calling
+ * thread and on pools of a growing number of threads, to see how a batch scales with cores.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MTPolygonClassifierBenchmark {
+
+    private static final int POINTS = 1000000;
+
+    // "us_states" for the sample map, or the number of synthetic polygons
+    @Param({"us_states", "100000"})
+    public String map;
+
+    // 0 to classify on the calling thread
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private MTPolygonClassifier classifier;
+    private ForkJoinPool pool;
+    private double[] points;
+    private int[] result;
+
+    @Setup
+    public void setUp() throws IOException {
+        final List<MTPolygon> polygons;
+        if ("us_states".equals(this.map)) {
+            polygons = MTSyntheticMaps.usStates();
+        } else {
+            polygons = MTSyntheticMaps.grid(Integer.parseInt(this.map), 8, 29L);
+        }
+        this.classifier = new MTPolygonClassifier(polygons);
+        this.pool = this.threads == 0 ? null : new ForkJoinPool(this.threads);
+        this.points = MTSyntheticMaps.points(polygons, POINTS, 31L);
+        this.result = new int[POINTS];
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int[] classify() {
+        this.classifier.classify(this.points, this.result, this.pool);
+        return this.result;
+    }
+}
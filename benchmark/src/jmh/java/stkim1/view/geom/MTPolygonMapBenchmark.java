@@ -0,0 +1,110 @@
+package stkim1.view.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTPolygonMapBenchmark measures hit testing a point against a whole polygon map; the linear scan
+ * over the list MTImageMapView used to do, the spatial index, and the hit map in front of it.
+ * Each hit test reuses its result list, so that the gc profiler shows allocations of the hit test
+ * itself.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MTPolygonMapBenchmark {
+
+    private static final int POINTS = 4096;
+    private static final int SYNTHETIC_VERTICES = 8;
+
+    // "us_states" for the sample map, or the number of synthetic polygons
+    @Param({"us_states", "1000", "10000", "100000", "1000000"})
+    public String map;
+
+    private List<MTPolygon> polygons;
+    private MTPolygonIndex index;
+    private MTPolygonHitMap hitMap;
+    private double[] points;
+    private int next = 0;
+    private final ArrayList<MTPolygon> result = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        final double cellSize;
+        if ("us_states".equals(this.map)) {
+            this.polygons = MTSyntheticMaps.usStates();
+            cellSize = 4.0;
+        } else {
+            this.polygons = MTSyntheticMaps.grid(Integer.parseInt(this.map), SYNTHETIC_VERTICES, 29L);
+            cellSize = MTSyntheticMaps.PITCH / 4.0;
+        }
+        this.index = new MTPolygonIndex(this.polygons);
+        this.hitMap = new MTPolygonHitMap(this.polygons, cellSize);
+        this.points = MTSyntheticMaps.points(this.polygons, POINTS, 31L);
+        this.result.ensureCapacity(this.polygons.size());
+    }
+
+    private int nextPoint() {
+        final int i = this.next;
+        this.next = (i + 2) % this.points.length;
+        return i;
+    }
+
+    @Benchmark
+    public int linearScan() {
+        final int i = nextPoint();
+        final double x = this.points[i], y = this.points[i + 1];
+        this.result.clear();
+        final int psz = this.polygons.size();
+        for (int p = 0; p < psz; p++) {
+            MTPolygon polygon = this.polygons.get(p);
+            if (polygon.isPointInBBox(x, y) && polygon.isPointInPolygon(x, y)) {
+                this.result.add(polygon);
+            }
+        }
+        return this.result.size();
+    }
+
+    @Benchmark
+    public int spatialIndex() {
+        final int i = nextPoint();
+        this.result.clear();
+        this.index.findPolygons(this.points[i], this.points[i + 1], this.result);
+        return this.result.size();
+    }
+
+    @Benchmark
+    public int hitMap() {
+        final int i = nextPoint();
+        final double x = this.points[i], y = this.points[i + 1];
+        this.result.clear();
+        final int hit = this.hitMap.lookup(x, y);
+        if (hit >= 0) {
+            this.result.add(this.polygons.get(hit));
+        } else if (hit == MTPolygonHitMap.MIXED) {
+            this.index.findPolygons(x, y, this.result);
+        }
+        return this.result.size();
+    }
+}
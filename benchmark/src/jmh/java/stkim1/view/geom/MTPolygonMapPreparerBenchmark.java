@@ -0,0 +1,87 @@
+package stkim1.view.geom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTPolygonMapPreparerBenchmark measures preparing a raw map of half a million open polygons, and
+ * bulk-loading the spatial index alone, on the calling thread and on pools of a growing number of
+ * threads.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MTPolygonMapPreparerBenchmark {
+
+    private static final int POLYGONS = 500000;
+    private static final int VERTICES = 16;
+
+    // 0 to prepare on the calling thread
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private List<MTPolygon> closed;
+    private List<MTPolygon> raw;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.closed = MTSyntheticMaps.grid(POLYGONS, VERTICES, 29L);
+        this.pool = this.threads == 0 ? null : new ForkJoinPool(this.threads);
+    }
+
+    // preparing closes polygons in place, so each shot takes a fresh raw map
+    @Setup(Level.Invocation)
+    public void setUpRaw() throws Exception {
+        this.raw = new ArrayList<>(POLYGONS);
+        for (MTPolygon polygon : this.closed) {
+            final MTPoint[] vts = new MTPoint[VERTICES];
+            for (int i = 0; i < VERTICES; i++) {
+                vts[i] = new MTPoint(polygon.getVertexX(i), polygon.getVertexY(i));
+            }
+            final MTPolygon open = new MTPolygon();
+            open.addVertices(vts);
+            this.raw.add(open);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public MTPolygonIndex prepare() {
+        return MTPolygonMapPreparer.prepare(this.raw, this.pool);
+    }
+
+    @Benchmark
+    public MTPolygonIndex bulkLoadIndex() {
+        return new MTPolygonIndex(this.closed, this.pool);
+    }
+}
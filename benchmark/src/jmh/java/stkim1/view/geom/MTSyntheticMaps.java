@@ -0,0 +1,113 @@
+package stkim1.view.geom;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * MTSyntheticMaps makes polygon maps for benchmarks; the sample US states map, and synthetic maps
+ * of any number of polygons and vertices.
+ *
+ * @author      stkim1
+ * @version     %I%, %G%
+ * @since       0.2
+ */
+final class MTSyntheticMaps {
+
+    // the distance between the centers of neighbouring synthetic polygons
+    static final double PITCH = 10.0;
+
+    private MTSyntheticMaps() {
+        super();
+    }
+
+    /**
+     * @return the polygons of <code>sample/assets/us_states.json</code>.
+     * @throws IOException if the sample map cannot be read.
+     */
+    @NonNull
+    static List<MTPolygon> usStates() throws IOException {
+        try (InputStream stream = MTSyntheticMaps.class.getResourceAsStream("/us_states.json")) {
+            if (stream == null) {
+                throw new IOException("us_states.json is not on the benchmark classpath.");
+            }
+            return MTPolygonMapReader.read(stream);
+        }
+    }
+
+    /**
+     * Lay jagged star-shaped polygons on a square grid. Every tenth polygon is twice as large, and
+     * overlaps its neighbours. All polygons share a pair of packed vertex arrays.
+     *
+     * @param polygonCount the number of polygons.
+     * @param vertexCount the number of vertices of each polygon.
+     * @param seed a random seed.
+     * @return a list of closed polygons.
+     */
+    @NonNull
+    static List<MTPolygon> grid(int polygonCount, int vertexCount, long seed) {
+        return grid(polygonCount, vertexCount, seed, MTPolygonOptions.DEFAULT);
+    }
+
+    /**
+     * Lay jagged star-shaped polygons on a square grid, and close them with given options.
+     *
+     * @see #grid(int, int, long)
+     */
+    @NonNull
+    static List<MTPolygon> grid(int polygonCount, int vertexCount, long seed, @NonNull MTPolygonOptions options) {
+        final Random rnd = new Random(seed);
+        final int side = (int)Math.ceil(Math.sqrt(polygonCount));
+        final double[] xs = new double[polygonCount * vertexCount];
+        final double[] ys = new double[polygonCount * vertexCount];
+        final List<MTPolygon> polygons = new ArrayList<>(polygonCount);
+
+        for (int p = 0; p < polygonCount; p++) {
+            final double cx = (p % side + 0.5) * PITCH;
+            final double cy = (p / side + 0.5) * PITCH;
+            final double radius = (p % 10 == 0) ? PITCH : PITCH * 0.45;
+            final int offset = p * vertexCount;
+            for (int k = 0; k < vertexCount; k++) {
+                final double angle = Math.PI * 2.0 * k / vertexCount;
+                final double r = radius * (0.6 + rnd.nextDouble() * 0.4);
+                xs[offset + k] = cx + Math.cos(angle) * r;
+                ys[offset + k] = cy + Math.sin(angle) * r;
+            }
+            polygons.add(new MTPolygon(p, xs, ys, offset, vertexCount, options));
+        }
+        return polygons;
+    }
+
+    /**
+     * Pick random points over the bounding boxes of polygons.
+     *
+     * @param polygons a list of closed polygons.
+     * @param count the number of points.
+     * @param seed a random seed.
+     * @return the points as (x, y) pairs.
+     */
+    @NonNull
+    static double[] points(@NonNull List<MTPolygon> polygons, int count, long seed) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (MTPolygon polygon : polygons) {
+            MTPolygonBoundingBox box = polygon.getBoundingBox();
+            minX = Math.min(minX, box.minVertex.x);
+            minY = Math.min(minY, box.minVertex.y);
+            maxX = Math.max(maxX, box.maxVertex.x);
+            maxY = Math.max(maxY, box.maxVertex.y);
+        }
+
+        final Random rnd = new Random(seed);
+        final double[] points = new double[count * 2];
+        for (int i = 0; i < count; i++) {
+            points[i * 2] = minX + rnd.nextDouble() * (maxX - minX);
+            points[i * 2 + 1] = minY + rnd.nextDouble() * (maxY - minY);
+        }
+        return points;
+    }
+}